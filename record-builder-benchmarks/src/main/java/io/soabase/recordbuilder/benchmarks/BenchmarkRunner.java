@@ -0,0 +1,46 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with JMH's GC profiler so that allocation rates are reported
+ * along with timings. Any arguments are treated as benchmark include patterns (regular expressions),
+ * the default is all benchmarks in this package.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder optionsBuilder = new OptionsBuilder();
+        if ( args.length == 0 )
+        {
+            optionsBuilder.include(BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+        }
+        else
+        {
+            for ( String include : args )
+            {
+                optionsBuilder.include(include);
+            }
+        }
+        Options options = optionsBuilder.addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
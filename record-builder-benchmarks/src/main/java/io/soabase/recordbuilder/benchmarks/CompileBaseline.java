@@ -0,0 +1,97 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Stored results of a {@link CompileBenchmark} run
+ */
+class CompileBaseline {
+    private final int records;
+    private final long nanosPerElement;
+    private final long peakHeapBytes;
+    private final long generatedBytes;
+
+    CompileBaseline(int records, long nanosPerElement, long peakHeapBytes, long generatedBytes) {
+        this.records = records;
+        this.nanosPerElement = nanosPerElement;
+        this.peakHeapBytes = peakHeapBytes;
+        this.generatedBytes = generatedBytes;
+    }
+
+    static CompileBaseline load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path))
+        {
+            properties.load(reader);
+        }
+        return new CompileBaseline(Integer.parseInt(properties.getProperty("records")), Long.parseLong(properties.getProperty("nanosPerElement")), Long.parseLong(properties.getProperty("peakHeapBytes")), Long.parseLong(properties.getProperty("generatedBytes")));
+    }
+
+    void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("records", Integer.toString(records));
+        properties.setProperty("nanosPerElement", Long.toString(nanosPerElement));
+        properties.setProperty("peakHeapBytes", Long.toString(peakHeapBytes));
+        properties.setProperty("generatedBytes", Long.toString(generatedBytes));
+        try (Writer writer = Files.newBufferedWriter(path))
+        {
+            properties.store(writer, "record-builder compile benchmark baseline");
+        }
+    }
+
+    /**
+     * Compare the given (current) results to this baseline
+     *
+     * @param current results of the current run
+     * @param tolerance allowed regression as a fraction, e.g. 0.1 for 10%
+     * @return list of regressions - empty if there are none
+     */
+    List<String> regressions(CompileBaseline current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        if ( current.records != records )
+        {
+            regressions.add(String.format("Baseline is for %d records but %d were compiled", records, current.records));
+            return regressions;
+        }
+        if ( current.nanosPerElement > (nanosPerElement * (1 + tolerance)) )
+        {
+            regressions.add(String.format("Processor time per element regressed: %,d ns -> %,d ns", nanosPerElement, current.nanosPerElement));
+        }
+        if ( current.peakHeapBytes > (peakHeapBytes * (1 + tolerance)) )
+        {
+            regressions.add(String.format("Peak heap regressed: %,d bytes -> %,d bytes", peakHeapBytes, current.peakHeapBytes));
+        }
+        if ( current.generatedBytes > (generatedBytes * (1 + tolerance)) )
+        {
+            regressions.add(String.format("Generated bytes regressed: %,d -> %,d", generatedBytes, current.generatedBytes));
+        }
+        return regressions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("records=%,d nanosPerElement=%,d peakHeapBytes=%,d generatedBytes=%,d", records, nanosPerElement, peakHeapBytes, generatedBytes);
+    }
+}
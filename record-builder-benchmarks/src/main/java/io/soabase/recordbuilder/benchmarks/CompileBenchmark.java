@@ -0,0 +1,253 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import io.soabase.recordbuilder.processor.RecordBuilderIncludeProcessor;
+import io.soabase.recordbuilder.processor.RecordBuilderProcessor;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the throughput of the annotation processors. Synthesizes records/interfaces (see {@link SyntheticSources}),
+ * compiles them in-process via {@code javax.tools.JavaCompiler} with {@code RecordBuilderProcessor} and
+ * {@code RecordBuilderIncludeProcessor} attached and reports processor time per element, peak heap and generated
+ * bytes. Processor times come from the processors' {@code recordBuilderStats} report.
+ *
+ * <p>
+ * Arguments:
+ * <ul>
+ *     <li>{@code --records n} - number of synthesized sources (default 1000)</li>
+ *     <li>{@code --iterations n} - measured compilations, the median is reported (default 3)</li>
+ *     <li>{@code --warmups n} - unmeasured compilations (default 1)</li>
+ *     <li>{@code --compile} - also compile the sources instead of {@code -proc:only}</li>
+ *     <li>{@code --baseline file} - compare to the baseline and exit with 1 if there is a regression</li>
+ *     <li>{@code --save-baseline file} - save the results as a new baseline</li>
+ *     <li>{@code --tolerance fraction} - allowed regression (default 0.1)</li>
+ * </ul>
+ * </p>
+ */
+public class CompileBenchmark {
+    private static final String STATS_DIRECTORY = "META-INF/record-builder";
+
+    private final int records;
+    private final boolean compile;
+
+    private static class Result {
+        private final long elements;
+        private final long processorNanos;
+        private final long peakHeapBytes;
+        private final long generatedBytes;
+        private final long wallNanos;
+
+        private Result(long elements, long processorNanos, long peakHeapBytes, long generatedBytes, long wallNanos) {
+            this.elements = elements;
+            this.processorNanos = processorNanos;
+            this.peakHeapBytes = peakHeapBytes;
+            this.generatedBytes = generatedBytes;
+            this.wallNanos = wallNanos;
+        }
+
+        private long nanosPerElement() {
+            return (elements > 0) ? (processorNanos / elements) : 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int records = 1000;
+        int iterations = 3;
+        int warmups = 1;
+        boolean compile = false;
+        Path baselinePath = null;
+        Path saveBaselinePath = null;
+        double tolerance = 0.1;
+        for ( int index = 0; index < args.length; ++index )
+        {
+            switch ( args[index] )
+            {
+                case "--records": records = Integer.parseInt(args[++index]); break;
+                case "--iterations": iterations = Integer.parseInt(args[++index]); break;
+                case "--warmups": warmups = Integer.parseInt(args[++index]); break;
+                case "--compile": compile = true; break;
+                case "--baseline": baselinePath = Paths.get(args[++index]); break;
+                case "--save-baseline": saveBaselinePath = Paths.get(args[++index]); break;
+                case "--tolerance": tolerance = Double.parseDouble(args[++index]); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[index]);
+            }
+        }
+
+        CompileBenchmark benchmark = new CompileBenchmark(records, compile);
+        for ( int warmup = 0; warmup < warmups; ++warmup )
+        {
+            benchmark.run();
+        }
+        List<Result> results = new ArrayList<>();
+        for ( int iteration = 0; iteration < iterations; ++iteration )
+        {
+            Result result = benchmark.run();
+            System.out.printf("Iteration %d: %,d elements, %,d ns/element, peak heap %,d bytes, generated %,d bytes, wall %,d ms%n", iteration + 1, result.elements, result.nanosPerElement(), result.peakHeapBytes, result.generatedBytes, result.wallNanos / 1_000_000);
+            results.add(result);
+        }
+        results.sort(Comparator.comparingLong(Result::nanosPerElement));
+        Result median = results.get(results.size() / 2);
+        CompileBaseline current = new CompileBaseline(records, median.nanosPerElement(), median.peakHeapBytes, median.generatedBytes);
+        System.out.println("Result: " + current);
+
+        if ( saveBaselinePath != null )
+        {
+            current.save(saveBaselinePath);
+            System.out.println("Baseline saved to: " + saveBaselinePath);
+        }
+        if ( baselinePath != null )
+        {
+            CompileBaseline baseline = CompileBaseline.load(baselinePath);
+            System.out.println("Baseline: " + baseline);
+            List<String> regressions = baseline.regressions(current, tolerance);
+            if ( !regressions.isEmpty() )
+            {
+                regressions.forEach(System.err::println);
+                System.exit(1);
+            }
+        }
+    }
+
+    private CompileBenchmark(int records, boolean compile) {
+        this.records = records;
+        this.compile = compile;
+    }
+
+    private Result run() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if ( compiler == null )
+        {
+            throw new IllegalStateException("No system Java compiler - run with a JDK");
+        }
+        List<JavaFileObject> sources = SyntheticSources.generate(records);
+
+        Path workDirectory = Files.createTempDirectory("record-builder-compile-benchmark");
+        try
+        {
+            Path classOutput = Files.createDirectories(workDirectory.resolve("classes"));
+            Path sourceOutput = Files.createDirectories(workDirectory.resolve("generated"));
+            List<String> options = new ArrayList<>(Arrays.asList(
+                "--release", Integer.toString(Runtime.version().feature()),
+                "--enable-preview",
+                "-Xlint:-preview",
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", classOutput.toString(),
+                "-s", sourceOutput.toString(),
+                "-A" + RecordBuilderProcessor.OPTION_STATS + "=csv"
+            ));
+            if ( !compile )
+            {
+                options.add("-proc:only");
+            }
+
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            List<MemoryPoolMXBean> heapPools = heapPools();
+            System.gc();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            long startNanos = System.nanoTime();
+            boolean success;
+            try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null))
+            {
+                JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+                task.setProcessors(List.of(new RecordBuilderProcessor(), new RecordBuilderIncludeProcessor()));
+                success = task.call();
+            }
+            long wallNanos = System.nanoTime() - startNanos;
+            long peakHeapBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            if ( !success )
+            {
+                diagnostics.getDiagnostics().forEach(System.err::println);
+                throw new IllegalStateException("Compilation failed");
+            }
+            return readStatistics(classOutput.resolve(STATS_DIRECTORY), peakHeapBytes, wallNanos);
+        }
+        finally
+        {
+            delete(workDirectory);
+        }
+    }
+
+    private static Result readStatistics(Path statsDirectory, long peakHeapBytes, long wallNanos) throws IOException {
+        long elements = 0;
+        long processorNanos = 0;
+        long generatedBytes = 0;
+        try (Stream<Path> files = Files.list(statsDirectory))
+        {
+            for ( Path file : (Iterable<Path>)files::iterator )
+            {
+                for ( String line : Files.readAllLines(file) )
+                {
+                    // type,round,element,annotation,elements,processNanos,renderNanos,generatedBytes,generatedMethods
+                    String[] fields = line.split(",", -1);
+                    if ( fields[0].equals("round") )
+                    {
+                        elements += Long.parseLong(fields[4]);
+                        processorNanos += Long.parseLong(fields[5]) + Long.parseLong(fields[6]);
+                        generatedBytes += Long.parseLong(fields[7]);
+                    }
+                }
+            }
+        }
+        return new Result(elements, processorNanos, peakHeapBytes, generatedBytes, wallNanos);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+        {
+            if ( pool.getType() == MemoryType.HEAP )
+            {
+                heapPools.add(pool);
+            }
+        }
+        return heapPools;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try
+                {
+                    Files.delete(path);
+                }
+                catch ( IOException e )
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
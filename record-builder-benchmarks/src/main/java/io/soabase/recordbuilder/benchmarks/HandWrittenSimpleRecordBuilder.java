@@ -0,0 +1,87 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Hand-written equivalent of the generated {@code SimpleRecordBuilder}. Used as the
+ * baseline the generated code is measured against.
+ */
+public class HandWrittenSimpleRecordBuilder {
+    private int i;
+    private String s;
+
+    private HandWrittenSimpleRecordBuilder() {
+    }
+
+    private HandWrittenSimpleRecordBuilder(int i, String s) {
+        this.i = i;
+        this.s = s;
+    }
+
+    public static HandWrittenSimpleRecordBuilder builder() {
+        return new HandWrittenSimpleRecordBuilder();
+    }
+
+    public static HandWrittenSimpleRecordBuilder builder(SimpleRecord from) {
+        return new HandWrittenSimpleRecordBuilder(from.i(), from.s());
+    }
+
+    public static Stream<Map.Entry<String, Object>> stream(SimpleRecord record) {
+        return Stream.of(Map.entry("i", record.i()), Map.entry("s", record.s()));
+    }
+
+    public SimpleRecord build() {
+        return new SimpleRecord(i, s);
+    }
+
+    public HandWrittenSimpleRecordBuilder i(int i) {
+        this.i = i;
+        return this;
+    }
+
+    public HandWrittenSimpleRecordBuilder s(String s) {
+        this.s = s;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( !(o instanceof HandWrittenSimpleRecordBuilder) )
+        {
+            return false;
+        }
+        HandWrittenSimpleRecordBuilder that = (HandWrittenSimpleRecordBuilder)o;
+        return (i == that.i) && Objects.equals(s, that.s);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Integer.hashCode(i) + Objects.hashCode(s);
+    }
+
+    @Override
+    public String toString() {
+        return "HandWrittenSimpleRecordBuilder[i=" + i + ", s=" + s + "]";
+    }
+}
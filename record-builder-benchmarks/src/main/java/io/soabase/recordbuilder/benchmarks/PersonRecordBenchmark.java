@@ -0,0 +1,72 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class PersonRecordBenchmark {
+    private int age;
+    private String name;
+    private PersonRecord record;
+
+    @Setup
+    public void setup() {
+        age = 42;
+        name = "Jane";
+        record = new PersonRecord("John", 21);
+    }
+
+    @Benchmark
+    public Person generatedBuild() {
+        return PersonRecordBuilder.builder().name(name).age(age).build();
+    }
+
+    @Benchmark
+    public Person handWrittenBuild() {
+        return new PersonRecord(name, age);
+    }
+
+    @Benchmark
+    public Person generatedWithSingle() {
+        return record.withAge(age);
+    }
+
+    @Benchmark
+    public Person handWrittenWithSingle() {
+        return new PersonRecord(record.name(), age);
+    }
+
+    @Benchmark
+    public Person generatedWithMulti() {
+        return record.with(b -> b.name(name).age(age));
+    }
+}
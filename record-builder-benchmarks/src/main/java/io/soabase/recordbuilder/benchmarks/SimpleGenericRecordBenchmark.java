@@ -0,0 +1,89 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class SimpleGenericRecordBenchmark {
+    private int value;
+    private String name;
+    private SimpleGenericRecord<String> record;
+
+    @Setup
+    public void setup() {
+        value = 42;
+        name = "forty-two";
+        record = new SimpleGenericRecord<>(1, "one");
+    }
+
+    @Benchmark
+    public SimpleGenericRecord<String> constructor() {
+        return new SimpleGenericRecord<>(value, name);
+    }
+
+    @Benchmark
+    public SimpleGenericRecord<String> generatedBuild() {
+        return SimpleGenericRecordBuilder.<String>builder().i(value).s(name).build();
+    }
+
+    @Benchmark
+    public SimpleGenericRecord<String> generatedCopyBuilder() {
+        return SimpleGenericRecordBuilder.builder(record).i(value).build();
+    }
+
+    @Benchmark
+    public SimpleGenericRecord<String> generatedWithSingle() {
+        return record.withI(value);
+    }
+
+    @Benchmark
+    public SimpleGenericRecord<String> handWrittenWithSingle() {
+        return new SimpleGenericRecord<>(value, record.s());
+    }
+
+    @Benchmark
+    public SimpleGenericRecord<String> generatedWithMulti() {
+        return record.with(b -> b.i(value).s(name));
+    }
+
+    @Benchmark
+    public void generatedStream(Blackhole blackhole) {
+        SimpleGenericRecordBuilder.stream(record).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void handWrittenStream(Blackhole blackhole) {
+        blackhole.consume(record.i());
+        blackhole.consume(record.s());
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class SimpleRecordBenchmark {
+    private int value;
+    private String name;
+    private SimpleRecord record;
+    private SimpleRecordBuilder builder;
+    private SimpleRecordBuilder otherBuilder;
+    private HandWrittenSimpleRecordBuilder handWrittenBuilder;
+    private HandWrittenSimpleRecordBuilder otherHandWrittenBuilder;
+
+    @Setup
+    public void setup() {
+        value = 42;
+        name = "forty-two";
+        record = new SimpleRecord(1, "one");
+        builder = SimpleRecordBuilder.builder(record);
+        otherBuilder = SimpleRecordBuilder.builder(record);
+        handWrittenBuilder = HandWrittenSimpleRecordBuilder.builder(record);
+        otherHandWrittenBuilder = HandWrittenSimpleRecordBuilder.builder(record);
+    }
+
+    @Benchmark
+    public SimpleRecord constructor() {
+        return new SimpleRecord(value, name);
+    }
+
+    @Benchmark
+    public SimpleRecord generatedBuild() {
+        return SimpleRecordBuilder.builder().i(value).s(name).build();
+    }
+
+    @Benchmark
+    public SimpleRecord handWrittenBuild() {
+        return HandWrittenSimpleRecordBuilder.builder().i(value).s(name).build();
+    }
+
+    @Benchmark
+    public SimpleRecord generatedCopyBuilder() {
+        return SimpleRecordBuilder.builder(record).i(value).build();
+    }
+
+    @Benchmark
+    public SimpleRecord handWrittenCopyBuilder() {
+        return HandWrittenSimpleRecordBuilder.builder(record).i(value).build();
+    }
+
+    @Benchmark
+    public SimpleRecord generatedWithSingle() {
+        return record.withI(value);
+    }
+
+    @Benchmark
+    public SimpleRecord handWrittenWithSingle() {
+        return new SimpleRecord(value, record.s());
+    }
+
+    @Benchmark
+    public SimpleRecord generatedWithMulti() {
+        return record.with(b -> b.i(value).s(name));
+    }
+
+    @Benchmark
+    public SimpleRecord generatedWithBuilder() {
+        return record.with().i(value).s(name).build();
+    }
+
+    @Benchmark
+    public SimpleRecord handWrittenWithMulti() {
+        return new SimpleRecord(value, name);
+    }
+
+    @Benchmark
+    public void generatedStream(Blackhole blackhole) {
+        SimpleRecordBuilder.stream(record).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void handWrittenStream(Blackhole blackhole) {
+        HandWrittenSimpleRecordBuilder.stream(record).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public boolean generatedBuilderEquals() {
+        return builder.equals(otherBuilder);
+    }
+
+    @Benchmark
+    public boolean handWrittenBuilderEquals() {
+        return handWrittenBuilder.equals(otherHandWrittenBuilder);
+    }
+
+    @Benchmark
+    public int generatedBuilderHashCode() {
+        return builder.hashCode();
+    }
+
+    @Benchmark
+    public int handWrittenBuilderHashCode() {
+        return handWrittenBuilder.hashCode();
+    }
+
+    @Benchmark
+    public String generatedBuilderToString() {
+        return builder.toString();
+    }
+
+    @Benchmark
+    public String handWrittenBuilderToString() {
+        return handWrittenBuilder.toString();
+    }
+}
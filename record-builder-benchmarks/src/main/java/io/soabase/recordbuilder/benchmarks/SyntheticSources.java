@@ -0,0 +1,148 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthesizes source files for {@link CompileBenchmark}. The sources cycle through: simple records,
+ * 30 component records, {@code SpecializedPerson}-like generic interfaces, records nested in classes
+ * and plain records that are generated via {@code RecordBuilder.Include}. Sources are spread over packages
+ * of {@link #PACKAGE_SIZE} files each.
+ */
+class SyntheticSources {
+    static final int PACKAGE_SIZE = 500;
+
+    private static final int KINDS = 5;
+    private static final String[] WIDE_TYPES = {"int", "long", "String", "double", "java.util.List<String>"};
+
+    static List<JavaFileObject> generate(int count) {
+        List<JavaFileObject> sources = new ArrayList<>();
+        List<String> included = new ArrayList<>();
+        for ( int index = 0; index < count; ++index )
+        {
+            String packageName = packageName(index);
+            switch ( index % KINDS )
+            {
+                case 0: sources.add(simpleRecord(packageName, index)); break;
+                case 1: sources.add(wideRecord(packageName, index)); break;
+                case 2: sources.add(genericInterface(packageName, index)); break;
+                case 3: sources.add(nestedRecord(packageName, index)); break;
+                default:
+                {
+                    sources.add(includedRecord(packageName, index));
+                    included.add("Included" + index);
+                    break;
+                }
+            }
+
+            boolean isLastInPackage = ((index + 1) % PACKAGE_SIZE == 0) || ((index + 1) == count);
+            if ( isLastInPackage && !included.isEmpty() )
+            {
+                sources.add(includeHolder(packageName, index / PACKAGE_SIZE, included));
+                included.clear();
+            }
+        }
+        return sources;
+    }
+
+    private static String packageName(int index) {
+        return "synthetic.p" + (index / PACKAGE_SIZE);
+    }
+
+    private static JavaFileObject simpleRecord(String packageName, int index) {
+        String name = "Simple" + index;
+        return source(packageName, name, "@io.soabase.recordbuilder.core.RecordBuilder\n"
+            + "public record " + name + "(int i, String s, long l) implements " + name + "Builder.With {\n}\n");
+    }
+
+    private static JavaFileObject wideRecord(String packageName, int index) {
+        String name = "Wide" + index;
+        StringBuilder components = new StringBuilder();
+        for ( int component = 0; component < 30; ++component )
+        {
+            if ( component > 0 )
+            {
+                components.append(",\n");
+            }
+            components.append("    ").append(WIDE_TYPES[component % WIDE_TYPES.length]).append(" c").append(component);
+        }
+        return source(packageName, name, "@io.soabase.recordbuilder.core.RecordBuilder\n"
+            + "public record " + name + "(\n" + components + ") implements " + name + "Builder.With {\n}\n");
+    }
+
+    private static JavaFileObject genericInterface(String packageName, int index) {
+        String name = "Specialized" + index;
+        return source(packageName, name, "import java.util.List;\n"
+            + "import java.util.Map;\n"
+            + "import java.util.function.Function;\n"
+            + "import java.util.function.Supplier;\n\n"
+            + "@io.soabase.recordbuilder.core.RecordInterface\n"
+            + "public interface " + name + "<T, U extends Comparable<U>> {\n"
+            + "    String name();\n\n"
+            + "    int age();\n\n"
+            + "    List<T> features();\n\n"
+            + "    Map<Supplier<T>, Function<U, Function<T, U>>> complex();\n"
+            + "}\n");
+    }
+
+    private static JavaFileObject nestedRecord(String packageName, int index) {
+        String name = "Outer" + index;
+        return source(packageName, name, "public class " + name + " {\n"
+            + "    @io.soabase.recordbuilder.core.RecordBuilder\n"
+            + "    public record Nested" + index + "(int x, int y, java.util.Optional<String> label) {\n"
+            + "    }\n"
+            + "}\n");
+    }
+
+    private static JavaFileObject includedRecord(String packageName, int index) {
+        String name = "Included" + index;
+        return source(packageName, name, "public record " + name + "(String a, int b, java.util.Set<Long> c) {\n}\n");
+    }
+
+    private static JavaFileObject includeHolder(String packageName, int packageIndex, List<String> included) {
+        String name = "IncludeHolder" + packageIndex;
+        StringBuilder classes = new StringBuilder();
+        for ( String includedName : included )
+        {
+            if ( classes.length() > 0 )
+            {
+                classes.append(", ");
+            }
+            classes.append(includedName).append(".class");
+        }
+        return source(packageName, name, "@io.soabase.recordbuilder.core.RecordBuilder.Include({" + classes + "})\n"
+            + "public class " + name + " {\n}\n");
+    }
+
+    private static JavaFileObject source(String packageName, String name, String body) {
+        String code = "package " + packageName + ";\n\n" + body;
+        URI uri = URI.create("string:///" + packageName.replace('.', '/') + "/" + name + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private SyntheticSources() {
+    }
+}
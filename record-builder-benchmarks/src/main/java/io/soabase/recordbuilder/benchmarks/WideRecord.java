@@ -0,0 +1,52 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import io.soabase.recordbuilder.core.RecordBuilder;
+
+@RecordBuilder
+public record WideRecord(
+    int f01,
+    long f02,
+    String f03,
+    double f04,
+    boolean f05,
+    int f06,
+    long f07,
+    String f08,
+    double f09,
+    boolean f10,
+    int f11,
+    long f12,
+    String f13,
+    double f14,
+    boolean f15,
+    int f16,
+    long f17,
+    String f18,
+    double f19,
+    boolean f20,
+    int f21,
+    long f22,
+    String f23,
+    double f24,
+    boolean f25,
+    int f26,
+    long f27,
+    String f28,
+    double f29,
+    boolean f30) implements WideRecordBuilder.With {
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class WideRecordBenchmark {
+    private int value;
+    private String name;
+    private WideRecord record;
+    private WideRecordBuilder builder;
+    private WideRecordBuilder otherBuilder;
+
+    @Setup
+    public void setup() {
+        value = 42;
+        name = "forty-two";
+        record = new WideRecord(
+            1,
+            2L,
+            "v3",
+            4.0,
+            true,
+            6,
+            7L,
+            "v8",
+            9.0,
+            false,
+            11,
+            12L,
+            "v13",
+            14.0,
+            true,
+            16,
+            17L,
+            "v18",
+            19.0,
+            false,
+            21,
+            22L,
+            "v23",
+            24.0,
+            true,
+            26,
+            27L,
+            "v28",
+            29.0,
+            false);
+        builder = WideRecordBuilder.builder(record);
+        otherBuilder = WideRecordBuilder.builder(record);
+    }
+
+    @Benchmark
+    public WideRecord generatedBuild() {
+        return WideRecordBuilder.builder()
+            .f01(2)
+            .f02(3L)
+            .f03("v4")
+            .f04(5.0)
+            .f05(false)
+            .f06(7)
+            .f07(8L)
+            .f08("v9")
+            .f09(10.0)
+            .f10(true)
+            .f11(12)
+            .f12(13L)
+            .f13("v14")
+            .f14(15.0)
+            .f15(false)
+            .f16(17)
+            .f17(18L)
+            .f18("v19")
+            .f19(20.0)
+            .f20(true)
+            .f21(22)
+            .f22(23L)
+            .f23("v24")
+            .f24(25.0)
+            .f25(false)
+            .f26(27)
+            .f27(28L)
+            .f28("v29")
+            .f29(30.0)
+            .f30(true)
+            .build();
+    }
+
+    @Benchmark
+    public WideRecord handWrittenBuild() {
+        return new WideRecord(2, 3L, "v4", 5.0, false, 7, 8L, "v9", 10.0, true, 12, 13L, "v14", 15.0, false, 17, 18L, "v19", 20.0, true, 22, 23L, "v24", 25.0, false, 27, 28L, "v29", 30.0, true);
+    }
+
+    @Benchmark
+    public WideRecord generatedCopyBuilder() {
+        return WideRecordBuilder.builder(record).f01(value).build();
+    }
+
+    @Benchmark
+    public WideRecord generatedWithSingle() {
+        return record.withF01(value);
+    }
+
+    @Benchmark
+    public WideRecord handWrittenWithSingle() {
+        return new WideRecord(value, record.f02(), record.f03(), record.f04(), record.f05(), record.f06(), record.f07(), record.f08(), record.f09(), record.f10(), record.f11(), record.f12(), record.f13(), record.f14(), record.f15(), record.f16(), record.f17(), record.f18(), record.f19(), record.f20(), record.f21(), record.f22(), record.f23(), record.f24(), record.f25(), record.f26(), record.f27(), record.f28(), record.f29(), record.f30());
+    }
+
+    @Benchmark
+    public WideRecord generatedWithMulti() {
+        return record.with(b -> b.f01(value).f03(name));
+    }
+
+    @Benchmark
+    public WideRecord generatedChainedWithers() {
+        return record.withF01(value).withF03(name);
+    }
+
+    @Benchmark
+    public WideRecord handWrittenWithMulti() {
+        return new WideRecord(value, record.f02(), name, record.f04(), record.f05(), record.f06(), record.f07(), record.f08(), record.f09(), record.f10(), record.f11(), record.f12(), record.f13(), record.f14(), record.f15(), record.f16(), record.f17(), record.f18(), record.f19(), record.f20(), record.f21(), record.f22(), record.f23(), record.f24(), record.f25(), record.f26(), record.f27(), record.f28(), record.f29(), record.f30());
+    }
+
+    @Benchmark
+    public void generatedStream(Blackhole blackhole) {
+        WideRecordBuilder.stream(record).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public boolean generatedBuilderEquals() {
+        return builder.equals(otherBuilder);
+    }
+
+    @Benchmark
+    public int generatedBuilderHashCode() {
+        return builder.hashCode();
+    }
+
+    @Benchmark
+    public String generatedBuilderToString() {
+        return builder.toString();
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocations of the generated withers with a plain constructor call. Run with
+ * {@code -prof gc}: on C2, {@code gc.alloc.rate.norm} of {@link #withConsumer()} should equal
+ * {@link #constructor()} - i.e. the builder and lambda are scalar replaced and only the record is
+ * allocated. {@link WitherAllocationCheck} runs this and fails if that's not the case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class WitherAllocationBenchmark {
+    private int x;
+    private int y;
+    private Point point;
+
+    @Setup
+    public void setup() {
+        x = 1;
+        y = 2;
+        point = new Point(10, 20);
+    }
+
+    @Benchmark
+    public Point constructor() {
+        return new Point(x, y);
+    }
+
+    @Benchmark
+    public Point withConsumer() {
+        return point.with(b -> b.x(x).y(y));
+    }
+
+    @Benchmark
+    public Point withSingle() {
+        return point.withX(x);
+    }
+
+    @Benchmark
+    public Point withBuilder() {
+        return point.with().x(x).y(y).build();
+    }
+}
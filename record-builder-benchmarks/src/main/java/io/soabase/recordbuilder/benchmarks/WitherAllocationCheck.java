@@ -0,0 +1,88 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Runs {@link WitherAllocationBenchmark} with the GC profiler and verifies that every wither allocates
+ * no more per operation than the plain constructor does. Exits with a non-zero status otherwise. An
+ * optional argument sets the allowed difference in bytes (default 0.5 to absorb measurement noise).
+ */
+public class WitherAllocationCheck {
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws RunnerException {
+        double tolerance = (args.length > 0) ? Double.parseDouble(args[0]) : 0.5;
+        Options options = new OptionsBuilder()
+            .include(WitherAllocationBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        double baseline = allocation(results, "constructor");
+        boolean failed = false;
+        for ( RunResult result : results )
+        {
+            String name = benchmarkName(result);
+            double allocation = allocation(result);
+            boolean ok = allocation <= (baseline + tolerance);
+            System.out.printf("%-15s %8.2f bytes/op %s%n", name, allocation, ok ? "OK" : "FAILED - expected at most " + baseline);
+            failed |= !ok;
+        }
+        if ( failed )
+        {
+            System.exit(1);
+        }
+    }
+
+    private static double allocation(Collection<RunResult> results, String benchmark) {
+        for ( RunResult result : results )
+        {
+            if ( benchmarkName(result).equals(benchmark) )
+            {
+                return allocation(result);
+            }
+        }
+        throw new IllegalStateException("No result for " + benchmark);
+    }
+
+    private static double allocation(RunResult result) {
+        // the key is prefixed with a separator char that differs between JMH versions
+        for ( Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet() )
+        {
+            if ( entry.getKey().endsWith(ALLOCATION_METRIC) )
+            {
+                return entry.getValue().getScore();
+            }
+        }
+        throw new IllegalStateException(ALLOCATION_METRIC + " missing - is the GC profiler available?");
+    }
+
+    private static String benchmarkName(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        return benchmark.substring(benchmark.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,773 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+/**
+ * Runtime support for generated {@link RecordCodec}s. The format is:
+ *
+ * <ul>
+ *     <li>{@code boolean}/{@code byte} - one byte</li>
+ *     <li>{@code short}/{@code char}/{@code int}/{@code long} - zig-zag varint (1 to 10 bytes)</li>
+ *     <li>{@code float}/{@code double} - 4/8 bytes in the buffer's byte order (big endian for {@code DataOutput})</li>
+ *     <li>{@code String} - unsigned varint of the UTF-8 length plus one ({@code 0} for null) followed by the UTF-8 bytes</li>
+ *     <li>{@code List}/{@code Map} - unsigned varint size followed by the elements/key-value pairs</li>
+ *     <li>nullable values - a presence byte followed by the value</li>
+ * </ul>
+ *
+ * Encoding scalars, Strings and {@code RandomAccess} lists does not allocate. Other lists and maps are
+ * encoded via their iterator which is the only allocation. Unpaired surrogate chars in Strings are written as {@code '?'}.
+ */
+public final class Codecs {
+    public static final RecordCodec<Boolean> BOOLEAN = new RecordCodec<>() {
+        @Override
+        public void encode(Boolean value, ByteBuffer out) {
+            writeBoolean(out, value);
+        }
+
+        @Override
+        public Boolean decode(ByteBuffer in) {
+            return readBoolean(in);
+        }
+
+        @Override
+        public void encode(Boolean value, DataOutput out) throws IOException {
+            writeBoolean(out, value);
+        }
+
+        @Override
+        public Boolean decode(DataInput in) throws IOException {
+            return readBoolean(in);
+        }
+    };
+
+    public static final RecordCodec<Byte> BYTE = new RecordCodec<>() {
+        @Override
+        public void encode(Byte value, ByteBuffer out) {
+            writeByte(out, value);
+        }
+
+        @Override
+        public Byte decode(ByteBuffer in) {
+            return readByte(in);
+        }
+
+        @Override
+        public void encode(Byte value, DataOutput out) throws IOException {
+            writeByte(out, value);
+        }
+
+        @Override
+        public Byte decode(DataInput in) throws IOException {
+            return readByte(in);
+        }
+    };
+
+    public static final RecordCodec<Short> SHORT = new RecordCodec<>() {
+        @Override
+        public void encode(Short value, ByteBuffer out) {
+            writeVarInt(out, value);
+        }
+
+        @Override
+        public Short decode(ByteBuffer in) {
+            return (short)readVarInt(in);
+        }
+
+        @Override
+        public void encode(Short value, DataOutput out) throws IOException {
+            writeVarInt(out, value);
+        }
+
+        @Override
+        public Short decode(DataInput in) throws IOException {
+            return (short)readVarInt(in);
+        }
+    };
+
+    public static final RecordCodec<Character> CHARACTER = new RecordCodec<>() {
+        @Override
+        public void encode(Character value, ByteBuffer out) {
+            writeVarInt(out, value);
+        }
+
+        @Override
+        public Character decode(ByteBuffer in) {
+            return (char)readVarInt(in);
+        }
+
+        @Override
+        public void encode(Character value, DataOutput out) throws IOException {
+            writeVarInt(out, value);
+        }
+
+        @Override
+        public Character decode(DataInput in) throws IOException {
+            return (char)readVarInt(in);
+        }
+    };
+
+    public static final RecordCodec<Integer> INTEGER = new RecordCodec<>() {
+        @Override
+        public void encode(Integer value, ByteBuffer out) {
+            writeVarInt(out, value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer in) {
+            return readVarInt(in);
+        }
+
+        @Override
+        public void encode(Integer value, DataOutput out) throws IOException {
+            writeVarInt(out, value);
+        }
+
+        @Override
+        public Integer decode(DataInput in) throws IOException {
+            return readVarInt(in);
+        }
+    };
+
+    public static final RecordCodec<Long> LONG = new RecordCodec<>() {
+        @Override
+        public void encode(Long value, ByteBuffer out) {
+            writeVarLong(out, value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer in) {
+            return readVarLong(in);
+        }
+
+        @Override
+        public void encode(Long value, DataOutput out) throws IOException {
+            writeVarLong(out, value);
+        }
+
+        @Override
+        public Long decode(DataInput in) throws IOException {
+            return readVarLong(in);
+        }
+    };
+
+    public static final RecordCodec<Float> FLOAT = new RecordCodec<>() {
+        @Override
+        public void encode(Float value, ByteBuffer out) {
+            writeFloat(out, value);
+        }
+
+        @Override
+        public Float decode(ByteBuffer in) {
+            return readFloat(in);
+        }
+
+        @Override
+        public void encode(Float value, DataOutput out) throws IOException {
+            writeFloat(out, value);
+        }
+
+        @Override
+        public Float decode(DataInput in) throws IOException {
+            return readFloat(in);
+        }
+    };
+
+    public static final RecordCodec<Double> DOUBLE = new RecordCodec<>() {
+        @Override
+        public void encode(Double value, ByteBuffer out) {
+            writeDouble(out, value);
+        }
+
+        @Override
+        public Double decode(ByteBuffer in) {
+            return readDouble(in);
+        }
+
+        @Override
+        public void encode(Double value, DataOutput out) throws IOException {
+            writeDouble(out, value);
+        }
+
+        @Override
+        public Double decode(DataInput in) throws IOException {
+            return readDouble(in);
+        }
+    };
+
+    /**
+     * Strings are nullable without a presence byte
+     */
+    public static final RecordCodec<String> STRING = new RecordCodec<>() {
+        @Override
+        public void encode(String value, ByteBuffer out) {
+            writeString(out, value);
+        }
+
+        @Override
+        public String decode(ByteBuffer in) {
+            return readString(in);
+        }
+
+        @Override
+        public void encode(String value, DataOutput out) throws IOException {
+            writeString(out, value);
+        }
+
+        @Override
+        public String decode(DataInput in) throws IOException {
+            return readString(in);
+        }
+    };
+
+    /**
+     * Return a codec that writes a presence byte before values of the given codec so that nulls are supported
+     *
+     * @param codec codec for non-null values
+     * @return nullable codec
+     */
+    public static <T> RecordCodec<T> nullable(RecordCodec<T> codec) {
+        return new RecordCodec<>() {
+            @Override
+            public void encode(T value, ByteBuffer out) {
+                writeBoolean(out, value != null);
+                if (value != null) {
+                    codec.encode(value, out);
+                }
+            }
+
+            @Override
+            public T decode(ByteBuffer in) {
+                return readBoolean(in) ? codec.decode(in) : null;
+            }
+
+            @Override
+            public void encode(T value, DataOutput out) throws IOException {
+                writeBoolean(out, value != null);
+                if (value != null) {
+                    codec.encode(value, out);
+                }
+            }
+
+            @Override
+            public T decode(DataInput in) throws IOException {
+                return readBoolean(in) ? codec.decode(in) : null;
+            }
+        };
+    }
+
+    /**
+     * Return a codec that delegates to the codec returned by the supplier. The supplier is called
+     * once, on first use. Generated codecs use this for references to other records so that
+     * records that refer to each other can be initialized.
+     *
+     * @param supplier supplies the codec
+     * @return lazy codec
+     */
+    public static <T> RecordCodec<T> lazy(Supplier<? extends RecordCodec<T>> supplier) {
+        return new RecordCodec<>() {
+            private volatile RecordCodec<T> codec;
+
+            @Override
+            public void encode(T value, ByteBuffer out) {
+                codec().encode(value, out);
+            }
+
+            @Override
+            public T decode(ByteBuffer in) {
+                return codec().decode(in);
+            }
+
+            @Override
+            public void encode(T value, DataOutput out) throws IOException {
+                codec().encode(value, out);
+            }
+
+            @Override
+            public T decode(DataInput in) throws IOException {
+                return codec().decode(in);
+            }
+
+            private RecordCodec<T> codec() {
+                RecordCodec<T> localCodec = codec;
+                if (localCodec == null) {
+                    localCodec = supplier.get();
+                    codec = localCodec;
+                }
+                return localCodec;
+            }
+        };
+    }
+
+    /**
+     * Return a codec for lists. Decoded lists are {@code ArrayList}s. Elements are nullable
+     * only if the element codec supports nulls. {@code RandomAccess} lists are encoded with an
+     * indexed loop, other lists allocate an iterator.
+     *
+     * @param elementCodec codec for the elements
+     * @return list codec
+     */
+    public static <E> RecordCodec<List<E>> list(RecordCodec<E> elementCodec) {
+        return new RecordCodec<>() {
+            @Override
+            public void encode(List<E> value, ByteBuffer out) {
+                int size = value.size();
+                writeUnsignedVarInt(out, size);
+                if (value instanceof RandomAccess) {
+                    for (int i = 0; i < size; ++i) {
+                        elementCodec.encode(value.get(i), out);
+                    }
+                } else {
+                    for (E element : value) {
+                        elementCodec.encode(element, out);
+                    }
+                }
+            }
+
+            @Override
+            public List<E> decode(ByteBuffer in) {
+                int size = readSize(in);
+                List<E> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; ++i) {
+                    list.add(elementCodec.decode(in));
+                }
+                return list;
+            }
+
+            @Override
+            public void encode(List<E> value, DataOutput out) throws IOException {
+                int size = value.size();
+                writeUnsignedVarInt(out, size);
+                if (value instanceof RandomAccess) {
+                    for (int i = 0; i < size; ++i) {
+                        elementCodec.encode(value.get(i), out);
+                    }
+                } else {
+                    for (E element : value) {
+                        elementCodec.encode(element, out);
+                    }
+                }
+            }
+
+            @Override
+            public List<E> decode(DataInput in) throws IOException {
+                int size = readSize(in);
+                List<E> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; ++i) {
+                    list.add(elementCodec.decode(in));
+                }
+                return list;
+            }
+        };
+    }
+
+    /**
+     * Return a codec for maps. Decoded maps are {@code LinkedHashMap}s. Encoding allocates the
+     * {@code entrySet()} iterator.
+     *
+     * @param keyCodec codec for the keys
+     * @param valueCodec codec for the values
+     * @return map codec
+     */
+    public static <K, V> RecordCodec<Map<K, V>> map(RecordCodec<K> keyCodec, RecordCodec<V> valueCodec) {
+        return new RecordCodec<>() {
+            @Override
+            public void encode(Map<K, V> value, ByteBuffer out) {
+                writeUnsignedVarInt(out, value.size());
+                for (Map.Entry<K, V> entry : value.entrySet()) {
+                    keyCodec.encode(entry.getKey(), out);
+                    valueCodec.encode(entry.getValue(), out);
+                }
+            }
+
+            @Override
+            public Map<K, V> decode(ByteBuffer in) {
+                int size = readSize(in);
+                Map<K, V> map = new LinkedHashMap<>(capacity(Math.min(size, 1024)));
+                for (int i = 0; i < size; ++i) {
+                    K key = keyCodec.decode(in);
+                    map.put(key, valueCodec.decode(in));
+                }
+                return map;
+            }
+
+            @Override
+            public void encode(Map<K, V> value, DataOutput out) throws IOException {
+                writeUnsignedVarInt(out, value.size());
+                for (Map.Entry<K, V> entry : value.entrySet()) {
+                    keyCodec.encode(entry.getKey(), out);
+                    valueCodec.encode(entry.getValue(), out);
+                }
+            }
+
+            @Override
+            public Map<K, V> decode(DataInput in) throws IOException {
+                int size = readSize(in);
+                Map<K, V> map = new LinkedHashMap<>(capacity(Math.min(size, 1024)));
+                for (int i = 0; i < size; ++i) {
+                    K key = keyCodec.decode(in);
+                    map.put(key, valueCodec.decode(in));
+                }
+                return map;
+            }
+        };
+    }
+
+    public static void writeBoolean(ByteBuffer out, boolean value) {
+        out.put(value ? (byte)1 : (byte)0);
+    }
+
+    public static void writeBoolean(DataOutput out, boolean value) throws IOException {
+        out.writeByte(value ? 1 : 0);
+    }
+
+    public static boolean readBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+    public static boolean readBoolean(DataInput in) throws IOException {
+        return in.readByte() != 0;
+    }
+
+    public static void writeByte(ByteBuffer out, byte value) {
+        out.put(value);
+    }
+
+    public static void writeByte(DataOutput out, byte value) throws IOException {
+        out.writeByte(value);
+    }
+
+    public static byte readByte(ByteBuffer in) {
+        return in.get();
+    }
+
+    public static byte readByte(DataInput in) throws IOException {
+        return in.readByte();
+    }
+
+    public static void writeFloat(ByteBuffer out, float value) {
+        out.putFloat(value);
+    }
+
+    public static void writeFloat(DataOutput out, float value) throws IOException {
+        out.writeFloat(value);
+    }
+
+    public static float readFloat(ByteBuffer in) {
+        return in.getFloat();
+    }
+
+    public static float readFloat(DataInput in) throws IOException {
+        return in.readFloat();
+    }
+
+    public static void writeDouble(ByteBuffer out, double value) {
+        out.putDouble(value);
+    }
+
+    public static void writeDouble(DataOutput out, double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    public static double readDouble(ByteBuffer in) {
+        return in.getDouble();
+    }
+
+    public static double readDouble(DataInput in) throws IOException {
+        return in.readDouble();
+    }
+
+    public static void writeVarInt(ByteBuffer out, int value) {
+        writeUnsignedVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeUnsignedVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readVarInt(ByteBuffer in) {
+        int raw = readUnsignedVarInt(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int raw = readUnsignedVarInt(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public static void writeVarLong(ByteBuffer out, long value) {
+        long raw = (value << 1) ^ (value >> 63);
+        while ((raw & ~0x7FL) != 0) {
+            out.put((byte)((raw & 0x7F) | 0x80));
+            raw >>>= 7;
+        }
+        out.put((byte)raw);
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        long raw = (value << 1) ^ (value >> 63);
+        while ((raw & ~0x7FL) != 0) {
+            out.writeByte((int)((raw & 0x7F) | 0x80));
+            raw >>>= 7;
+        }
+        out.writeByte((int)raw);
+    }
+
+    public static long readVarLong(ByteBuffer in) {
+        long raw = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            raw |= (long)(b & 0x7F) << shift;
+            if (b >= 0) {
+                return (raw >>> 1) ^ -(raw & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long raw = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            raw |= (long)(b & 0x7F) << shift;
+            if (b >= 0) {
+                return (raw >>> 1) ^ -(raw & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            writeUnsignedVarInt(out, 0);
+            return;
+        }
+        writeUnsignedVarInt(out, utf8Length(value) + 1);
+        int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte)c);
+            } else if (c < 0x800) {
+                out.put((byte)(0xC0 | (c >> 6)));
+                out.put((byte)(0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                int codePoint = codePointAt(value, i);
+                if (codePoint < 0) {
+                    out.put((byte)'?');
+                } else {
+                    out.put((byte)(0xF0 | (codePoint >> 18)));
+                    out.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+                    out.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+                    out.put((byte)(0x80 | (codePoint & 0x3F)));
+                    ++i;
+                }
+            } else {
+                out.put((byte)(0xE0 | (c >> 12)));
+                out.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte)(0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeUnsignedVarInt(out, 0);
+            return;
+        }
+        writeUnsignedVarInt(out, utf8Length(value) + 1);
+        int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.writeByte(c);
+            } else if (c < 0x800) {
+                out.writeByte(0xC0 | (c >> 6));
+                out.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                int codePoint = codePointAt(value, i);
+                if (codePoint < 0) {
+                    out.writeByte('?');
+                } else {
+                    out.writeByte(0xF0 | (codePoint >> 18));
+                    out.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                    out.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                    out.writeByte(0x80 | (codePoint & 0x3F));
+                    ++i;
+                }
+            } else {
+                out.writeByte(0xE0 | (c >> 12));
+                out.writeByte(0x80 | ((c >> 6) & 0x3F));
+                out.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = readUnsignedVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds the remaining " + in.remaining() + " bytes");
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = readUnsignedVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        // the length is untrusted and the remaining input is unknown so the array grows as the bytes arrive
+        byte[] bytes = new byte[Math.min(length, 8192)];
+        int count = 0;
+        while (true) {
+            in.readFully(bytes, count, bytes.length - count);
+            count = bytes.length;
+            if (count == length) {
+                break;
+            }
+            bytes = Arrays.copyOf(bytes, (int)Math.min(length, 2L * count));
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeUnsignedVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte)value);
+    }
+
+    public static void writeUnsignedVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readUnsignedVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public static int readUnsignedVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readSize(ByteBuffer in) {
+        int size = readUnsignedVarInt(in);
+        if (size < 0) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        return size;
+    }
+
+    private static int readSize(DataInput in) throws IOException {
+        int size = readUnsignedVarInt(in);
+        if (size < 0) {
+            throw new IOException("Illegal size: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Return a hash map capacity that holds the given number of entries without rehashing. Decoded sizes
+     * are untrusted so callers bound the size first and let the map grow as needed.
+     */
+    private static int capacity(int size) {
+        return (int)Math.ceil(size / 0.75);
+    }
+
+    private static int utf8Length(String value) {
+        int utf8Length = 0;
+        int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                utf8Length += 1;
+            } else if (c < 0x800) {
+                utf8Length += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (codePointAt(value, i) < 0) {
+                    utf8Length += 1;
+                } else {
+                    utf8Length += 4;
+                    ++i;
+                }
+            } else {
+                utf8Length += 3;
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Return the supplementary code point at the given index or -1 if the char is an unpaired surrogate
+     */
+    private static int codePointAt(String value, int index) {
+        char high = value.charAt(index);
+        if (Character.isHighSurrogate(high) && ((index + 1) < value.length())) {
+            char low = value.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return -1;
+    }
+
+    private Codecs() {
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+/**
+ * Visitor for the generated {@code forEachComponent(record, visitor)} method. Each record component
+ * is passed to the callback that matches its type so that primitives are not boxed. All
+ * primitive callbacks default to {@link #visitObject(String, Object)} (which boxes) so a lambda
+ * can be used when allocation isn't a concern.
+ */
+@FunctionalInterface
+public interface ComponentVisitor {
+    default void visitBoolean(String name, boolean value) {
+        visitObject(name, value);
+    }
+
+    default void visitByte(String name, byte value) {
+        visitObject(name, value);
+    }
+
+    default void visitShort(String name, short value) {
+        visitObject(name, value);
+    }
+
+    default void visitChar(String name, char value) {
+        visitObject(name, value);
+    }
+
+    default void visitInt(String name, int value) {
+        visitObject(name, value);
+    }
+
+    default void visitLong(String name, long value) {
+        visitObject(name, value);
+    }
+
+    default void visitFloat(String name, float value) {
+        visitObject(name, value);
+    }
+
+    default void visitDouble(String name, double value) {
+        visitObject(name, value);
+    }
+
+    /**
+     * Called for all non-primitive components
+     *
+     * @param name component name
+     * @param value component value
+     */
+    void visitObject(String name, Object value);
+}
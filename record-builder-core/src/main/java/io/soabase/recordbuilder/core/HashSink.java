@@ -0,0 +1,76 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+/**
+ * Receives the values of a record in a fixed order for hashing. Implementations are
+ * usually not thread safe. Generated {@code hashInto()} methods (see {@code @RecordBuilder(stableHash = true)})
+ * write each component in declaration order. Every value is reduced to a single {@code long} via
+ * {@link #putLong(long)} except Strings.
+ */
+public interface HashSink {
+    /**
+     * Add a 64-bit value
+     *
+     * @param value value
+     */
+    void putLong(long value);
+
+    /**
+     * Add the length and the UTF-16 chars of the given string (read in place, not copied) or a marker for {@code null}
+     *
+     * @param value value or null
+     */
+    void putString(CharSequence value);
+
+    default void putBoolean(boolean value) {
+        putLong(value ? 1 : 0);
+    }
+
+    default void putByte(byte value) {
+        putLong(value);
+    }
+
+    default void putShort(short value) {
+        putLong(value);
+    }
+
+    default void putChar(char value) {
+        putLong(value);
+    }
+
+    default void putInt(int value) {
+        putLong(value);
+    }
+
+    /**
+     * Add a float as its {@link Float#floatToIntBits(float)} so that the hash is consistent with {@code equals()}
+     *
+     * @param value value
+     */
+    default void putFloat(float value) {
+        putLong(Float.floatToIntBits(value));
+    }
+
+    /**
+     * Add a double as its {@link Double#doubleToLongBits(double)} so that the hash is consistent with {@code equals()}
+     *
+     * @param value value
+     */
+    default void putDouble(double value) {
+        putLong(Double.doubleToLongBits(value));
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+/**
+ * Runtime support for generated {@link RecordJson}s. The write methods don't allocate for
+ * integral values, booleans and Strings. Non-finite floating point values are written as the
+ * strings {@code "NaN"}, {@code "Infinity"} and {@code "-Infinity"} which {@link JsonReader#nextDouble()} accepts.
+ */
+public final class Json {
+    public static final RecordJson<Boolean> BOOLEAN = new RecordJson<>() {
+        @Override
+        public void write(Boolean value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeBoolean(out, value);
+            }
+        }
+
+        @Override
+        public Boolean read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextBoolean();
+        }
+    };
+
+    public static final RecordJson<Byte> BYTE = new RecordJson<>() {
+        @Override
+        public void write(Byte value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeLong(out, value);
+            }
+        }
+
+        @Override
+        public Byte read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextByte();
+        }
+    };
+
+    public static final RecordJson<Short> SHORT = new RecordJson<>() {
+        @Override
+        public void write(Short value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeLong(out, value);
+            }
+        }
+
+        @Override
+        public Short read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextShort();
+        }
+    };
+
+    public static final RecordJson<Character> CHARACTER = new RecordJson<>() {
+        @Override
+        public void write(Character value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeChar(out, value);
+            }
+        }
+
+        @Override
+        public Character read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextChar();
+        }
+    };
+
+    public static final RecordJson<Integer> INTEGER = new RecordJson<>() {
+        @Override
+        public void write(Integer value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeLong(out, value);
+            }
+        }
+
+        @Override
+        public Integer read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextInt();
+        }
+    };
+
+    public static final RecordJson<Long> LONG = new RecordJson<>() {
+        @Override
+        public void write(Long value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeLong(out, value);
+            }
+        }
+
+        @Override
+        public Long read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextLong();
+        }
+    };
+
+    public static final RecordJson<Float> FLOAT = new RecordJson<>() {
+        @Override
+        public void write(Float value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeFloat(out, value);
+            }
+        }
+
+        @Override
+        public Float read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextFloat();
+        }
+    };
+
+    public static final RecordJson<Double> DOUBLE = new RecordJson<>() {
+        @Override
+        public void write(Double value, Appendable out) throws IOException {
+            if (value == null) {
+                out.append("null");
+            } else {
+                writeDouble(out, value);
+            }
+        }
+
+        @Override
+        public Double read(JsonReader in) throws IOException {
+            return in.nextNull() ? null : in.nextDouble();
+        }
+    };
+
+    public static final RecordJson<String> STRING = new RecordJson<>() {
+        @Override
+        public void write(String value, Appendable out) throws IOException {
+            writeString(out, value);
+        }
+
+        @Override
+        public String read(JsonReader in) throws IOException {
+            return in.nextString();
+        }
+    };
+
+    /**
+     * Return a JSON array reader/writer. Decoded lists are {@code ArrayList}s.
+     *
+     * @param elementJson reader/writer for the elements
+     * @return list reader/writer
+     */
+    public static <E> RecordJson<List<E>> list(RecordJson<E> elementJson) {
+        return new RecordJson<>() {
+            @Override
+            public void write(List<E> value, Appendable out) throws IOException {
+                if (value == null) {
+                    out.append("null");
+                    return;
+                }
+                out.append('[');
+                if (value instanceof RandomAccess) {
+                    for (int i = 0; i < value.size(); ++i) {
+                        if (i > 0) {
+                            out.append(',');
+                        }
+                        elementJson.write(value.get(i), out);
+                    }
+                } else {
+                    boolean first = true;
+                    for (E element : value) {
+                        if (!first) {
+                            out.append(',');
+                        }
+                        first = false;
+                        elementJson.write(element, out);
+                    }
+                }
+                out.append(']');
+            }
+
+            @Override
+            public List<E> read(JsonReader in) throws IOException {
+                if (in.nextNull()) {
+                    return null;
+                }
+                List<E> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(elementJson.read(in));
+                }
+                in.endArray();
+                return list;
+            }
+        };
+    }
+
+    /**
+     * Return a JSON object reader/writer for maps with String keys. Decoded maps are {@code LinkedHashMap}s.
+     *
+     * @param valueJson reader/writer for the values
+     * @return map reader/writer
+     */
+    public static <V> RecordJson<Map<String, V>> map(RecordJson<V> valueJson) {
+        return new RecordJson<>() {
+            @Override
+            public void write(Map<String, V> value, Appendable out) throws IOException {
+                if (value == null) {
+                    out.append("null");
+                    return;
+                }
+                out.append('{');
+                boolean first = true;
+                for (Map.Entry<String, V> entry : value.entrySet()) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    first = false;
+                    writeString(out, entry.getKey());
+                    out.append(':');
+                    valueJson.write(entry.getValue(), out);
+                }
+                out.append('}');
+            }
+
+            @Override
+            public Map<String, V> read(JsonReader in) throws IOException {
+                if (in.nextNull()) {
+                    return null;
+                }
+                Map<String, V> map = new LinkedHashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String key = in.nextName();
+                    map.put(key, valueJson.read(in));
+                }
+                in.endObject();
+                return map;
+            }
+        };
+    }
+
+    /**
+     * Return a reader/writer that delegates to the one returned by the supplier. The supplier is called
+     * once, on first use. Generated readers/writers use this for references to other records so that
+     * records that refer to each other can be initialized.
+     *
+     * @param supplier supplies the reader/writer
+     * @return lazy reader/writer
+     */
+    public static <T> RecordJson<T> lazy(Supplier<? extends RecordJson<T>> supplier) {
+        return new RecordJson<>() {
+            private volatile RecordJson<T> json;
+
+            @Override
+            public void write(T value, Appendable out) throws IOException {
+                json().write(value, out);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                return json().read(in);
+            }
+
+            private RecordJson<T> json() {
+                RecordJson<T> localJson = json;
+                if (localJson == null) {
+                    localJson = supplier.get();
+                    json = localJson;
+                }
+                return localJson;
+            }
+        };
+    }
+
+    public static void writeBoolean(Appendable out, boolean value) throws IOException {
+        out.append(value ? "true" : "false");
+    }
+
+    public static void writeInt(Appendable out, int value) throws IOException {
+        writeLong(out, value);
+    }
+
+    public static void writeLong(Appendable out, long value) throws IOException {
+        // work with the negative value so that Long.MIN_VALUE is handled
+        long negative = value;
+        if (value < 0) {
+            out.append('-');
+        } else {
+            negative = -value;
+        }
+        long power = 1;
+        while ((negative / power) <= -10) {
+            power *= 10;
+        }
+        while (power > 0) {
+            out.append((char)('0' - (negative / power)));
+            negative %= power;
+            power /= 10;
+        }
+    }
+
+    public static void writeFloat(Appendable out, float value) throws IOException {
+        if (Float.isFinite(value)) {
+            out.append(Float.toString(value));
+        } else {
+            writeNonFinite(out, value);
+        }
+    }
+
+    public static void writeDouble(Appendable out, double value) throws IOException {
+        if (Double.isFinite(value)) {
+            out.append(Double.toString(value));
+        } else {
+            writeNonFinite(out, value);
+        }
+    }
+
+    public static void writeChar(Appendable out, char value) throws IOException {
+        out.append('"');
+        writeEscaped(out, value);
+        out.append('"');
+    }
+
+    /**
+     * Write a quoted and escaped string or {@code null}
+     *
+     * @param out destination
+     * @param value string or null
+     * @throws IOException errors
+     */
+    public static void writeString(Appendable out, String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (needsEscape(c)) {
+                out.append(value, start, i);
+                writeEscaped(out, c);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, length);
+        out.append('"');
+    }
+
+    private static boolean needsEscape(char c) {
+        // U+2028/U+2029 are valid in JSON but not in JavaScript string literals
+        return (c < 0x20) || (c == '"') || (c == '\\') || (c == '\u2028') || (c == '\u2029');
+    }
+
+    private static void writeEscaped(Appendable out, char c) throws IOException {
+        switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+
+            case '\\':
+                out.append("\\\\");
+                break;
+
+            case '\n':
+                out.append("\\n");
+                break;
+
+            case '\r':
+                out.append("\\r");
+                break;
+
+            case '\t':
+                out.append("\\t");
+                break;
+
+            case '\b':
+                out.append("\\b");
+                break;
+
+            case '\f':
+                out.append("\\f");
+                break;
+
+            default:
+                if (needsEscape(c)) {
+                    out.append("\\u");
+                    for (int shift = 12; shift >= 0; shift -= 4) {
+                        out.append(Character.forDigit((c >> shift) & 0xF, 16));
+                    }
+                } else {
+                    out.append(c);
+                }
+                break;
+        }
+    }
+
+    private static void writeNonFinite(Appendable out, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            out.append("\"NaN\"");
+        } else {
+            out.append((value > 0) ? "\"Infinity\"" : "\"-Infinity\"");
+        }
+    }
+
+    private Json() {
+    }
+}
@@ -0,0 +1,457 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Minimal pull-style JSON reader used by generated {@link RecordJson}s. Values are read in document order
+ * without building a tree and numbers are parsed without boxing. Not thread safe.
+ */
+public final class JsonReader implements Closeable {
+    private final Reader reader;
+    private final char[] buffer = new char[1024];
+    private final StringBuilder scratch = new StringBuilder();
+    private boolean[] needsComma = new boolean[16];
+    private int depth;
+    private int position;
+    private int limit;
+    private long offset;
+    private boolean valuePending;
+
+    public JsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Consume the start of an object
+     *
+     * @throws IOException errors or if the next value isn't an object
+     */
+    public void beginObject() throws IOException {
+        beforeValue();
+        expect('{');
+        push();
+    }
+
+    /**
+     * Consume the end of the current object
+     *
+     * @throws IOException errors or if the object has more members
+     */
+    public void endObject() throws IOException {
+        expect('}');
+        --depth;
+    }
+
+    /**
+     * Consume the start of an array
+     *
+     * @throws IOException errors or if the next value isn't an array
+     */
+    public void beginArray() throws IOException {
+        beforeValue();
+        expect('[');
+        push();
+    }
+
+    /**
+     * Consume the end of the current array
+     *
+     * @throws IOException errors or if the array has more elements
+     */
+    public void endArray() throws IOException {
+        expect(']');
+        --depth;
+    }
+
+    /**
+     * Return true if the current object or array has more members/elements
+     *
+     * @return true/false
+     * @throws IOException errors
+     */
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        return (c != '}') && (c != ']') && (c != -1);
+    }
+
+    /**
+     * Read the name of the next object member
+     *
+     * @return name
+     * @throws IOException errors or malformed JSON
+     */
+    public String nextName() throws IOException {
+        beforeValue();
+        String name = readQuoted();
+        expect(':');
+        valuePending = true;
+        return name;
+    }
+
+    /**
+     * If the next value is {@code null} consume it and return true. Otherwise nothing is consumed.
+     *
+     * @return true if the value was null
+     * @throws IOException errors
+     */
+    public boolean nextNull() throws IOException {
+        beforeValue();
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return true;
+        }
+        valuePending = true;
+        return false;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        beforeValue();
+        if (peek() == 't') {
+            expectLiteral("true");
+            return true;
+        }
+        expectLiteral("false");
+        return false;
+    }
+
+    public byte nextByte() throws IOException {
+        long value = nextLong();
+        if ((value < Byte.MIN_VALUE) || (value > Byte.MAX_VALUE)) {
+            throw error("byte out of range: " + value);
+        }
+        return (byte)value;
+    }
+
+    public short nextShort() throws IOException {
+        long value = nextLong();
+        if ((value < Short.MIN_VALUE) || (value > Short.MAX_VALUE)) {
+            throw error("short out of range: " + value);
+        }
+        return (short)value;
+    }
+
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE)) {
+            throw error("int out of range: " + value);
+        }
+        return (int)value;
+    }
+
+    public long nextLong() throws IOException {
+        beforeValue();
+        boolean negative = peek() == '-';
+        if (negative) {
+            read();
+        }
+        // accumulate negatively so that Long.MIN_VALUE can be parsed
+        long value = 0;
+        int digits = 0;
+        while (isDigit(peekRaw())) {
+            int digit = read() - '0';
+            if (value < ((Long.MIN_VALUE + digit) / 10)) {
+                throw error("long out of range");
+            }
+            value = (value * 10) - digit;
+            ++digits;
+        }
+        if (digits == 0) {
+            throw error("Expected a number");
+        }
+        int c = peekRaw();
+        if ((c == '.') || (c == 'e') || (c == 'E')) {
+            throw error("Expected an integral number");
+        }
+        if (negative) {
+            return value;
+        }
+        if (value == Long.MIN_VALUE) {
+            throw error("long out of range");
+        }
+        return -value;
+    }
+
+    /**
+     * Read a number. The strings {@code "NaN"}, {@code "Infinity"} and {@code "-Infinity"} are also accepted.
+     *
+     * @return value
+     * @throws IOException errors or malformed JSON
+     */
+    public double nextDouble() throws IOException {
+        beforeValue();
+        scratch.setLength(0);
+        if (peek() == '"') {
+            String value = readQuoted();
+            switch (value) {
+                case "NaN":
+                    return Double.NaN;
+
+                case "Infinity":
+                    return Double.POSITIVE_INFINITY;
+
+                case "-Infinity":
+                    return Double.NEGATIVE_INFINITY;
+
+                default:
+                    throw error("Expected a number: " + value);
+            }
+        }
+        while (isNumberChar(peekRaw())) {
+            scratch.append((char)read());
+        }
+        try {
+            return Double.parseDouble(scratch.toString());
+        } catch (NumberFormatException e) {
+            throw error("Expected a number: " + scratch);
+        }
+    }
+
+    public float nextFloat() throws IOException {
+        return (float)nextDouble();
+    }
+
+    public char nextChar() throws IOException {
+        beforeValue();
+        String value = readQuoted();
+        if (value.length() != 1) {
+            throw error("Expected a single character: " + value);
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Read a string value
+     *
+     * @return value or {@code null}
+     * @throws IOException errors or malformed JSON
+     */
+    public String nextString() throws IOException {
+        beforeValue();
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        return readQuoted();
+    }
+
+    /**
+     * Skip the next value including nested objects/arrays
+     *
+     * @throws IOException errors or malformed JSON
+     */
+    public void skipValue() throws IOException {
+        beforeValue();
+        int c = peek();
+        valuePending = true;
+        switch (c) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+
+            case '[':
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+
+            case '"':
+            case 'n':
+                nextString();
+                break;
+
+            case 't':
+            case 'f':
+                nextBoolean();
+                break;
+
+            default:
+                nextDouble();
+                break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void beforeValue() throws IOException {
+        if (valuePending) {
+            valuePending = false;
+            return;
+        }
+        if (depth > 0) {
+            if (needsComma[depth - 1]) {
+                expect(',');
+            } else {
+                needsComma[depth - 1] = true;
+            }
+        }
+    }
+
+    private void push() {
+        if (depth == needsComma.length) {
+            needsComma = Arrays.copyOf(needsComma, depth * 2);
+        }
+        needsComma[depth++] = false;
+    }
+
+    private String readQuoted() throws IOException {
+        expect('"');
+        scratch.setLength(0);
+        while (true) {
+            int c = read();
+            switch (c) {
+                case -1:
+                    throw error("Unterminated string");
+
+                case '"':
+                    return scratch.toString();
+
+                case '\\':
+                    readEscape();
+                    break;
+
+                default:
+                    scratch.append((char)c);
+                    break;
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                scratch.append((char)c);
+                break;
+
+            case 'b':
+                scratch.append('\b');
+                break;
+
+            case 'f':
+                scratch.append('\f');
+                break;
+
+            case 'n':
+                scratch.append('\n');
+                break;
+
+            case 'r':
+                scratch.append('\r');
+                break;
+
+            case 't':
+                scratch.append('\t');
+                break;
+
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; ++i) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Malformed unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                scratch.append((char)value);
+                break;
+
+            default:
+                throw error("Illegal escape: " + (char)c);
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); ++i) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        read();
+    }
+
+    /**
+     * Return the next non-whitespace char without consuming it or -1 at the end of the input
+     */
+    private int peek() throws IOException {
+        while (true) {
+            int c = peekRaw();
+            if ((c != ' ') && (c != '\t') && (c != '\n') && (c != '\r')) {
+                return c;
+            }
+            read();
+        }
+    }
+
+    private int peekRaw() throws IOException {
+        if ((position == limit) && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if ((position == limit) && !fill()) {
+            return -1;
+        }
+        ++offset;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + offset);
+    }
+
+    private static boolean isDigit(int c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+    private static boolean isNumberChar(int c) {
+        return isDigit(c) || (c == '-') || (c == '+') || (c == '.') || (c == 'e') || (c == 'E');
+    }
+}
@@ -23,6 +23,162 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.SOURCE)
 @Target(ElementType.TYPE)
 public @interface RecordBuilder {
+    /**
+     * If true, the builder gets a {@code reset()} method that restores default Java values and a static
+     * {@code local()} method that returns a reusable per-thread builder. When assertions are enabled, calling
+     * {@code local()} again on the same thread before calling {@code build()} or {@code reset()} on the previous one fails.
+     * {@code build()} sets the non-primitive components of the builder returned by {@code local()} to {@code null}.
+     *
+     * @return true/false
+     */
+    boolean reusable() default false;
+
+    /**
+     * If true, a {@code MyRecordColumns} class is generated that stores many instances of the record
+     * as one array per record component (see {@link RecordBuilderMetaData#columnsSuffix()})
+     *
+     * @return true/false
+     */
+    boolean columns() default false;
+
+    /**
+     * If true, a {@code MyRecordFlyweight} class is generated that reads and writes the record's components
+     * directly in a {@code ByteBuffer} using a fixed layout (see {@link RecordBuilderMetaData#flyweightSuffix()}).
+     * All components must be primitives or Strings annotated with {@link FixedLength}.
+     *
+     * @return true/false
+     */
+    boolean flyweight() default false;
+
+    /**
+     * If true, a {@code MyRecordCodec} class is generated that implements {@link RecordCodec}
+     * (see {@link RecordBuilderMetaData#codecSuffix()}). Components can be primitives, boxed primitives,
+     * Strings, {@code List}s, {@code Map}s, type variables and other records that have a generated codec.
+     *
+     * @return true/false
+     */
+    boolean codec() default false;
+
+    /**
+     * If true, a {@code MyRecordJson} class is generated that implements {@link RecordJson}
+     * (see {@link RecordBuilderMetaData#jsonSuffix()}). Components can be primitives, boxed primitives,
+     * Strings, {@code List}s, {@code Map}s with String keys, type variables and other records that have a generated
+     * {@code MyRecordJson}.
+     *
+     * @return true/false
+     */
+    boolean json() default false;
+
+    /**
+     * If true, a {@code MyRecordInterner} class is generated with a static {@code intern(...)} that returns a
+     * canonical instance for equal component values (see {@link RecordBuilderMetaData#internerSuffix()}).
+     * Interned records are weakly referenced. Not supported for generic records.
+     *
+     * @return true/false
+     */
+    boolean interner() default false;
+
+    /**
+     * If greater than zero, a static {@code MyRecordBuilder.of(...)} is generated that returns precomputed
+     * instances when every component is within {@code [-internCache, internCache]} (similar to {@code Integer.valueOf()}).
+     * Other values are interned if {@link #interner()} is true or allocated otherwise. All components
+     * must be {@code byte}, {@code short}, {@code int} or {@code long} and the cache can have at most 65536 entries.
+     *
+     * @return range of cached values
+     */
+    int internCache() default 0;
+
+    /**
+     * If true, a {@code MyRecordKeyMap<V>} class is generated (see {@link RecordBuilderMetaData#keyMapSuffix()}): a map
+     * keyed by the record's component values, e.g. {@code get(x, y)}, that stores the components inline so that lookups
+     * don't create a record. Not supported for generic records.
+     *
+     * @return true/false
+     */
+    boolean keyMap() default false;
+
+    /**
+     * If true, a {@code MyRecordSet} class is generated (see {@link RecordBuilderMetaData#setSuffix()}): a set of
+     * records that stores the components of its members inline, e.g. {@code add(x, y)}/{@code contains(x, y)}, and
+     * grows with incremental rehashing. Not supported for generic records.
+     *
+     * @return true/false
+     */
+    boolean set() default false;
+
+    /**
+     * If true, static {@code MyRecordBuilder.hashInto(record, sink)}, {@code longHash(record)} and
+     * {@code partition(record, n)} methods are generated. {@code longHash()} uses {@link StableHash} which is
+     * stable across JVMs and releases and {@code partition()} uses jump consistent hashing. Components can be
+     * primitives, boxed primitives, Strings, enums (hashed by name) and records with {@code stableHash = true}.
+     *
+     * @return true/false
+     */
+    boolean stableHash() default false;
+
+    /**
+     * If not empty, static {@code MyRecordBuilder.comparator()}, {@code comparatorDescending()} and
+     * {@code comparatorNullsFirst()} methods are generated that compare records by the named components in the
+     * given order. Primitives are compared without boxing (e.g. via {@code Integer.compare()}) and other components
+     * must be {@code Comparable}. Nulls sort last except for {@code comparatorNullsFirst()}. Not supported for
+     * generic records.
+     *
+     * @return component names in sort order
+     */
+    String[] sortOrder() default {};
+
+    /**
+     * If true, a static {@code MyRecordBuilder.forEachComponent(record, visitor)} is generated that passes each
+     * component to a {@link ComponentVisitor} without boxing primitives
+     * (see {@link RecordBuilderMetaData#forEachComponentMethodName()}).
+     *
+     * @return true/false
+     */
+    boolean forEachComponent() default false;
+
+    /**
+     * If true, a static {@code MyRecordBuilder.schema()} is generated that returns the record's {@link RecordSchema}:
+     * its component names, types, accessors and a canonical constructor factory. The schema is created when first used
+     * (see {@link RecordBuilderMetaData#schemaMethodName()}).
+     *
+     * @return true/false
+     */
+    boolean schema() default false;
+
+    /**
+     * If true, static {@code MyRecordBuilder.toMap(record)} and {@code MyRecordBuilder.fromMap(map)} methods are
+     * generated that convert between a record and a map of component names to values
+     * (see {@link RecordBuilderMetaData#toMapMethodName()} and {@link RecordBuilderMetaData#fromMapMethodName()}).
+     *
+     * @return true/false
+     */
+    boolean mapConversion() default false;
+
+    /**
+     * Overrides {@link RecordBuilderMetaData#unknownMapKeyPolicy()} for this record. At most one value can be
+     * given. If empty (the default) the processor wide setting is used.
+     *
+     * @return the policy or empty
+     */
+    RecordBuilderMetaData.UnknownMapKeyPolicy[] unknownMapKeyPolicy() default {};
+
+    /**
+     * Overrides {@link RecordBuilderMetaData#witherEquality()} for this record. At most one value can be
+     * given. If empty (the default) the processor wide setting is used.
+     *
+     * @return the policy or empty
+     */
+    RecordBuilderMetaData.WitherEquality[] witherEquality() default {};
+
+    /**
+     * The maximum number of characters of a String record component. Used by {@link #flyweight()}.
+     */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.SOURCE)
+    @interface FixedLength {
+        int value();
+    }
+
     @Target({ElementType.TYPE, ElementType.PACKAGE})
     @Retention(RetentionPolicy.SOURCE)
     @interface Include {
@@ -26,6 +26,43 @@ public interface RecordBuilderMetaData {
      */
     String JAVAC_OPTION_NAME = "metaDataClass";
 
+    /**
+     * How the generated {@code fromMap()} and {@code MyRecordJson.read()} handle keys/fields that aren't record components
+     */
+    enum UnknownMapKeyPolicy {
+        /**
+         * Unknown keys are ignored
+         */
+        IGNORE,
+
+        /**
+         * Unknown keys cause an {@code IllegalArgumentException} ({@code IOException} for JSON)
+         */
+        FAIL
+    }
+
+    /**
+     * How the generated withers decide that a value is unchanged. When a value is unchanged the wither
+     * returns the current record instead of allocating a new one. Primitives are always compared by value
+     * ({@code float}/{@code double} by their raw bits so that {@code -0.0} and NaNs are preserved exactly).
+     */
+    enum WitherEquality {
+        /**
+         * Withers always return a new record
+         */
+        NONE,
+
+        /**
+         * Non-primitive values are unchanged if they are the same reference
+         */
+        IDENTITY,
+
+        /**
+         * Non-primitive values are unchanged if they are {@code Objects.equals()}
+         */
+        EQUALS
+    }
+
     /**
      * The default meta data instance
      */
@@ -51,6 +88,121 @@ public interface RecordBuilderMetaData {
         return "Record";
     }
 
+    /**
+     * Used by {@link RecordBuilder#columns()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooColumns".
+     *
+     * @return suffix
+     */
+    default String columnsSuffix() {
+        return "Columns";
+    }
+
+    /**
+     * Used by {@link RecordBuilder#flyweight()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooFlyweight".
+     *
+     * @return suffix
+     */
+    default String flyweightSuffix() {
+        return "Flyweight";
+    }
+
+    /**
+     * Used by {@link RecordBuilder#codec()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooCodec".
+     *
+     * @return suffix
+     */
+    default String codecSuffix() {
+        return "Codec";
+    }
+
+    /**
+     * Used by {@link RecordBuilder#json()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooJson".
+     *
+     * @return suffix
+     */
+    default String jsonSuffix() {
+        return "Json";
+    }
+
+    /**
+     * Used by {@link RecordBuilder#interner()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooInterner".
+     *
+     * @return suffix
+     */
+    default String internerSuffix() {
+        return "Interner";
+    }
+
+    /**
+     * The name to use for the cached static constructor generated via {@link RecordBuilder#internCache()}
+     *
+     * @return name
+     */
+    default String ofMethodName() {
+        return "of";
+    }
+
+    /**
+     * Used by {@link RecordBuilder#keyMap()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooKeyMap".
+     *
+     * @return suffix
+     */
+    default String keyMapSuffix() {
+        return "KeyMap";
+    }
+
+    /**
+     * Used by {@link RecordBuilder#set()}. The generated class will have the same name as the record
+     * plus this suffix. E.g. if the record name is "Foo", the class will be named "FooSet".
+     *
+     * @return suffix
+     */
+    default String setSuffix() {
+        return "Set";
+    }
+
+    /**
+     * The name to use for the static method that returns the stable 64-bit hash generated via {@link RecordBuilder#stableHash()}
+     *
+     * @return method name
+     */
+    default String longHashMethodName() {
+        return "longHash";
+    }
+
+    /**
+     * The name to use for the static method that writes a record to a {@link HashSink} generated via {@link RecordBuilder#stableHash()}
+     *
+     * @return method name
+     */
+    default String hashIntoMethodName() {
+        return "hashInto";
+    }
+
+    /**
+     * The name to use for the static method that maps a record to a partition generated via {@link RecordBuilder#stableHash()}
+     *
+     * @return method name
+     */
+    default String partitionMethodName() {
+        return "partition";
+    }
+
+    /**
+     * The name to use for the static comparator methods generated via {@link RecordBuilder#sortOrder()}. The variants use this name plus "Descending" and "NullsFirst".
+     *
+     * @return method name
+     */
+    default String comparatorMethodName() {
+        return "comparator";
+    }
+
     /**
      * The name to use for the copy builder
      *
@@ -96,6 +248,69 @@ public interface RecordBuilderMetaData {
         return "stream";
     }
 
+    /**
+     * The name to use for the method that passes each record component to a {@link ComponentVisitor}
+     *
+     * @return method name
+     */
+    default String forEachComponentMethodName() {
+        return "forEachComponent";
+    }
+
+    /**
+     * The name to use for the method that returns the record's {@link RecordSchema}
+     *
+     * @return method name
+     */
+    default String schemaMethodName() {
+        return "schema";
+    }
+
+    /**
+     * The name to use for the method that converts a record into a map of component names to values
+     *
+     * @return method name
+     */
+    default String toMapMethodName() {
+        return "toMap";
+    }
+
+    /**
+     * The name to use for the method that creates a builder from a map of component names to values
+     *
+     * @return method name
+     */
+    default String fromMapMethodName() {
+        return "fromMap";
+    }
+
+    /**
+     * How the generated {@code fromMap()} and {@code MyRecordJson.read()} handle keys/fields that aren't record components
+     *
+     * @return policy
+     */
+    default UnknownMapKeyPolicy unknownMapKeyPolicy() {
+        return UnknownMapKeyPolicy.IGNORE;
+    }
+
+    /**
+     * The name to use for the method that resets a builder to default values (see {@link RecordBuilder#reusable()})
+     *
+     * @return method name
+     */
+    default String resetMethodName() {
+        return "reset";
+    }
+
+    /**
+     * The name to use for the method that returns the per-thread builder (see {@link RecordBuilder#reusable()})
+     *
+     * @return method name
+     */
+    default String localMethodName() {
+        return "local";
+    }
+
     /**
      * The name to use for the nested With class
      *
@@ -114,6 +329,16 @@ public interface RecordBuilderMetaData {
         return "with";
     }
 
+    /**
+     * How withers, including {@code with(Consumer)}, detect unchanged values so that they can return
+     * the current record
+     *
+     * @return policy
+     */
+    default WitherEquality witherEquality() {
+        return WitherEquality.NONE;
+    }
+
     /**
      * Return the comment to place at the top of generated files. Return null or an empty string for no comment.
      *
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary codec for values of type {@code T}. Implementations are generated for records via
+ * {@code @RecordBuilder(codec = true)} and {@link Codecs} has codecs for common JDK types. Codecs
+ * are immutable and can be shared between threads.
+ *
+ * @param <T> value type
+ */
+public interface RecordCodec<T> {
+    /**
+     * Write the value at the buffer's current position. Throws {@code BufferOverflowException} if the buffer is too small.
+     *
+     * @param value value to write
+     * @param out buffer
+     */
+    void encode(T value, ByteBuffer out);
+
+    /**
+     * Read a value from the buffer's current position
+     *
+     * @param in buffer
+     * @return the value
+     */
+    T decode(ByteBuffer in);
+
+    /**
+     * Write the value to the given output using the same format as {@link #encode(Object, ByteBuffer)}
+     *
+     * @param value value to write
+     * @param out output
+     * @throws IOException errors
+     */
+    void encode(T value, DataOutput out) throws IOException;
+
+    /**
+     * Read a value from the given input using the same format as {@link #decode(ByteBuffer)}
+     *
+     * @param in input
+     * @return the value
+     * @throws IOException errors
+     */
+    T decode(DataInput in) throws IOException;
+}
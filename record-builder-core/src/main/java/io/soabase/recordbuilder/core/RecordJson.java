@@ -0,0 +1,87 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming JSON writer/reader for values of type {@code T}. Implementations are generated for records via
+ * {@code @RecordBuilder(json = true)} and {@link Json} has implementations for common JDK types. Instances
+ * are immutable and can be shared between threads.
+ *
+ * @param <T> value type
+ */
+public interface RecordJson<T> {
+    /**
+     * Write the value as JSON. {@code null} is written as {@code null}.
+     *
+     * @param value value to write
+     * @param out destination (e.g. a {@code Writer} or {@code StringBuilder})
+     * @throws IOException errors
+     */
+    void write(T value, Appendable out) throws IOException;
+
+    /**
+     * Read the next value
+     *
+     * @param in reader
+     * @return value - {@code null} if the JSON value is {@code null}
+     * @throws IOException errors or malformed JSON
+     */
+    T read(JsonReader in) throws IOException;
+
+    /**
+     * Read a value from the given reader
+     *
+     * @param in reader
+     * @return value
+     * @throws IOException errors or malformed JSON
+     */
+    default T read(Reader in) throws IOException {
+        return read(new JsonReader(in));
+    }
+
+    /**
+     * Convenience to write the value to a String
+     *
+     * @param value value
+     * @return JSON
+     */
+    default String toJson(T value) {
+        StringBuilder out = new StringBuilder();
+        try {
+            write(value, out);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Convenience to read a value from a String
+     *
+     * @param json JSON
+     * @return value
+     * @throws IOException malformed JSON
+     */
+    default T fromJson(String json) throws IOException {
+        return read(new StringReader(json));
+    }
+}
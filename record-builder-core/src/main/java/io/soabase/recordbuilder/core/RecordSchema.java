@@ -0,0 +1,224 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Describes the components of a record without reflection. Instances are created by the generated
+ * builders (see the generated {@code schema()} method) from constants known at compile time.
+ *
+ * @param <R> record type
+ */
+public final class RecordSchema<R> {
+    private final Class<R> recordClass;
+    private final List<Component<R>> components;
+    private final Map<String, Component<R>> componentsByName;
+    private final Function<Object[], R> factory;
+
+    /**
+     * The kind of a record component - one per primitive plus OBJECT for everything else
+     */
+    public enum Kind {
+        BOOLEAN,
+        BYTE,
+        SHORT,
+        CHAR,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        OBJECT
+    }
+
+    /**
+     * A single record component
+     *
+     * @param <R> record type
+     */
+    public static final class Component<R> {
+        private final String name;
+        private final int index;
+        private final Class<?> type;
+        private final Kind kind;
+        private final Function<R, Object> accessor;
+        private final MethodHandle accessorHandle;
+
+        private Component(String name, int index, Class<?> type, Kind kind, Function<R, Object> accessor, MethodHandle accessorHandle) {
+            this.name = name;
+            this.index = index;
+            this.type = type;
+            this.kind = kind;
+            this.accessor = accessor;
+            this.accessorHandle = accessorHandle;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return position of the component in the canonical constructor
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * @return erased type of the component
+         */
+        public Class<?> type() {
+            return type;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * @return accessor for the component - primitives are boxed
+         */
+        public Function<R, Object> accessor() {
+            return accessor;
+        }
+
+        /**
+         * @return method handle for the component's accessor with the type {@code (R)type}. Use
+         * {@code invokeExact} to read primitives without boxing.
+         */
+        public MethodHandle accessorHandle() {
+            return accessorHandle;
+        }
+
+        /**
+         * Return the component's value from the given record - primitives are boxed
+         *
+         * @param record record
+         * @return value
+         */
+        public Object get(R record) {
+            return accessor.apply(record);
+        }
+
+        @Override
+        public String toString() {
+            return "Component[name=" + name + ", index=" + index + ", type=" + type.getName() + ", kind=" + kind + "]";
+        }
+    }
+
+    /**
+     * Used by the generated builders
+     *
+     * @param <R> record type
+     */
+    public static final class Builder<R> {
+        private final Class<R> recordClass;
+        private final MethodHandles.Lookup lookup;
+        private final List<Component<R>> components = new ArrayList<>();
+
+        private Builder(Class<R> recordClass, MethodHandles.Lookup lookup) {
+            this.recordClass = recordClass;
+            this.lookup = lookup;
+        }
+
+        public Builder<R> component(String name, Class<?> type, Kind kind, Function<R, Object> accessor) {
+            MethodHandle accessorHandle;
+            try
+            {
+                accessorHandle = lookup.findVirtual(recordClass, name, MethodType.methodType(type));
+            }
+            catch ( NoSuchMethodException | IllegalAccessException e )
+            {
+                throw new IllegalStateException("Could not resolve accessor for component: " + name, e);
+            }
+            components.add(new Component<>(name, components.size(), type, kind, accessor, accessorHandle));
+            return this;
+        }
+
+        public RecordSchema<R> build(Function<Object[], R> factory) {
+            return new RecordSchema<>(recordClass, components, factory);
+        }
+    }
+
+    /**
+     * Used by the generated builders
+     *
+     * @param recordClass record class
+     * @param lookup a lookup that can access the record's accessors
+     * @param <R> record type
+     * @return builder
+     */
+    public static <R> Builder<R> builder(Class<R> recordClass, MethodHandles.Lookup lookup) {
+        return new Builder<>(recordClass, lookup);
+    }
+
+    private RecordSchema(Class<R> recordClass, List<Component<R>> components, Function<Object[], R> factory) {
+        this.recordClass = recordClass;
+        this.components = Collections.unmodifiableList(new ArrayList<>(components));
+        this.factory = factory;
+        Map<String, Component<R>> componentsByName = new HashMap<>();
+        components.forEach(component -> componentsByName.put(component.name(), component));
+        this.componentsByName = Collections.unmodifiableMap(componentsByName);
+    }
+
+    public Class<R> recordClass() {
+        return recordClass;
+    }
+
+    /**
+     * @return the components in declaration order
+     */
+    public List<Component<R>> components() {
+        return components;
+    }
+
+    public Optional<Component<R>> component(String name) {
+        return Optional.ofNullable(componentsByName.get(name));
+    }
+
+    public int size() {
+        return components.size();
+    }
+
+    /**
+     * Create a new record instance via the canonical constructor
+     *
+     * @param values component values in declaration order
+     * @return new record
+     * @throws IllegalArgumentException if the number of values doesn't match the number of components
+     */
+    public R newInstance(Object... values) {
+        if ( values.length != components.size() )
+        {
+            throw new IllegalArgumentException(String.format("Expected %d values for %s but got %d", components.size(), recordClass.getName(), values.length));
+        }
+        return factory.apply(values);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordSchema[recordClass=" + recordClass.getName() + ", components=" + components + "]";
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.core;
+
+/**
+ * <p>
+ *     A {@link HashSink} that computes a 64-bit hash that is stable across JVMs, platforms and releases
+ *     (i.e. it's safe to use for sharding and persistent deduplication). The algorithm is fixed and will not change:
+ *     each value is mixed into the state as a 64-bit word using the MurmurHash3 (x64) block mix and the result is
+ *     finalized with the MurmurHash3 {@code fmix64} function. Strings are hashed as their length followed by their
+ *     UTF-16 chars, 4 chars per word, read directly from the {@code CharSequence}. Nothing is allocated or boxed.
+ * </p>
+ *
+ * <p>
+ *     Not thread safe. Instances can be reused via {@link #reset()}.
+ * </p>
+ */
+public final class StableHash implements HashSink {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final long NULL_STRING = -1L;
+
+    private final long seed;
+    private long state;
+    private long words;
+
+    public StableHash() {
+        this(0);
+    }
+
+    public StableHash(long seed) {
+        this.seed = seed;
+        state = seed;
+    }
+
+    /**
+     * Clear the state so that the instance can be used for a new hash
+     *
+     * @return this
+     */
+    public StableHash reset() {
+        state = seed;
+        words = 0;
+        return this;
+    }
+
+    @Override
+    public void putLong(long value) {
+        long k = value * C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        state ^= k;
+        state = (Long.rotateLeft(state, 27) * 5) + 0x52dce729;
+        ++words;
+    }
+
+    @Override
+    public void putString(CharSequence value) {
+        if (value == null) {
+            putLong(NULL_STRING);
+            return;
+        }
+        int length = value.length();
+        putLong(length);
+        int index = 0;
+        for (; (index + 4) <= length; index += 4) {
+            putLong(value.charAt(index) | ((long)value.charAt(index + 1) << 16) | ((long)value.charAt(index + 2) << 32) | ((long)value.charAt(index + 3) << 48));
+        }
+        if (index < length) {
+            long word = 0;
+            for (int shift = 0; index < length; ++index, shift += 16) {
+                word |= (long)value.charAt(index) << shift;
+            }
+            putLong(word);
+        }
+    }
+
+    /**
+     * Return the hash of the values added so far. Doesn't change the state.
+     *
+     * @return 64-bit hash
+     */
+    public long hash() {
+        return fmix64(state ^ (words * 8));
+    }
+
+    /**
+     * Map the key to a bucket in {@code [0, buckets)} using Lamping and Veach's jump consistent hash. When the number
+     * of buckets changes from n to n+1 only about 1/(n+1) of the keys move (all to the new bucket).
+     *
+     * @param key well mixed key, e.g. a {@link #hash()}
+     * @param buckets number of buckets
+     * @return bucket
+     */
+    public static int jumpConsistentHash(long key, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("buckets must be positive: " + buckets);
+        }
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = (key * 2862933555777941757L) + 1;
+            next = (long)((bucket + 1) * ((double)(1L << 31) / (double)((key >>> 33) + 1)));
+        }
+        return (int)bucket;
+    }
+
+    private static long fmix64(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import io.soabase.recordbuilder.core.Codecs;
+import io.soabase.recordbuilder.core.RecordBuilder;
+import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+import io.soabase.recordbuilder.core.RecordCodec;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordCodec} companion, a {@link RecordCodec} for the record. Primitives and Strings
+ * are written inline via {@link Codecs}. All other components use a codec instance that's created once, in the
+ * codec's constructor, so that encoding doesn't allocate.
+ */
+class CodecGenerator {
+    private static final Map<String, String> boxedCodecs = Map.of(
+            Boolean.class.getName(), "BOOLEAN",
+            Byte.class.getName(), "BYTE",
+            Short.class.getName(), "SHORT",
+            Character.class.getName(), "CHARACTER",
+            Integer.class.getName(), "INTEGER",
+            Long.class.getName(), "LONG",
+            Float.class.getName(), "FLOAT",
+            Double.class.getName(), "DOUBLE"
+    );
+
+    private final InternalRecordBuilderProcessor processor;
+    private final List<CodeBlock> componentCodecs;
+    private final TypeName recordType;
+
+    CodecGenerator(InternalRecordBuilderProcessor processor, List<CodeBlock> componentCodecs) {
+        this.processor = processor;
+        this.componentCodecs = componentCodecs;
+        recordType = processor.recordClassType().typeName();
+    }
+
+    /**
+     * Resolve the codec for each record component. Must be called from the processor's thread. An empty code block is
+     * returned for components that are written inline (primitives and Strings).
+     *
+     * @return codec initializers or empty if a component type isn't supported (an error is reported)
+     */
+    static Optional<List<CodeBlock>> resolveComponentCodecs(ProcessingSession session, TypeElement record, RecordBuilderMetaData metaData) {
+        var componentCodecs = new ArrayList<CodeBlock>();
+        var isValid = true;
+        for (var component : record.getRecordComponents()) {
+            var type = component.asType();
+            if (type.getKind().isPrimitive() || isString(type)) {
+                componentCodecs.add(CodeBlock.builder().build());
+                continue;
+            }
+            var codec = resolveCodec(session, record, metaData, type);
+            if (codec.isPresent()) {
+                componentCodecs.add(codec.get());
+            } else {
+                session.processingEnv().getMessager().printMessage(Diagnostic.Kind.ERROR, "codec() does not support the type " + type + ". Supported types are primitives, boxed primitives, Strings, List, Map, type variables and records with codec = true", component);
+                isValid = false;
+            }
+        }
+        return isValid ? Optional.of(componentCodecs) : Optional.empty();
+    }
+
+    private static Optional<CodeBlock> resolveCodec(ProcessingSession session, TypeElement record, RecordBuilderMetaData metaData, TypeMirror type) {
+        if (type.getKind() == TypeKind.TYPEVAR) {
+            return Optional.of(CodeBlock.of("$T.nullable($L)", Codecs.class, codecParameterName(type.toString())));
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return Optional.empty();
+        }
+
+        var declaredType = (DeclaredType)type;
+        var element = (TypeElement)declaredType.asElement();
+        var qualifiedName = element.getQualifiedName().toString();
+        if (isString(type)) {
+            return Optional.of(CodeBlock.of("$T.STRING", Codecs.class));
+        }
+        if (boxedCodecs.containsKey(qualifiedName)) {
+            return Optional.of(CodeBlock.of("$T.nullable($T.$L)", Codecs.class, Codecs.class, boxedCodecs.get(qualifiedName)));
+        }
+
+        var arguments = new ArrayList<CodeBlock>();
+        for (var typeArgument : declaredType.getTypeArguments()) {
+            var argument = resolveCodec(session, record, metaData, typeArgument);
+            if (argument.isEmpty()) {
+                return Optional.empty();
+            }
+            arguments.add(argument.get());
+        }
+        var argumentList = CodeBlock.join(arguments, ", ");
+        if (qualifiedName.equals(List.class.getName())) {
+            return Optional.of(CodeBlock.of("$T.nullable($T.list($L))", Codecs.class, Codecs.class, argumentList));
+        }
+        if (qualifiedName.equals(Map.class.getName())) {
+            return Optional.of(CodeBlock.of("$T.nullable($T.map($L))", Codecs.class, Codecs.class, argumentList));
+        }
+
+        var recordBuilder = element.getAnnotation(RecordBuilder.class);
+        if ((element.getKind() == ElementKind.RECORD) && (recordBuilder != null) && recordBuilder.codec()) {
+            if (session.processingEnv().getTypeUtils().isSameType(type, record.asType())) {
+                return Optional.of(CodeBlock.of("$T.nullable(this)", Codecs.class));
+            }
+            // lazy so that records that refer to each other don't depend on each other's class initialization
+            var classType = ElementUtils.getClassType(ClassName.get(element), element.getTypeParameters());
+            var codecClassName = ClassName.get(ElementUtils.getPackageName(element), ElementUtils.getBuilderName(element, metaData, classType, metaData.codecSuffix()));
+            return Optional.of(CodeBlock.of("$T.nullable($T.lazy(() -> $T.codec($L)))", Codecs.class, Codecs.class, codecClassName, argumentList));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isString(TypeMirror type) {
+        return (type.getKind() == TypeKind.DECLARED) && ((TypeElement)((DeclaredType)type).asElement()).getQualifiedName().contentEquals(String.class.getName());
+    }
+
+    private static String codecParameterName(String typeVariableName) {
+        return "codec" + typeVariableName;
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            public final class PairCodec<T, U> implements RecordCodec<Pair<T, U>> {
+                private final RecordCodec<T> leftCodec;
+                private final RecordCodec<U> rightCodec;
+
+                private PairCodec(RecordCodec<T> codecT, RecordCodec<U> codecU) {
+                    this.leftCodec = Codecs.nullable(codecT);
+                    this.rightCodec = Codecs.nullable(codecU);
+                }
+
+                public static <T, U> PairCodec<T, U> codec(RecordCodec<T> codecT, RecordCodec<U> codecU) {
+                    return new PairCodec<>(codecT, codecU);
+                }
+
+                @Override
+                public void encode(Pair<T, U> value, ByteBuffer out) {
+                    leftCodec.encode(value.left(), out);
+                    rightCodec.encode(value.right(), out);
+                }
+
+                @Override
+                public Pair<T, U> decode(ByteBuffer in) {
+                    return PairBuilder.Pair(leftCodec.decode(in), rightCodec.decode(in));
+                }
+
+                ... same for DataOutput/DataInput
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().codecSuffix());
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("Binary codec for {@code $L}. See {@link $T} for the format.\n", processor.recordClassType().name(), Codecs.class)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(processor.typeVariables())
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(RecordCodec.class), recordType));
+
+        var components = processor.recordComponents();
+        var constructorBuilder = MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE);
+        var codecMethodBuilder = MethodSpec.methodBuilder("codec")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addTypeVariables(processor.typeVariables())
+                .returns(classType.typeName());
+        processor.typeVariables().forEach(typeVariable -> {
+            var parameterType = ParameterizedTypeName.get(ClassName.get(RecordCodec.class), typeVariable);
+            var parameterName = codecParameterName(typeVariable.name);
+            constructorBuilder.addParameter(parameterType, parameterName)
+                    .addStatement("$T.requireNonNull($L, $S)", Objects.class, parameterName, parameterName + " is null");
+            codecMethodBuilder.addParameter(parameterType, parameterName);
+        });
+        for (int index = 0; index < components.size(); ++index) {
+            var codec = componentCodecs.get(index);
+            if (!codec.isEmpty()) {
+                var component = components.get(index);
+                var fieldType = ParameterizedTypeName.get(ClassName.get(RecordCodec.class), component.typeName().box());
+                classBuilder.addField(fieldType, codecFieldName(component), Modifier.PRIVATE, Modifier.FINAL);
+                constructorBuilder.addStatement("this.$L = $L", codecFieldName(component), codec);
+            }
+        }
+        classBuilder.addMethod(constructorBuilder.build());
+
+        if (processor.typeVariables().isEmpty()) {
+            classBuilder.addField(FieldSpec.builder(classType.typeName(), "INSTANCE", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T()", classType.typeName())
+                    .build());
+            codecMethodBuilder.addJavadoc("Return the codec. Codecs are immutable and thread safe.\n")
+                    .addStatement("return INSTANCE");
+        } else {
+            var arguments = processor.typeVariables().stream().map(typeVariable -> CodeBlock.of("$L", codecParameterName(typeVariable.name))).collect(CodeBlock.joining(", "));
+            codecMethodBuilder.addJavadoc("Return a codec that uses the given codecs for the record's type variables. Codecs are immutable and thread safe.\n")
+                    .addStatement("return new $T<>($L)", ClassName.get(processor.packageName(), classType.name()), arguments);
+        }
+        classBuilder.addMethod(codecMethodBuilder.build());
+
+        classBuilder.addMethod(buildEncodeMethod(ByteBuffer.class, false));
+        classBuilder.addMethod(buildDecodeMethod(ByteBuffer.class, false));
+        classBuilder.addMethod(buildEncodeMethod(DataOutput.class, true));
+        classBuilder.addMethod(buildDecodeMethod(DataInput.class, true));
+        return classBuilder.build();
+    }
+
+    private MethodSpec buildEncodeMethod(Class<?> outputClass, boolean throwsIOException) {
+        var methodBuilder = MethodSpec.methodBuilder("encode")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "value")
+                .addParameter(outputClass, "out");
+        if (throwsIOException) {
+            methodBuilder.addException(IOException.class);
+        }
+        var components = processor.recordComponents();
+        for (int index = 0; index < components.size(); ++index) {
+            var component = components.get(index);
+            if (componentCodecs.get(index).isEmpty()) {
+                methodBuilder.addStatement("$T.$L(out, value.$L())", Codecs.class, inlineMethod(component, "write"), component.name());
+            } else {
+                methodBuilder.addStatement("$L.encode(value.$L(), out)", codecFieldName(component), component.name());
+            }
+        }
+        return methodBuilder.build();
+    }
+
+    private MethodSpec buildDecodeMethod(Class<?> inputClass, boolean throwsIOException) {
+        var methodBuilder = MethodSpec.methodBuilder("decode")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(inputClass, "in")
+                .returns(recordType);
+        if (throwsIOException) {
+            methodBuilder.addException(IOException.class);
+        }
+        // arguments are evaluated left to right which matches the encoded order
+        var arguments = CodeBlock.builder();
+        var components = processor.recordComponents();
+        for (int index = 0; index < components.size(); ++index) {
+            var component = components.get(index);
+            if (index > 0) {
+                arguments.add(",\n");
+            }
+            if (componentCodecs.get(index).isEmpty()) {
+                var kind = ComponentKind.of(component.typeName());
+                var cast = ((kind == ComponentKind.SHORT) || (kind == ComponentKind.CHAR)) ? "(" + kind.typeName() + ")" : "";
+                arguments.add("$L$T.$L(in)", cast, Codecs.class, inlineMethod(component, "read"));
+            } else {
+                arguments.add("$L.decode(in)", codecFieldName(component));
+            }
+        }
+        var builderClassName = processor.builderClassName();
+        if (components.isEmpty()) {
+            methodBuilder.addStatement("return $T.$L()", builderClassName, processor.recordClassType().name());
+        } else {
+            methodBuilder.addStatement("return $T.$L(\n$>$>$L$<$<)", builderClassName, processor.recordClassType().name(), arguments.build());
+        }
+        return methodBuilder.build();
+    }
+
+    private static String inlineMethod(ClassType component, String prefix) {
+        switch (ComponentKind.of(component.typeName())) {
+            case BOOLEAN:
+                return prefix + "Boolean";
+
+            case BYTE:
+                return prefix + "Byte";
+
+            case SHORT:
+            case CHAR:
+            case INT:
+                return prefix + "VarInt";
+
+            case LONG:
+                return prefix + "VarLong";
+
+            case FLOAT:
+                return prefix + "Float";
+
+            case DOUBLE:
+                return prefix + "Double";
+
+            default:
+                return prefix + "String";
+        }
+    }
+
+    private static String codecFieldName(ClassType component) {
+        return component.name() + "Codec";
+    }
+}
@@ -0,0 +1,397 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordColumns} companion: a struct-of-arrays container that stores
+ * each record component in its own array (primitive arrays for primitives, {@code Object[]} otherwise)
+ */
+class ColumnsGenerator {
+    private final InternalRecordBuilderProcessor processor;
+    private final TypeName recordType;
+    private final String sizeName;
+    private final String capacityName;
+    private final String rowName;
+    private final String defaultCapacityName;
+    private final String maxCapacityName;
+
+    ColumnsGenerator(InternalRecordBuilderProcessor processor) {
+        this.processor = processor;
+        recordType = processor.recordClassType().typeName();
+        // component names are used for fields and parameters - make sure the generated names don't clash with them
+        sizeName = uniqueName("_size");
+        capacityName = uniqueName("_capacity");
+        rowName = uniqueName("row");
+        defaultCapacityName = uniqueName("DEFAULT_CAPACITY");
+        maxCapacityName = uniqueName("MAX_CAPACITY");
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            public class MyRecordColumns implements Iterable<MyRecord> {
+                private int _size;
+                private int _capacity;
+                private int[] p1;
+                private Object[] p2;
+
+                public MyRecordColumns() {...}
+                public MyRecordColumns(int initialCapacity) {...}
+                public int size() {...}
+                public int add(int p1, String p2) {...}
+                public int add(MyRecord record) {...}
+                public int getP1(int row) {...}
+                public void setP1(int row, int p1) {...}
+                ...
+                public MyRecord get(int row) {...}
+                public void clear() {...}
+                public List<MyRecord> asList() {...}
+                public Iterator<MyRecord> iterator() {...}
+                public Spliterator<MyRecord> spliterator() {...}
+                public Stream<MyRecord> stream() {...}
+                public Stream<MyRecord> parallelStream() {...}
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().columnsSuffix());
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("Stores {@code $L} instances as one array per record component\n", processor.recordClassType().name())
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(processor.typeVariables())
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Iterable.class), recordType));
+        if (processor.recordComponents().stream().anyMatch(component -> InternalRecordBuilderProcessor.isUncheckedCast(component.typeName()))) {
+            classBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        }
+
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, defaultCapacityName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("16").build());
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, maxCapacityName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("$T.MAX_VALUE - 8", Integer.class).build());
+        classBuilder.addField(TypeName.INT, sizeName, Modifier.PRIVATE);
+        classBuilder.addField(TypeName.INT, capacityName, Modifier.PRIVATE);
+        processor.recordComponents().forEach(component -> classBuilder.addField(columnType(component), component.name(), Modifier.PRIVATE));
+
+        addConstructors(classBuilder, classType);
+        classBuilder.addMethod(MethodSpec.methodBuilder("size")
+                .addJavadoc("Return the number of rows\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("return $L", sizeName)
+                .build());
+        addAddMethods(classBuilder);
+        addAccessors(classBuilder);
+        addGetMethod(classBuilder);
+        addClearMethod(classBuilder);
+        addEnsureCapacityMethod(classBuilder);
+        addViews(classBuilder, classType);
+        return classBuilder.build();
+    }
+
+    private void addConstructors(TypeSpec.Builder classBuilder, ClassType classType) {
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("this($L)", defaultCapacityName)
+                .build());
+
+        var constructorBuilder = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "initialCapacity")
+                .beginControlFlow("if (initialCapacity < 0)")
+                .addStatement("throw new $T($S + initialCapacity)", IllegalArgumentException.class, "Illegal capacity: ")
+                .endControlFlow()
+                .addStatement("this.$L = initialCapacity", capacityName);
+        processor.recordComponents().forEach(component -> constructorBuilder.addStatement("this.$L = new $T[initialCapacity]", component.name(), columnElementType(component)));
+        classBuilder.addMethod(constructorBuilder.build());
+    }
+
+    private void addAddMethods(TypeSpec.Builder classBuilder) {
+        var addBuilder = MethodSpec.methodBuilder("add")
+                .addJavadoc("Add a row without creating a record instance\n\n@return the index of the new row\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("ensureCapacity(this.$L + 1)", sizeName);
+        processor.recordComponents().forEach(component -> {
+            addBuilder.addParameter(component.typeName(), component.name());
+            addBuilder.addStatement("this.$L[this.$L] = $L", component.name(), sizeName, component.name());
+        });
+        classBuilder.addMethod(addBuilder.addStatement("return this.$L++", sizeName).build());
+
+        var arguments = CodeBlock.builder();
+        var components = processor.recordComponents();
+        for (int index = 0; index < components.size(); ++index) {
+            arguments.add((index > 0) ? ", record.$L()" : "record.$L()", components.get(index).name());
+        }
+        classBuilder.addMethod(MethodSpec.methodBuilder("add")
+                .addJavadoc("Add a row with the values of the given record\n\n@return the index of the new row\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "record")
+                .returns(TypeName.INT)
+                .addStatement("return add($L)", arguments.build())
+                .build());
+    }
+
+    private void addAccessors(TypeSpec.Builder classBuilder) {
+        processor.recordComponents().forEach(component -> {
+            classBuilder.addMethod(MethodSpec.methodBuilder(ElementUtils.getWithMethodName(component, "get"))
+                    .addJavadoc("Return the {@code $L} value of the given row\n", component.name())
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.INT, rowName)
+                    .returns(component.typeName())
+                    .addStatement("$T.checkIndex($L, $L)", Objects.class, rowName, sizeName)
+                    .addStatement("return $L", readColumn(component))
+                    .build());
+            classBuilder.addMethod(MethodSpec.methodBuilder(ElementUtils.getWithMethodName(component, "set"))
+                    .addJavadoc("Set the {@code $L} value of the given row\n", component.name())
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.INT, rowName)
+                    .addParameter(component.typeName(), component.name())
+                    .addStatement("$T.checkIndex($L, this.$L)", Objects.class, rowName, sizeName)
+                    .addStatement("this.$L[$L] = $L", component.name(), rowName, component.name())
+                    .build());
+        });
+    }
+
+    private void addGetMethod(TypeSpec.Builder classBuilder) {
+        var arguments = CodeBlock.builder();
+        var components = processor.recordComponents();
+        for (int index = 0; index < components.size(); ++index) {
+            if (index > 0) {
+                arguments.add(", ");
+            }
+            arguments.add(readColumn(components.get(index)));
+        }
+        classBuilder.addMethod(MethodSpec.methodBuilder("get")
+                .addJavadoc("Return a new record instance with the values of the given row\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, rowName)
+                .returns(recordType)
+                .addStatement("$T.checkIndex($L, $L)", Objects.class, rowName, sizeName)
+                .addStatement("return new $T($L)", recordType, arguments.build())
+                .build());
+    }
+
+    private void addClearMethod(TypeSpec.Builder classBuilder) {
+        var methodBuilder = MethodSpec.methodBuilder("clear")
+                .addJavadoc("Remove all rows. The capacity is retained.\n")
+                .addModifiers(Modifier.PUBLIC);
+        // release references so that they can be collected
+        processor.recordComponents().stream()
+                .filter(component -> !ComponentKind.of(component.typeName()).isPrimitive())
+                .forEach(component -> methodBuilder.addStatement("$T.fill(this.$L, 0, $L, null)", Arrays.class, component.name(), sizeName));
+        classBuilder.addMethod(methodBuilder.addStatement("$L = 0", sizeName).build());
+    }
+
+    private void addEnsureCapacityMethod(TypeSpec.Builder classBuilder) {
+        var methodBuilder = MethodSpec.methodBuilder("ensureCapacity")
+                .addJavadoc("Make sure that at least {@code minCapacity} rows can be stored without growing the arrays\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "minCapacity")
+                .beginControlFlow("if (minCapacity < 0)")
+                .addStatement("throw new $T($S)", OutOfMemoryError.class, "Required capacity is too large")
+                .endControlFlow()
+                .beginControlFlow("if (minCapacity > $L)", capacityName)
+                .addStatement("int newCapacity = $L + ($L >> 1) + 1", capacityName, capacityName)
+                // grow by 50% like ArrayList but don't overflow - clamp to the largest array size the VM reliably supports
+                .beginControlFlow("if ((newCapacity < 0) || (newCapacity > $L))", maxCapacityName)
+                .addStatement("newCapacity = $L", maxCapacityName)
+                .endControlFlow()
+                .beginControlFlow("if (minCapacity > newCapacity)")
+                .addStatement("newCapacity = minCapacity")
+                .endControlFlow();
+        processor.recordComponents().forEach(component -> methodBuilder.addStatement("this.$L = $T.copyOf(this.$L, newCapacity)", component.name(), Arrays.class, component.name()));
+        classBuilder.addMethod(methodBuilder
+                .addStatement("$L = newCapacity", capacityName)
+                .endControlFlow()
+                .build());
+    }
+
+    private void addViews(TypeSpec.Builder classBuilder, ClassType classType) {
+        var listType = ParameterizedTypeName.get(ClassName.get(List.class), recordType);
+        var spliteratorType = ParameterizedTypeName.get(ClassName.get(Spliterator.class), recordType);
+        var streamType = ParameterizedTypeName.get(ClassName.get(Stream.class), recordType);
+
+        /*
+            private class ListView extends AbstractList<MyRecord> implements RandomAccess {
+                ...
+            }
+         */
+        var listView = TypeSpec.classBuilder("ListView")
+                .addModifiers(Modifier.PRIVATE)
+                .superclass(ParameterizedTypeName.get(ClassName.get(AbstractList.class), recordType))
+                .addSuperinterface(RandomAccess.class)
+                .addMethod(MethodSpec.methodBuilder("get")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(TypeName.INT, "index")
+                        .returns(recordType)
+                        .addStatement("return $L.this.get(index)", classType.name())
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("size")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(TypeName.INT)
+                        .addStatement("return $L", sizeName)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("spliterator")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(spliteratorType)
+                        .addStatement("return $L.this.spliterator()", classType.name())
+                        .build())
+                .build();
+        classBuilder.addType(listView);
+
+        /*
+            private class RowSpliterator implements Spliterator<MyRecord> {
+                ...
+            }
+         */
+        var consumerType = ParameterizedTypeName.get(ClassName.get(Consumer.class), WildcardTypeName.supertypeOf(recordType));
+        var rowSpliterator = TypeSpec.classBuilder("RowSpliterator")
+                .addModifiers(Modifier.PRIVATE)
+                .addSuperinterface(spliteratorType)
+                .addField(TypeName.INT, "index", Modifier.PRIVATE)
+                .addField(TypeName.INT, "fence", Modifier.PRIVATE, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addParameter(TypeName.INT, "index")
+                        .addParameter(TypeName.INT, "fence")
+                        .addStatement("this.index = index")
+                        .addStatement("this.fence = fence")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("tryAdvance")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(consumerType, "action")
+                        .returns(TypeName.BOOLEAN)
+                        .beginControlFlow("if (index < fence)")
+                        .addStatement("action.accept(get(index++))")
+                        .addStatement("return true")
+                        .endControlFlow()
+                        .addStatement("return false")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("forEachRemaining")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(consumerType, "action")
+                        .beginControlFlow("while (index < fence)")
+                        .addStatement("action.accept(get(index++))")
+                        .endControlFlow()
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("trySplit")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(spliteratorType)
+                        .addStatement("int middle = (index + fence) >>> 1")
+                        .beginControlFlow("if (middle <= index)")
+                        .addStatement("return null")
+                        .endControlFlow()
+                        .addStatement("RowSpliterator prefix = new RowSpliterator(index, middle)")
+                        .addStatement("index = middle")
+                        .addStatement("return prefix")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("estimateSize")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(TypeName.LONG)
+                        .addStatement("return fence - index")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("characteristics")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(TypeName.INT)
+                        .addStatement("return $T.ORDERED | $T.SIZED | $T.SUBSIZED | $T.NONNULL", Spliterator.class, Spliterator.class, Spliterator.class, Spliterator.class)
+                        .build())
+                .build();
+        classBuilder.addType(rowSpliterator);
+
+        classBuilder.addMethod(MethodSpec.methodBuilder("asList")
+                .addJavadoc("Return a list view of the rows. Each call to {@code get()} creates a new record instance.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(listType)
+                .addStatement("return new ListView()")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("iterator")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ParameterizedTypeName.get(ClassName.get(Iterator.class), recordType))
+                .addStatement("return asList().iterator()")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("spliterator")
+                .addAnnotation(Override.class)
+                .addJavadoc("Return a spliterator over the current rows that splits evenly for parallel streams\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(spliteratorType)
+                .addStatement("return new RowSpliterator(0, $L)", sizeName)
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("stream")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(streamType)
+                .addStatement("return $T.stream(spliterator(), false)", StreamSupport.class)
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("parallelStream")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(streamType)
+                .addStatement("return $T.stream(spliterator(), true)", StreamSupport.class)
+                .build());
+    }
+
+    private CodeBlock readColumn(ClassType component) {
+        if (ComponentKind.of(component.typeName()).isPrimitive()) {
+            return CodeBlock.of("this.$L[$L]", component.name(), rowName);
+        }
+        return CodeBlock.of("($T)this.$L[$L]", component.typeName().withoutAnnotations(), component.name(), rowName);
+    }
+
+    private String uniqueName(String name) {
+        var alreadyExists = processor.recordComponents().stream()
+                .map(ClassType::name)
+                .anyMatch(n -> n.equals(name));
+        return alreadyExists ? uniqueName("_" + name) : name;
+    }
+
+    private static TypeName columnElementType(ClassType component) {
+        var kind = ComponentKind.of(component.typeName());
+        return kind.isPrimitive() ? kind.typeName() : TypeName.OBJECT;
+    }
+
+    private static TypeName columnType(ClassType component) {
+        return ArrayTypeName.of(columnElementType(component));
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.util.Comparator;
+import java.util.List;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Adds the {@code RecordBuilder.sortOrder()} comparators to the builder. All variants are instances of a single
+ * nested class so that call sites stay monomorphic. Primitives are compared with e.g. {@code Integer.compare()},
+ * other components with {@code compareTo()} after handling nulls - nothing is boxed and there are no lambdas.
+ */
+class ComparatorGenerator {
+    private final InternalRecordBuilderProcessor processor;
+    private final List<ClassType> sortOrder;
+
+    ComparatorGenerator(InternalRecordBuilderProcessor processor, List<ClassType> sortOrder) {
+        this.processor = processor;
+        this.sortOrder = sortOrder;
+    }
+
+    void addMethods(TypeSpec.Builder builder) {
+        /*
+            Adds a nested class and methods similar to:
+
+            private static final class _Comparator implements Comparator<MyRecord> {
+                static final _Comparator ASCENDING = new _Comparator(false, false);
+                static final _Comparator DESCENDING = new _Comparator(true, false);
+                static final _Comparator NULLS_FIRST = new _Comparator(false, true);
+
+                private final boolean descending;
+                private final boolean nullsFirst;
+
+                private _Comparator(boolean descending, boolean nullsFirst) {...}
+
+                @Override
+                public int compare(MyRecord a, MyRecord b) {
+                    int c = Integer.compare(a.x(), b.x());
+                    if (c != 0) {
+                        return ((c < 0) != descending) ? -1 : 1;
+                    }
+                    String a1 = a.name();
+                    String b1 = b.name();
+                    if (a1 != b1) {
+                        if ((a1 == null) || (b1 == null)) {
+                            return ((a1 == null) == nullsFirst) ? -1 : 1;
+                        }
+                        c = a1.compareTo(b1);
+                        if (c != 0) {
+                            return ((c < 0) != descending) ? -1 : 1;
+                        }
+                    }
+                    return 0;
+                }
+            }
+
+            public static Comparator<MyRecord> comparator() {
+                return _Comparator.ASCENDING;
+            }
+
+            ... comparatorDescending() and comparatorNullsFirst()
+         */
+        var recordType = processor.recordClassType().typeName();
+        var comparatorClassName = processor.builderClassName().nestedClass("_Comparator");
+        var comparatorType = ParameterizedTypeName.get(ClassName.get(Comparator.class), recordType);
+
+        var compareBuilder = MethodSpec.methodBuilder("compare")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "a")
+                .addParameter(recordType, "b")
+                .returns(TypeName.INT)
+                .addStatement("int c");
+        for (int index = 0; index < sortOrder.size(); ++index) {
+            var component = sortOrder.get(index);
+            var kind = ComponentKind.of(component.typeName());
+            if (kind.isPrimitive()) {
+                compareBuilder.addStatement("c = $T.compare(a.$L(), b.$L())", kind.typeName().box(), component.name(), component.name())
+                        .addCode(returnIfNotEqual());
+            } else {
+                compareBuilder.addStatement("$T a$L = a.$L()", component.typeName(), index, component.name())
+                        .addStatement("$T b$L = b.$L()", component.typeName(), index, component.name())
+                        .beginControlFlow("if (a$L != b$L)", index, index)
+                        .beginControlFlow("if ((a$L == null) || (b$L == null))", index, index)
+                        .addStatement("return ((a$L == null) == nullsFirst) ? -1 : 1", index)
+                        .endControlFlow()
+                        .addStatement("c = a$L.compareTo(b$L)", index, index)
+                        .addCode(returnIfNotEqual())
+                        .endControlFlow();
+            }
+        }
+        compareBuilder.addStatement("return 0");
+
+        var comparatorClass = TypeSpec.classBuilder(comparatorClassName.simpleName())
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addSuperinterface(comparatorType)
+                .addField(comparatorInstance(comparatorClassName, "ASCENDING", false, false))
+                .addField(comparatorInstance(comparatorClassName, "DESCENDING", true, false))
+                .addField(comparatorInstance(comparatorClassName, "NULLS_FIRST", false, true))
+                .addField(TypeName.BOOLEAN, "descending", Modifier.PRIVATE, Modifier.FINAL)
+                .addField(TypeName.BOOLEAN, "nullsFirst", Modifier.PRIVATE, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addModifiers(Modifier.PRIVATE)
+                        .addParameter(TypeName.BOOLEAN, "descending")
+                        .addParameter(TypeName.BOOLEAN, "nullsFirst")
+                        .addStatement("this.descending = descending")
+                        .addStatement("this.nullsFirst = nullsFirst")
+                        .build())
+                .addMethod(compareBuilder.build())
+                .build();
+        builder.addType(comparatorClass);
+
+        var sortOrderDescription = sortOrder.stream().map(ClassType::name).reduce((a, b) -> a + ", " + b).orElse("");
+        var methodName = processor.metaData().comparatorMethodName();
+        builder.addMethod(comparatorMethod(methodName, "ASCENDING", comparatorType, "Return a comparator that sorts by {@code $L} ascending. Nulls sort last.\n", sortOrderDescription));
+        builder.addMethod(comparatorMethod(methodName + "Descending", "DESCENDING", comparatorType, "Return a comparator that sorts by {@code $L} descending. Nulls sort last.\n", sortOrderDescription));
+        builder.addMethod(comparatorMethod(methodName + "NullsFirst", "NULLS_FIRST", comparatorType, "Return a comparator that sorts by {@code $L} ascending. Nulls sort first.\n", sortOrderDescription));
+    }
+
+    // normalized to -1/1 so that descending never has to negate Integer.MIN_VALUE from a compareTo()
+    private static CodeBlock returnIfNotEqual() {
+        return CodeBlock.builder()
+                .beginControlFlow("if (c != 0)")
+                .addStatement("return ((c < 0) != descending) ? -1 : 1")
+                .endControlFlow()
+                .build();
+    }
+
+    private static FieldSpec comparatorInstance(ClassName comparatorClassName, String name, boolean descending, boolean nullsFirst) {
+        return FieldSpec.builder(comparatorClassName, name, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T($L, $L)", comparatorClassName, descending, nullsFirst)
+                .build();
+    }
+
+    private static MethodSpec comparatorMethod(String name, String instance, TypeName comparatorType, String javadoc, String sortOrderDescription) {
+        return MethodSpec.methodBuilder(name)
+                .addJavadoc(javadoc, sortOrderDescription)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(comparatorType)
+                .addStatement("return _Comparator.$L", instance)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Code shared by the generated companions that hash and compare record components without boxing
+ */
+class ComponentCodeBlocks {
+    /**
+     * Return an expression that is true if the two values of the component are equal using the same semantics
+     * as the record's {@code equals()}: {@code ==} for integral primitives, {@code Float/Double.compare()}
+     * semantics for floating point and {@code Objects.equals()} otherwise.
+     */
+    static CodeBlock componentEquals(ClassType component, CodeBlock a, CodeBlock b) {
+        switch (ComponentKind.of(component.typeName())) {
+            case FLOAT:
+                return CodeBlock.of("($T.floatToIntBits($L) == $T.floatToIntBits($L))", Float.class, a, Float.class, b);
+
+            case DOUBLE:
+                return CodeBlock.of("($T.doubleToLongBits($L) == $T.doubleToLongBits($L))", Double.class, a, Double.class, b);
+
+            case OBJECT:
+                return CodeBlock.of("$T.equals($L, $L)", Objects.class, a, b);
+
+            default:
+                return CodeBlock.of("($L == $L)", a, b);
+        }
+    }
+
+    /**
+     * Build a private static {@code hash(components...)} method that combines the components' hash codes
+     * (without boxing) and applies the Murmur3 finalizer so that the low bits are usable for open addressing
+     */
+    static MethodSpec buildHashMethod(List<ClassType> components) {
+        /*
+            Builds a method similar to:
+
+            private static int hash(int x, String s) {
+                int _h = 0;
+                _h = (31 * _h) + Integer.hashCode(x);
+                _h = (31 * _h) + Objects.hashCode(s);
+                _h ^= (_h >>> 16);
+                _h *= 0x85ebca6b;
+                _h ^= (_h >>> 13);
+                _h *= 0xc2b2ae35;
+                return _h ^ (_h >>> 16);
+            }
+         */
+        var h = uniqueName(components, "_h");
+        var methodBuilder = MethodSpec.methodBuilder("hash")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .returns(TypeName.INT)
+                .addStatement("int $L = 0", h);
+        components.forEach(component -> {
+            methodBuilder.addParameter(component.typeName(), component.name());
+            methodBuilder.addStatement("$L = (31 * $L) + $L", h, h, componentHashCode(component));
+        });
+        return methodBuilder.addStatement("$L ^= ($L >>> 16)", h, h)
+                .addStatement("$L *= 0x85ebca6b", h)
+                .addStatement("$L ^= ($L >>> 13)", h, h)
+                .addStatement("$L *= 0xc2b2ae35", h)
+                .addStatement("return $L ^ ($L >>> 16)", h, h)
+                .build();
+    }
+
+    /**
+     * Return the given name prefixed with {@code _} until it doesn't clash with a component name
+     */
+    static String uniqueName(List<ClassType> components, String name) {
+        var alreadyExists = components.stream()
+                .map(ClassType::name)
+                .anyMatch(n -> n.equals(name));
+        return alreadyExists ? uniqueName(components, "_" + name) : name;
+    }
+
+    /**
+     * Return the component's arguments e.g. {@code "x, y"} or with a prefix {@code "record.x(), record.y()"}
+     */
+    static CodeBlock arguments(List<ClassType> components, String recordName) {
+        return components.stream()
+                .map(component -> (recordName == null) ? CodeBlock.of("$L", component.name()) : CodeBlock.of("$L.$L()", recordName, component.name()))
+                .collect(CodeBlock.joining(", "));
+    }
+
+    /**
+     * Return the arguments with a leading comma (or nothing if there are no arguments) so that they can follow other arguments
+     */
+    static CodeBlock prefixedArguments(CodeBlock arguments) {
+        return arguments.isEmpty() ? arguments : CodeBlock.of(", $L", arguments);
+    }
+
+    private static CodeBlock componentHashCode(ClassType component) {
+        var kind = ComponentKind.of(component.typeName());
+        if (kind == ComponentKind.OBJECT) {
+            return CodeBlock.of("$T.hashCode($L)", Objects.class, component.name());
+        }
+        return CodeBlock.of("$T.hashCode($L)", kind.typeName().box(), component.name());
+    }
+
+    private ComponentCodeBlocks() {
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.TypeName;
+
+/**
+ * The kind of a record component - one per primitive plus OBJECT for everything else
+ */
+enum ComponentKind {
+    BOOLEAN(TypeName.BOOLEAN, "Boolean", "false"),
+    BYTE(TypeName.BYTE, "Byte", "(byte)0"),
+    SHORT(TypeName.SHORT, "Short", "(short)0"),
+    CHAR(TypeName.CHAR, "Char", "(char)0"),
+    INT(TypeName.INT, "Int", "0"),
+    LONG(TypeName.LONG, "Long", "0L"),
+    FLOAT(TypeName.FLOAT, "Float", "0.0f"),
+    DOUBLE(TypeName.DOUBLE, "Double", "0.0"),
+    OBJECT(TypeName.OBJECT, "Object", "null");
+
+    private final TypeName typeName;
+    private final String capitalizedName;
+    private final String defaultValue;
+
+    ComponentKind(TypeName typeName, String capitalizedName, String defaultValue) {
+        this.typeName = typeName;
+        this.capitalizedName = capitalizedName;
+        this.defaultValue = defaultValue;
+    }
+
+    static ComponentKind of(TypeName typeName) {
+        if ( typeName.isPrimitive() )
+        {
+            TypeName unannotated = typeName.withoutAnnotations();
+            for ( ComponentKind kind : values() )
+            {
+                if ( kind.typeName.equals(unannotated) )
+                {
+                    return kind;
+                }
+            }
+        }
+        return OBJECT;
+    }
+
+    boolean isPrimitive() {
+        return this != OBJECT;
+    }
+
+    /**
+     * @return the primitive type or {@code Object}
+     */
+    TypeName typeName() {
+        return typeName;
+    }
+
+    /**
+     * @return e.g. "Int" - used to build method names such as {@code visitInt}
+     */
+    String capitalizedName() {
+        return capitalizedName;
+    }
+
+    /**
+     * @return Java source for the default value of the kind, e.g. "0L"
+     */
+    String defaultValue() {
+        return defaultValue;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Counts the number of UTF-8 bytes written through it
+ */
+class CountingWriter extends FilterWriter {
+    private long byteCount;
+
+    CountingWriter(Writer out) {
+        super(out);
+    }
+
+    long byteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        super.write(c);
+        byteCount += utf8Length((char)c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        super.write(buffer, offset, length);
+        for ( int index = offset; index < (offset + length); ++index )
+        {
+            byteCount += utf8Length(buffer[index]);
+        }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        super.write(str, offset, length);
+        for ( int index = offset; index < (offset + length); ++index )
+        {
+            byteCount += utf8Length(str.charAt(index));
+        }
+    }
+
+    private static int utf8Length(char c) {
+        if ( c < 0x80 )
+        {
+            return 1;
+        }
+        if ( (c < 0x800) || Character.isSurrogate(c) )
+        {
+            // each half of a surrogate pair accounts for 2 of the pair's 4 bytes
+            return 2;
+        }
+        return 3;
+    }
+}
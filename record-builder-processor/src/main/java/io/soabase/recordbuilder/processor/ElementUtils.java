@@ -42,12 +42,32 @@ public class ElementUtils {
             .findFirst();
     }
 
+    /**
+     * Faster version of {@link #findAnnotationMirror(ProcessingEnvironment, Element, String)} that compares
+     * the already resolved annotation type by identity. Falls back to comparing names if the type can't be
+     * resolved ({@code annotationType} is {@code null}) or javac returned a different instance.
+     */
+    public static Optional<? extends AnnotationMirror> findAnnotationMirror(Element element, TypeElement annotationType, String annotationClass) {
+        for ( AnnotationMirror annotationMirror : element.getAnnotationMirrors() )
+        {
+            Element annotationElement = annotationMirror.getAnnotationType().asElement();
+            if ( (annotationElement == annotationType) || ((annotationElement instanceof TypeElement) && ((TypeElement)annotationElement).getQualifiedName().contentEquals(annotationClass)) )
+            {
+                return Optional.of(annotationMirror);
+            }
+        }
+        return Optional.empty();
+    }
+
     public static Optional<? extends AnnotationValue> getAnnotationValue(Map<? extends ExecutableElement, ? extends AnnotationValue> values, String name) {
-        return values.entrySet()
-            .stream()
-            .filter(e -> e.getKey().getSimpleName().toString().equals(name))
-            .map(Map.Entry::getValue)
-            .findFirst();
+        for ( Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet() )
+        {
+            if ( entry.getKey().getSimpleName().contentEquals(name) )
+            {
+                return Optional.of(entry.getValue());
+            }
+        }
+        return Optional.empty();
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,303 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+
+import javax.annotation.processing.Filer;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static javax.tools.StandardLocation.SOURCE_OUTPUT;
+
+/**
+ * Opt-in (see {@link RecordBuilderProcessor#OPTION_FINGERPRINT_CACHE}) cache that maps each record to a
+ * fingerprint of everything that goes into generating its files (the record's structure, the meta data and the
+ * processor itself) and to a hash of each generated source (the builder and its companions). The index is kept in
+ * the source output directory next to the generated files. When a record's fingerprint is unchanged and all of the
+ * previously generated files are still present and unmodified, they are reused and the record isn't processed at all.
+ * The files must still be written through the {@code Filer} so that javac compiles them, but the content is byte-identical.
+ */
+class FingerprintCache {
+    private static final String SEPARATOR = ":";
+    private static final String FILE_SEPARATOR = ",";
+    private static final String HASH_SEPARATOR = "=";
+
+    private final Filer filer;
+    private final String indexName;
+    private final String baseFingerprint;
+    private final Map<String, String> index = new TreeMap<>();
+    private final Set<String> updatedKeys = new HashSet<>();
+    private final Set<String> usedKeys = new HashSet<>();
+    private boolean modified;
+    private boolean discarded;
+
+    private FingerprintCache(Filer filer, String processorName, RecordBuilderMetaData metaData, Consumer<String> logger) {
+        this.filer = filer;
+        indexName = "record-builder/" + processorName + "-fingerprints.properties";
+        baseFingerprint = generatorFingerprint() + "\n" + metaDataFingerprint(metaData);
+        load(logger);
+    }
+
+    /**
+     * Returns a cache if enabled via {@code -ArecordBuilderFingerprintCache}
+     *
+     * @return cache or empty if not enabled
+     */
+    static Optional<FingerprintCache> fromOptions(Map<String, String> options, Filer filer, String processorName, RecordBuilderMetaData metaData, Consumer<String> logger) {
+        if ( !options.containsKey(RecordBuilderProcessor.OPTION_FINGERPRINT_CACHE) || "false".equalsIgnoreCase(options.get(RecordBuilderProcessor.OPTION_FINGERPRINT_CACHE)) )
+        {
+            return Optional.empty();
+        }
+        return Optional.of(new FingerprintCache(filer, processorName, metaData, logger));
+    }
+
+    String fingerprint(String structuralSignature) {
+        return hash(baseFingerprint + "\n" + structuralSignature);
+    }
+
+    /**
+     * Returns the previously generated sources (fully qualified name to source, in the order they were generated) if
+     * the fingerprint matches and none of the files has changed
+     */
+    Optional<Map<String, String>> cachedSources(String key, String fingerprint) {
+        String entry = index.get(key);
+        if ( (entry == null) || !entry.startsWith(fingerprint + SEPARATOR) )
+        {
+            return Optional.empty();
+        }
+        Map<String, String> sources = new LinkedHashMap<>();
+        for ( String file : entry.substring(fingerprint.length() + SEPARATOR.length()).split(FILE_SEPARATOR) )
+        {
+            int hashIndex = file.lastIndexOf(HASH_SEPARATOR);
+            if ( hashIndex < 0 )
+            {
+                return Optional.empty();
+            }
+            String fullyQualifiedName = file.substring(0, hashIndex);
+            Optional<String> source = readSource(fullyQualifiedName).filter(s -> hash(s).equals(file.substring(hashIndex + HASH_SEPARATOR.length())));
+            if ( source.isEmpty() )
+            {
+                return Optional.empty();
+            }
+            sources.put(fullyQualifiedName, source.get());
+        }
+        usedKeys.add(key);
+        return Optional.of(sources);
+    }
+
+    /**
+     * Records a generated file for the record with the given key. All files of a record must be put with the same
+     * fingerprint in the same processing run.
+     */
+    void put(String key, String fingerprint, String fullyQualifiedName, String source) {
+        String file = fullyQualifiedName + HASH_SEPARATOR + hash(source);
+        String entry;
+        if ( updatedKeys.add(key) )
+        {
+            entry = fingerprint + SEPARATOR + file;
+        }
+        else
+        {
+            entry = index.get(key) + FILE_SEPARATOR + file;
+        }
+        if ( !entry.equals(index.put(key, entry)) )
+        {
+            modified = true;
+        }
+    }
+
+    /**
+     * Called when errors have been reported. Files generated while errors were reported aren't cached
+     * so that their records are processed (and the errors reported) again in the next build.
+     */
+    void discard() {
+        discarded = true;
+    }
+
+    /**
+     * Writes the index. Only the records that were reused or generated in this compilation are kept so that
+     * deleted or renamed records (and companions that are no longer generated) don't accumulate.
+     */
+    void save() throws IOException {
+        if ( discarded )
+        {
+            return;
+        }
+        if ( index.keySet().removeIf(key -> !usedKeys.contains(key) && !updatedKeys.contains(key)) )
+        {
+            modified = true;
+        }
+        if ( !modified )
+        {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.putAll(index);
+        try (Writer writer = filer.createResource(SOURCE_OUTPUT, "", indexName).openWriter())
+        {
+            properties.store(writer, "record-builder fingerprints - do not edit");
+        }
+        modified = false;
+    }
+
+    private Optional<String> readSource(String fullyQualifiedName) {
+        int dotIndex = fullyQualifiedName.lastIndexOf('.');
+        String packageName = (dotIndex < 0) ? "" : fullyQualifiedName.substring(0, dotIndex);
+        String simpleName = fullyQualifiedName.substring(dotIndex + 1);
+        try
+        {
+            return Optional.of(filer.getResource(SOURCE_OUTPUT, packageName, simpleName + ".java").getCharContent(false).toString());
+        }
+        catch ( IOException | IllegalArgumentException ignore )
+        {
+            // previous file is gone or not readable - regenerate
+            return Optional.empty();
+        }
+    }
+
+    private void load(Consumer<String> logger) {
+        try (Reader reader = filer.getResource(SOURCE_OUTPUT, "", indexName).openReader(true))
+        {
+            Properties properties = new Properties();
+            properties.load(reader);
+            properties.stringPropertyNames().forEach(name -> index.put(name, properties.getProperty(name)));
+        }
+        catch ( IOException | IllegalArgumentException e )
+        {
+            logger.accept("No fingerprint cache found: " + indexName);
+        }
+    }
+
+    private static String generatorFingerprint() {
+        // any change to the processor or to core (a new release, a local rebuild, etc.) invalidates everything
+        MessageDigest digest = newDigest();
+        for ( Class<?> clazz : new Class<?>[]{RecordBuilderProcessor.class, RecordBuilderMetaData.class} )
+        {
+            if ( !digestCodeSource(digest, clazz) )
+            {
+                // the processor's code can't be read - never reuse anything
+                return UUID.randomUUID().toString();
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static boolean digestCodeSource(MessageDigest digest, Class<?> clazz) {
+        try
+        {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            if ( (codeSource == null) || (codeSource.getLocation() == null) )
+            {
+                return false;
+            }
+            Path path = Paths.get(codeSource.getLocation().toURI());
+            if ( !Files.isDirectory(path) )
+            {
+                // the jar
+                digest.update(Files.readAllBytes(path));
+                return true;
+            }
+            // exploded classes (IDE, multi-module build) - every file of the class's package
+            Path packageDirectory = path.resolve(clazz.getPackageName().replace('.', '/'));
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(packageDirectory))
+            {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for ( Path file : files )
+            {
+                digest.update(packageDirectory.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(file));
+            }
+            return true;
+        }
+        catch ( IOException | URISyntaxException | SecurityException | IllegalArgumentException | FileSystemNotFoundException e )
+        {
+            return false;
+        }
+    }
+
+    private static String metaDataFingerprint(RecordBuilderMetaData metaData) {
+        StringBuilder fingerprint = new StringBuilder(metaData.getClass().getName());
+        Arrays.stream(RecordBuilderMetaData.class.getMethods())
+            .filter(method -> (method.getParameterCount() == 0) && !Modifier.isStatic(method.getModifiers()))
+            .sorted(Comparator.comparing(Method::getName))
+            .forEach(method -> {
+                fingerprint.append('\n').append(method.getName()).append('=');
+                try
+                {
+                    fingerprint.append(method.invoke(metaData));
+                }
+                catch ( ReflectiveOperationException e )
+                {
+                    fingerprint.append(e);
+                }
+            });
+        return fingerprint.toString();
+    }
+
+    private static String hash(String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // SHA-256 is required to be supported by every JVM
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for ( byte b : bytes )
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
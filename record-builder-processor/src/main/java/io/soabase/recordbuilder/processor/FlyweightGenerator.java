@@ -0,0 +1,351 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordFlyweight} companion: a view over a {@code ByteBuffer} that stores
+ * records in fixed size slots. The layout is computed here - each component is placed at the next offset
+ * that's a multiple of its size (in declaration order) and the slot size is rounded up to the largest
+ * alignment so that every slot in the buffer is aligned the same way.
+ */
+class FlyweightGenerator {
+    /**
+     * Names of the generated cursor methods. Components with these names would clash with them.
+     */
+    static final Set<String> RESERVED_NAMES = Set.of("allocate", "buffer", "capacity", "at", "index", "toRecord", "fromRecord", "get", "set");
+
+    private final InternalRecordBuilderProcessor processor;
+    private final TypeName recordType;
+    private final List<Slot> slots;
+    private final int bytes;
+
+    private static class Slot {
+        private final ClassType component;
+        private final ComponentKind kind;
+        private final int fixedLength;
+        private final int offset;
+
+        private Slot(ClassType component, ComponentKind kind, int fixedLength, int offset) {
+            this.component = component;
+            this.kind = kind;
+            this.fixedLength = fixedLength;
+            this.offset = offset;
+        }
+
+        private String offsetName() {
+            return offsetName(component.name());
+        }
+
+        private String lengthName() {
+            return lengthName(component.name());
+        }
+    }
+
+    FlyweightGenerator(InternalRecordBuilderProcessor processor) {
+        this.processor = processor;
+        recordType = processor.recordClassType().typeName();
+
+        slots = new ArrayList<>();
+        var components = processor.recordComponents();
+        int offset = 0;
+        int maxAlignment = 1;
+        for (int index = 0; index < components.size(); ++index) {
+            var component = components.get(index);
+            var kind = ComponentKind.of(component.typeName());
+            int fixedLength = processor.fixedLengths().get(index);
+            int alignment = alignment(kind);
+            offset = align(offset, alignment);
+            slots.add(new Slot(component, kind, fixedLength, offset));
+            offset += size(kind, fixedLength);
+            maxAlignment = Math.max(maxAlignment, alignment);
+        }
+        bytes = Math.max(align(offset, maxAlignment), 1);
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            public final class MyRecordFlyweight {
+                public static final int P1_OFFSET = 0;
+                public static final int P2_OFFSET = 8;
+                public static final int BYTES = 16;
+
+                private final ByteBuffer _buffer;
+                private int _base;
+
+                public MyRecordFlyweight(ByteBuffer buffer) {...}
+                public static ByteBuffer allocate(int count) {...}
+                public ByteBuffer buffer() {...}
+                public int capacity() {...}
+                public MyRecordFlyweight at(int index) {...}
+                public int index() {...}
+                public long p1() {...}
+                public MyRecordFlyweight p1(long p1) {...}
+                ...
+                public MyRecord toRecord() {...}
+                public MyRecordFlyweight fromRecord(MyRecord record) {...}
+                public MyRecord get(int index) {...}
+                public void set(int index, MyRecord record) {...}
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().flyweightSuffix());
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("Reads and writes {@code $L} components directly in a {@code ByteBuffer}. Each record occupies {@link #BYTES} bytes.\n", processor.recordClassType().name())
+                .addJavadoc("Instances are cursors: {@link #at(int)} moves the instance to a slot and the accessors read/write that slot.\n")
+                .addJavadoc("Instances are not thread safe but any number of instances can share the same buffer.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation);
+
+        slots.forEach(slot -> {
+            classBuilder.addField(FieldSpec.builder(TypeName.INT, slot.offsetName(), Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .addJavadoc("Offset of {@code $L} within a slot\n", slot.component.name())
+                    .initializer("$L", slot.offset)
+                    .build());
+            if (slot.fixedLength >= 0) {
+                classBuilder.addField(FieldSpec.builder(TypeName.INT, slot.lengthName(), Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .addJavadoc("Maximum number of characters of {@code $L}\n", slot.component.name())
+                        .initializer("$L", slot.fixedLength)
+                        .build());
+            }
+        });
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, "BYTES", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                .addJavadoc("Size in bytes of one record in the buffer\n")
+                .initializer("$L", bytes)
+                .build());
+        classBuilder.addField(ByteBuffer.class, "_buffer", Modifier.PRIVATE, Modifier.FINAL);
+        classBuilder.addField(TypeName.INT, "_base", Modifier.PRIVATE);
+
+        addConstructorAndBufferMethods(classBuilder);
+        addCursorMethods(classBuilder, classType);
+        slots.forEach(slot -> addAccessors(classBuilder, classType, slot));
+        addRecordMethods(classBuilder, classType);
+        return classBuilder.build();
+    }
+
+    private void addConstructorAndBufferMethods(TypeSpec.Builder classBuilder) {
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addJavadoc("The buffer's byte order is used as-is. The cursor starts at index 0.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(ByteBuffer.class, "buffer")
+                .addStatement("this._buffer = $T.requireNonNull(buffer, $S)", Objects.class, "buffer is null")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("allocate")
+                .addJavadoc("Allocate a direct buffer in native byte order large enough for the given number of records\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(TypeName.INT, "count")
+                .returns(ByteBuffer.class)
+                .addStatement("return $T.allocateDirect($T.multiplyExact(count, BYTES)).order($T.nativeOrder())", ByteBuffer.class, Math.class, ByteOrder.class)
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("buffer")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ByteBuffer.class)
+                .addStatement("return _buffer")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("capacity")
+                .addJavadoc("Return the number of records that fit in the buffer\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("return _buffer.capacity() / BYTES")
+                .build());
+    }
+
+    private void addCursorMethods(TypeSpec.Builder classBuilder, ClassType classType) {
+        classBuilder.addMethod(MethodSpec.methodBuilder("at")
+                .addJavadoc("Move this flyweight to the record at the given index\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "index")
+                .returns(classType.typeName())
+                .addStatement("_base = $T.checkIndex(index, capacity()) * BYTES", Objects.class)
+                .addStatement("return this")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("index")
+                .addJavadoc("Return the index of the record this flyweight is currently at\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("return _base / BYTES")
+                .build());
+    }
+
+    private void addAccessors(TypeSpec.Builder classBuilder, ClassType classType, Slot slot) {
+        var name = slot.component.name();
+        var getterBuilder = MethodSpec.methodBuilder(name)
+                .addJavadoc("Return the {@code $L} value of the current record\n", name)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(slot.component.typeName());
+        var setterBuilder = MethodSpec.methodBuilder(name)
+                .addJavadoc("Set the {@code $L} value of the current record\n", name)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(slot.component.typeName(), name)
+                .returns(classType.typeName());
+        switch (slot.kind) {
+            case BOOLEAN:
+                getterBuilder.addStatement("return _buffer.get(_base + $L) != 0", slot.offsetName());
+                setterBuilder.addStatement("_buffer.put(_base + $L, (byte)($L ? 1 : 0))", slot.offsetName(), name);
+                break;
+
+            case BYTE:
+                getterBuilder.addStatement("return _buffer.get(_base + $L)", slot.offsetName());
+                setterBuilder.addStatement("_buffer.put(_base + $L, $L)", slot.offsetName(), name);
+                break;
+
+            case OBJECT:
+                /*
+                    Fixed length Strings are stored as an int length (-1 for null) followed by the chars. Locals
+                    are prefixed so that they can't clash with the component (setter parameter) name
+                 */
+                getterBuilder.addStatement("int _offset = _base + $L", slot.offsetName())
+                        .addStatement("int _length = _buffer.getInt(_offset)")
+                        .beginControlFlow("if (_length < 0)")
+                        .addStatement("return null")
+                        .endControlFlow()
+                        .addStatement("char[] _chars = new char[_length]")
+                        .beginControlFlow("for (int _i = 0; _i < _length; ++_i)")
+                        .addStatement("_chars[_i] = _buffer.getChar(_offset + $T.BYTES + (_i * $T.BYTES))", Integer.class, Character.class)
+                        .endControlFlow()
+                        .addStatement("return new $T(_chars)", String.class);
+                setterBuilder.addStatement("int _offset = _base + $L", slot.offsetName())
+                        .beginControlFlow("if ($L == null)", name)
+                        .addStatement("_buffer.putInt(_offset, -1)")
+                        .addStatement("return this")
+                        .endControlFlow()
+                        .addStatement("int _length = $L.length()", name)
+                        .beginControlFlow("if (_length > $L)", slot.lengthName())
+                        .addStatement("throw new $T($S + $L + $S + _length)", IllegalArgumentException.class, name + " is limited to ", slot.lengthName(), " characters but has ")
+                        .endControlFlow()
+                        .addStatement("_buffer.putInt(_offset, _length)")
+                        .beginControlFlow("for (int _i = 0; _i < _length; ++_i)")
+                        .addStatement("_buffer.putChar(_offset + $T.BYTES + (_i * $T.BYTES), $L.charAt(_i))", Integer.class, Character.class, name)
+                        .endControlFlow();
+                break;
+
+            default:
+                getterBuilder.addStatement("return _buffer.get$L(_base + $L)", slot.kind.capitalizedName(), slot.offsetName());
+                setterBuilder.addStatement("_buffer.put$L(_base + $L, $L)", slot.kind.capitalizedName(), slot.offsetName(), name);
+                break;
+        }
+        classBuilder.addMethod(getterBuilder.build());
+        classBuilder.addMethod(setterBuilder.addStatement("return this").build());
+    }
+
+    private void addRecordMethods(TypeSpec.Builder classBuilder, ClassType classType) {
+        var metaData = processor.metaData();
+        var toRecord = CodeBlock.builder().add("return $T.$L()", processor.builderClassType().typeName(), metaData.builderMethodName());
+        var fromRecord = CodeBlock.builder();
+        slots.forEach(slot -> {
+            toRecord.add("\n.$L($L())", slot.component.name(), slot.component.name());
+            fromRecord.addStatement("$L(record.$L())", slot.component.name(), slot.component.name());
+        });
+        toRecord.add("\n.$L()", metaData.buildMethodName());
+
+        classBuilder.addMethod(MethodSpec.methodBuilder("toRecord")
+                .addJavadoc("Return a new record instance with the values of the current record\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(recordType)
+                .addStatement(toRecord.build())
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("fromRecord")
+                .addJavadoc("Write the values of the given record to the current record\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "record")
+                .returns(classType.typeName())
+                .addCode(fromRecord.build())
+                .addStatement("return this")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("get")
+                .addJavadoc("Move to the given index and return a new record instance with its values\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "index")
+                .returns(recordType)
+                .addStatement("return at(index).toRecord()")
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("set")
+                .addJavadoc("Move to the given index and write the values of the given record\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "index")
+                .addParameter(recordType, "record")
+                .addStatement("at(index).fromRecord(record)")
+                .build());
+    }
+
+    private static int alignment(ComponentKind kind) {
+        return (kind == ComponentKind.OBJECT) ? Integer.BYTES : size(kind, 0);
+    }
+
+    private static int size(ComponentKind kind, int fixedLength) {
+        switch (kind) {
+            case BOOLEAN:
+            case BYTE:
+                return Byte.BYTES;
+
+            case SHORT:
+            case CHAR:
+                return Short.BYTES;
+
+            case INT:
+            case FLOAT:
+                return Integer.BYTES;
+
+            case LONG:
+            case DOUBLE:
+                return Long.BYTES;
+
+            default:
+                return Integer.BYTES + (fixedLength * Character.BYTES);
+        }
+    }
+
+    private static int align(int offset, int alignment) {
+        return ((offset + alignment - 1) / alignment) * alignment;
+    }
+
+    static String offsetName(String componentName) {
+        return constantName(componentName) + "_OFFSET";
+    }
+
+    static String lengthName(String componentName) {
+        return constantName(componentName) + "_LENGTH";
+    }
+
+    private static String constantName(String name) {
+        var constantName = new StringBuilder();
+        for (int index = 0; index < name.length(); ++index) {
+            char c = name.charAt(index);
+            if (Character.isUpperCase(c) && (index > 0)) {
+                constantName.append('_');
+            }
+            constantName.append(c);
+        }
+        return constantName.toString().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks every class generated from an Include annotation for the whole compilation. The same
+ * class can be reachable from several Include annotations (e.g. a package level Include plus a type level one).
+ * Duplicate requests are coalesced before any generation work is done and requests that would generate the same
+ * class from different included classes are reported. Including a class into several packages is allowed.
+ * Only strings are kept so that nothing depends on javac's elements from previous rounds.
+ */
+class GenerationRegistry {
+    private final Map<String, Generation> byTarget = new HashMap<>();
+
+    enum Status {
+        NEW,
+        DUPLICATE,
+        CONFLICT
+    }
+
+    static class Result {
+        private final Status status;
+        private final String message;
+
+        private Result(Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+
+        Status status() {
+            return status;
+        }
+
+        /**
+         * @return explanation of the conflict - only set for {@link Status#CONFLICT}
+         */
+        String message() {
+            return message;
+        }
+    }
+
+    private static class Generation {
+        private final String source;
+        private final String origin;
+
+        private Generation(String source, String origin) {
+            this.source = source;
+            this.origin = origin;
+        }
+    }
+
+    /**
+     * Register a generation request
+     *
+     * @param target fully qualified name of the class to generate
+     * @param source fully qualified name of the included class
+     * @param origin the element holding the Include annotation (used for diagnostics)
+     * @return result
+     */
+    Result register(String target, String source, String origin) {
+        Generation previousForTarget = byTarget.get(target);
+        if ( previousForTarget != null )
+        {
+            if ( previousForTarget.source.equals(source) )
+            {
+                return new Result(Status.DUPLICATE, null);
+            }
+            return new Result(Status.CONFLICT, String.format("%s would be generated for both %s (included by %s) and %s (included by %s)", target, previousForTarget.source, previousForTarget.origin, source, origin));
+        }
+        byTarget.put(target, new Generation(source, origin));
+        return new Result(Status.NEW, null);
+    }
+
+    void clear() {
+        byTarget.clear();
+    }
+}
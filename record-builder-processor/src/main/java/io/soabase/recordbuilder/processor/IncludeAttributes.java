@@ -0,0 +1,62 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.type.TypeMirror;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The parsed values of a {@code RecordBuilder.Include} or {@code RecordInterface.Include} annotation
+ */
+class IncludeAttributes {
+    private final List<TypeMirror> classes;
+    private final String packagePattern;
+    private final boolean addRecordBuilder;
+
+    private IncludeAttributes(List<TypeMirror> classes, String packagePattern, boolean addRecordBuilder) {
+        this.classes = classes;
+        this.packagePattern = packagePattern;
+        this.addRecordBuilder = addRecordBuilder;
+    }
+
+    static Optional<IncludeAttributes> parse(ProcessingEnvironment processingEnv, AnnotationMirror annotationMirror) {
+        var values = processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror);
+        var classes = ElementUtils.getAnnotationValue(values, "value");
+        if ( classes.isEmpty() )
+        {
+            return Optional.empty();
+        }
+        var packagePattern = ElementUtils.getStringAttribute(ElementUtils.getAnnotationValue(values, "packagePattern").orElse(null), "*");
+        // addRecordBuilder only exists for RecordInterface.Include
+        var addRecordBuilder = ElementUtils.getAnnotationValue(values, "addRecordBuilder").map(ElementUtils::getBooleanAttribute).orElse(true);
+        return Optional.of(new IncludeAttributes(ElementUtils.getClassesAttribute(classes.get()), packagePattern, addRecordBuilder));
+    }
+
+    List<TypeMirror> classes() {
+        return classes;
+    }
+
+    String packagePattern() {
+        return packagePattern;
+    }
+
+    boolean addRecordBuilder() {
+        return addRecordBuilder;
+    }
+}
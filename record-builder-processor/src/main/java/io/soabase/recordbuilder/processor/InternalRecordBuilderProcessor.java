@@ -15,6 +15,8 @@
  */
 package io.soabase.recordbuilder.processor;
 
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -24,16 +26,32 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import io.soabase.recordbuilder.core.ComponentVisitor;
+import io.soabase.recordbuilder.core.RecordBuilder;
 import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+import io.soabase.recordbuilder.core.RecordSchema;
 
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.RecordComponentElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
 
+import java.lang.invoke.MethodHandles;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -45,30 +63,90 @@ import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generate
 
 class InternalRecordBuilderProcessor
 {
+    private static final int MAX_INTERN_CACHE_ENTRIES = 65536;
+
     private final RecordBuilderMetaData metaData;
     private final ClassType recordClassType;
+    private final ClassName recordClassName;
     private final String packageName;
+    private final ClassName builderClassName;
     private final ClassType builderClassType;
     private final List<TypeVariableName> typeVariables;
     private final List<ClassType> recordComponents;
-    private final TypeSpec builderType;
+    private final List<TypeName> erasedComponentTypes;
     private final TypeSpec.Builder builder;
     private final String uniqueVarName;
+    private final String structuralSignature;
+    private final String companionBaseName;
+    private final boolean reusable;
+    private final boolean columns;
+    private final boolean flyweight;
+    private final List<Integer> fixedLengths;
+    private final Optional<List<CodeBlock>> componentCodecs;
+    private final Optional<List<CodeBlock>> componentJsons;
+    private final boolean interner;
+    private final int internCache;
+    private final boolean keyMap;
+    private final boolean set;
+    private final Optional<List<CodeBlock>> componentHashes;
+    private final List<ClassType> sortOrder;
+    private final RecordBuilderMetaData.UnknownMapKeyPolicy unknownMapKeyPolicy;
+    private final RecordBuilderMetaData.WitherEquality witherEquality;
+    private final boolean forEachComponent;
+    private final boolean schema;
+    private final boolean mapConversion;
 
-    InternalRecordBuilderProcessor(TypeElement record, RecordBuilderMetaData metaData, Optional<String> packageNameOpt)
+    /**
+     * Reads everything needed from the record element. Javac's elements are not thread safe so
+     * this must be called from the processor's thread. {@link #build()} does not access any elements.
+     */
+    InternalRecordBuilderProcessor(ProcessingSession session, TypeElement record, RecordBuilderMetaData metaData, Optional<String> packageNameOpt)
     {
         this.metaData = metaData;
-        recordClassType = ElementUtils.getClassType(record, record.getTypeParameters());
+        recordClassName = session.className(record);
+        recordClassType = ElementUtils.getClassType(recordClassName, record.getTypeParameters());
         packageName = packageNameOpt.orElseGet(() -> ElementUtils.getPackageName(record));
-        builderClassType = ElementUtils.getClassType(packageName, getBuilderName(record, metaData, recordClassType, metaData.suffix()), record.getTypeParameters());
+        builderClassName = session.className(packageName, getBuilderName(record, metaData, recordClassType, metaData.suffix()));
+        companionBaseName = getBuilderName(record, metaData, recordClassType, "");
+        builderClassType = ElementUtils.getClassType(builderClassName, record.getTypeParameters());
         typeVariables = record.getTypeParameters().stream().map(TypeVariableName::get).collect(Collectors.toList());
-        recordComponents = record.getRecordComponents().stream().map(ElementUtils::getClassType).collect(Collectors.toList());
+        recordComponents = record.getRecordComponents().stream().map(session::classType).collect(Collectors.toList());
+        var typeUtils = session.processingEnv().getTypeUtils();
+        erasedComponentTypes = record.getRecordComponents().stream().map(component -> TypeName.get(typeUtils.erasure(component.asType())).withoutAnnotations()).collect(Collectors.toList());
         uniqueVarName = getUniqueVarName();
+        structuralSignature = structuralSignature(record, packageNameOpt);
+        var recordBuilder = record.getAnnotation(RecordBuilder.class);
+        reusable = (recordBuilder != null) && recordBuilder.reusable();
+        columns = (recordBuilder != null) && recordBuilder.columns();
+        fixedLengths = record.getRecordComponents().stream().map(InternalRecordBuilderProcessor::fixedLength).collect(Collectors.toList());
+        flyweight = (recordBuilder != null) && recordBuilder.flyweight() && validateFlyweight(session, record);
+        componentCodecs = ((recordBuilder != null) && recordBuilder.codec()) ? CodecGenerator.resolveComponentCodecs(session, record, metaData) : Optional.empty();
+        componentJsons = ((recordBuilder != null) && recordBuilder.json()) ? JsonGenerator.resolveComponentJsons(session, record, metaData) : Optional.empty();
+        interner = (recordBuilder != null) && recordBuilder.interner() && validateNonGeneric(session, record, "interner");
+        internCache = ((recordBuilder != null) && (recordBuilder.internCache() > 0) && validateInternCache(session, record, recordBuilder.internCache())) ? recordBuilder.internCache() : 0;
+        keyMap = (recordBuilder != null) && recordBuilder.keyMap() && validateNonGeneric(session, record, "keyMap");
+        set = (recordBuilder != null) && recordBuilder.set() && validateNonGeneric(session, record, "set");
+        componentHashes = ((recordBuilder != null) && recordBuilder.stableHash()) ? StableHashGenerator.resolveComponentHashes(session, record, metaData) : Optional.empty();
+        sortOrder = ((recordBuilder != null) && (recordBuilder.sortOrder().length > 0)) ? resolveSortOrder(session, record, recordBuilder.sortOrder()) : List.of();
+        unknownMapKeyPolicy = (recordBuilder != null) ? resolveOverride(session, record, "unknownMapKeyPolicy", recordBuilder.unknownMapKeyPolicy(), metaData.unknownMapKeyPolicy()) : metaData.unknownMapKeyPolicy();
+        witherEquality = (recordBuilder != null) ? resolveOverride(session, record, "witherEquality", recordBuilder.witherEquality(), metaData.witherEquality()) : metaData.witherEquality();
+        forEachComponent = (recordBuilder != null) && recordBuilder.forEachComponent();
+        schema = (recordBuilder != null) && recordBuilder.schema();
+        mapConversion = (recordBuilder != null) && recordBuilder.mapConversion();
 
         builder = TypeSpec.classBuilder(builderClassType.name())
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(generatedRecordBuilderAnnotation)
                 .addTypeVariables(typeVariables);
+    }
+
+    /**
+     * Builds the builder type. Can be called from any thread but must only be called once.
+     *
+     * @return the builder type
+     */
+    TypeSpec build()
+    {
         addWithNestedClass();
         addDefaultConstructor();
         addStaticBuilder();
@@ -77,7 +155,27 @@ class InternalRecordBuilderProcessor
         }
         addStaticDefaultBuilderMethod();
         addStaticCopyBuilderMethod();
+        if (internCache > 0) {
+            addStaticOfMethod();
+        }
         addStaticComponentsMethod();
+        if (forEachComponent) {
+            addStaticForEachComponentMethod();
+        }
+        if (schema) {
+            addStaticSchemaMethod();
+        }
+        if (mapConversion) {
+            addStaticToMapMethod();
+            addStaticFromMapMethod();
+        }
+        componentHashes.ifPresent(hashes -> new StableHashGenerator(this, hashes).addMethods(builder));
+        if (!sortOrder.isEmpty()) {
+            new ComparatorGenerator(this, sortOrder).addMethods(builder);
+        }
+        if (reusable) {
+            addReusableMethods();
+        }
         addBuildMethod();
         addToStringMethod();
         addHashCodeMethod();
@@ -88,7 +186,36 @@ class InternalRecordBuilderProcessor
             add1GetterMethod(component);
         });
         addStaticDowncastMethod();
-        builderType = builder.build();
+        return builder.build();
+    }
+
+    /**
+     * Builds the optional companion types enabled via the attributes of {@code RecordBuilder}. Can be
+     * called from any thread.
+     *
+     * @return companion types - usually empty
+     */
+    List<TypeSpec> buildCompanions()
+    {
+        var companions = new ArrayList<TypeSpec>();
+        if (columns) {
+            companions.add(new ColumnsGenerator(this).generate());
+        }
+        if (flyweight) {
+            companions.add(new FlyweightGenerator(this).generate());
+        }
+        componentCodecs.ifPresent(codecs -> companions.add(new CodecGenerator(this, codecs).generate()));
+        componentJsons.ifPresent(jsons -> companions.add(new JsonGenerator(this, jsons).generate()));
+        if (interner) {
+            companions.add(new InternerGenerator(this).generate());
+        }
+        if (keyMap) {
+            companions.add(new KeyMapGenerator(this).generate());
+        }
+        if (set) {
+            companions.add(new SetGenerator(this).generate());
+        }
+        return companions;
     }
 
     String packageName()
@@ -96,14 +223,242 @@ class InternalRecordBuilderProcessor
         return packageName;
     }
 
+    RecordBuilderMetaData metaData()
+    {
+        return metaData;
+    }
+
+    ClassName recordClassName()
+    {
+        return recordClassName;
+    }
+
+    ClassType recordClassType()
+    {
+        return recordClassType;
+    }
+
+    List<TypeVariableName> typeVariables()
+    {
+        return typeVariables;
+    }
+
+    List<ClassType> recordComponents()
+    {
+        return recordComponents;
+    }
+
+    List<TypeName> erasedComponentTypes()
+    {
+        return erasedComponentTypes;
+    }
+
+    /**
+     * Return {@code RecordBuilder.unknownMapKeyPolicy()} if set or the meta data's policy otherwise
+     */
+    RecordBuilderMetaData.UnknownMapKeyPolicy unknownMapKeyPolicy()
+    {
+        return unknownMapKeyPolicy;
+    }
+
+    /**
+     * Return the value of {@code RecordBuilder.FixedLength} for each record component or -1 if the
+     * component isn't annotated
+     */
+    List<Integer> fixedLengths()
+    {
+        return fixedLengths;
+    }
+
+    ClassName builderClassName()
+    {
+        return builderClassName;
+    }
+
+    /**
+     * Return the per-record value of a {@code RecordBuilder} attribute that overrides a meta data setting or
+     * the meta data's value if the attribute isn't set
+     */
+    private static <T> T resolveOverride(ProcessingSession session, TypeElement record, String attribute, T[] values, T metaDataValue)
+    {
+        if (values.length == 0) {
+            return metaDataValue;
+        }
+        if (values.length > 1) {
+            session.processingEnv().getMessager().printMessage(Diagnostic.Kind.ERROR, attribute + "() can have at most one value", record);
+        }
+        return values[0];
+    }
+
+    private static int fixedLength(RecordComponentElement component)
+    {
+        var accessor = component.getAccessor();
+        var fixedLength = (accessor != null) ? accessor.getAnnotation(RecordBuilder.FixedLength.class) : null;
+        return (fixedLength != null) ? fixedLength.value() : -1;
+    }
+
+    private boolean validateFlyweight(ProcessingSession session, TypeElement record)
+    {
+        var messager = session.processingEnv().getMessager();
+        var isValid = true;
+        if (!typeVariables.isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "flyweight() is not supported for generic records", record);
+            isValid = false;
+        }
+        // generated constant names must be unique, e.g. "fooBar" and "foo_bar" both map to FOO_BAR_OFFSET
+        var constantNames = new HashSet<String>();
+        constantNames.add("BYTES");
+        for (int index = 0; index < recordComponents.size(); ++index) {
+            var component = recordComponents.get(index);
+            var fixedLength = fixedLengths.get(index);
+            var element = record.getRecordComponents().get(index);
+            var isString = !ComponentKind.of(component.typeName()).isPrimitive();
+            if (FlyweightGenerator.RESERVED_NAMES.contains(component.name())) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "flyweight() components can't be named any of " + new TreeSet<>(FlyweightGenerator.RESERVED_NAMES) + " as the generated flyweight has methods with these names", element);
+                isValid = false;
+            }
+            if (!constantNames.add(FlyweightGenerator.offsetName(component.name())) || (isString && !constantNames.add(FlyweightGenerator.lengthName(component.name())))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "flyweight() component name " + component.name() + " generates the same constant name as another component", element);
+                isValid = false;
+            }
+            if (!isString) {
+                continue;
+            }
+            if (!component.typeName().withoutAnnotations().equals(ClassName.get(String.class))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "flyweight() requires primitive components or Strings annotated with @RecordBuilder.FixedLength", element);
+                isValid = false;
+            } else if (fixedLength <= 0) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "String components of a flyweight() record must be annotated with a positive @RecordBuilder.FixedLength", element);
+                isValid = false;
+            }
+        }
+        return isValid;
+    }
+
+    private boolean validateNonGeneric(ProcessingSession session, TypeElement record, String attribute)
+    {
+        if (!typeVariables.isEmpty()) {
+            session.processingEnv().getMessager().printMessage(Diagnostic.Kind.ERROR, attribute + "() is not supported for generic records", record);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean validateInternCache(ProcessingSession session, TypeElement record, int range)
+    {
+        var messager = session.processingEnv().getMessager();
+        if (!typeVariables.isEmpty() || recordComponents.isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "internCache() requires a non-generic record with at least one component", record);
+            return false;
+        }
+        var isValid = true;
+        long entries = 1;
+        for (int index = 0; index < recordComponents.size(); ++index) {
+            var kind = ComponentKind.of(recordComponents.get(index).typeName());
+            var element = record.getRecordComponents().get(index);
+            if ((kind != ComponentKind.BYTE) && (kind != ComponentKind.SHORT) && (kind != ComponentKind.INT) && (kind != ComponentKind.LONG)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "internCache() requires byte, short, int or long components", element);
+                isValid = false;
+            } else if (((kind == ComponentKind.BYTE) && (range > Byte.MAX_VALUE)) || ((kind == ComponentKind.SHORT) && (range > Short.MAX_VALUE))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "internCache() is larger than the range of the component's type", element);
+                isValid = false;
+            }
+            entries = Math.min(entries * ((2L * range) + 1), MAX_INTERN_CACHE_ENTRIES + 1);
+        }
+        if (isValid && (entries > MAX_INTERN_CACHE_ENTRIES)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "internCache() would cache more than " + MAX_INTERN_CACHE_ENTRIES + " instances", record);
+            isValid = false;
+        }
+        return isValid;
+    }
+
+    private List<ClassType> resolveSortOrder(ProcessingSession session, TypeElement record, String[] names)
+    {
+        var messager = session.processingEnv().getMessager();
+        if (!validateNonGeneric(session, record, "sortOrder")) {
+            return List.of();
+        }
+        var typeUtils = session.processingEnv().getTypeUtils();
+        var comparableType = typeUtils.erasure(session.processingEnv().getElementUtils().getTypeElement(Comparable.class.getName()).asType());
+        var components = new ArrayList<ClassType>();
+        for (String name : names) {
+            var index = IntStream.range(0, recordComponents.size()).filter(i -> recordComponents.get(i).name().equals(name)).findFirst();
+            if (index.isEmpty()) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "sortOrder() names an unknown component: " + name, record);
+                return List.of();
+            }
+            var element = record.getRecordComponents().get(index.getAsInt());
+            if (!element.asType().getKind().isPrimitive() && !typeUtils.isAssignable(typeUtils.erasure(element.asType()), comparableType)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "sortOrder() components must be primitives or Comparable", element);
+                return List.of();
+            }
+            components.add(recordComponents.get(index.getAsInt()));
+        }
+        return components;
+    }
+
+    /**
+     * Return the class type for a companion, e.g. {@code MyRecordColumns<T>} for the suffix "Columns"
+     */
+    ClassType companionClassType(String suffix)
+    {
+        var className = ClassName.get(packageName, companionBaseName + suffix);
+        if (typeVariables.isEmpty()) {
+            return new ClassType(className, className.simpleName());
+        }
+        return new ClassType(ParameterizedTypeName.get(className, typeVariables.toArray(TypeName[]::new)), className.simpleName());
+    }
+
+    /**
+     * Describes everything about the record that goes into the generated builder and companions
+     */
+    String structuralSignature()
+    {
+        return structuralSignature;
+    }
+
     ClassType builderClassType()
     {
         return builderClassType;
     }
 
-    TypeSpec builderType()
+    /**
+     * Describes everything about the record that goes into the generated builder and companions. Only reads
+     * the elements so that the fingerprint cache can be checked without creating the processor.
+     */
+    static String structuralSignature(TypeElement record, Optional<String> packageNameOpt)
     {
-        return builderType;
+        var signature = new StringBuilder();
+        signature.append(packageNameOpt.orElseGet(() -> ElementUtils.getPackageName(record))).append('\n');
+        signature.append(record.getQualifiedName()).append('\n');
+        record.getTypeParameters().forEach(typeParameter -> signature.append(typeParameter).append(typeParameter.getBounds()).append('\n'));
+        record.getRecordComponents().forEach(component -> {
+            signature.append(component.asType()).append(' ').append(component.getSimpleName());
+            // e.g. @RecordBuilder.FixedLength
+            signature.append(component.getAnnotationMirrors());
+            if (component.getAccessor() != null) {
+                signature.append(component.getAccessor().getAnnotationMirrors());
+            }
+            // what's generated for a component can depend on the annotations of the records it references (e.g. codec = true)
+            appendReferencedAnnotations(signature, component.asType());
+            signature.append('\n');
+        });
+        // annotation values on the record can change what's generated
+        signature.append(record.getAnnotationMirrors());
+        return signature.toString();
+    }
+
+    private static void appendReferencedAnnotations(StringBuilder signature, TypeMirror type)
+    {
+        if (type.getKind() == TypeKind.ARRAY) {
+            appendReferencedAnnotations(signature, ((ArrayType)type).getComponentType());
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            var declaredType = (DeclaredType)type;
+            signature.append(declaredType.asElement().getAnnotationMirrors());
+            declaredType.getTypeArguments().forEach(typeArgument -> appendReferencedAnnotations(signature, typeArgument));
+        } else if ((type.getKind() == TypeKind.WILDCARD) && (((WildcardType)type).getExtendsBound() != null)) {
+            appendReferencedAnnotations(signature, ((WildcardType)type).getExtendsBound());
+        }
     }
 
     private void addWithNestedClass()
@@ -137,19 +492,31 @@ class InternalRecordBuilderProcessor
                 MyRecord r = (MyRecord)(Object)this;
                 MyRecordBuilder builder MyRecordBuilder.builder(r);
                 consumer.accept(builder);
+                // only when witherEquality() isn't NONE
+                if ((builder.p1() == r.p1()) && (builder.p2() == r.p2())) {
+                    return r;
+                }
                 return builder.build();
             }
          */
         var codeBlockBuilder = CodeBlock.builder()
                 .add("$T $L = $L(this);\n", recordClassType.typeName(), uniqueVarName, metaData.downCastMethodName())
                 .add("$T builder = $L.$L($L);\n", builderClassType.typeName(), builderClassType.name(), metaData.copyMethodName(), uniqueVarName)
-                .add("consumer.accept(builder);\n")
-                .add("return builder.build();\n");
+                .add("consumer.accept(builder);\n");
+        if ((witherEquality != RecordBuilderMetaData.WitherEquality.NONE) && !recordComponents.isEmpty()) {
+            var unchanged = recordComponents.stream()
+                    .map(component -> unchangedCheck(component, CodeBlock.of("builder.$L()", component.name())))
+                    .collect(CodeBlock.joining(" && "));
+            codeBlockBuilder.beginControlFlow("if ($L)", unchanged)
+                    .add("return $L;\n", uniqueVarName)
+                    .endControlFlow();
+        }
+        codeBlockBuilder.add("return builder.build();\n");
         var consumerType = ParameterizedTypeName.get(ClassName.get(Consumer.class), builderClassType.typeName());
         var parameter = ParameterSpec.builder(consumerType, "consumer").build();
         var methodSpec = MethodSpec.methodBuilder(metaData.withClassMethodPrefix())
                 .addAnnotation(generatedRecordBuilderAnnotation)
-                .addJavadoc("Return a new record built from the builder passed to the given consumer")
+                .addJavadoc((witherEquality != RecordBuilderMetaData.WitherEquality.NONE) ? "Return a new record built from the builder passed to the given consumer or this record if the consumer didn't change any values" : "Return a new record built from the builder passed to the given consumer")
                 .addModifiers(Modifier.PUBLIC, Modifier.DEFAULT)
                 .addParameter(parameter)
                 .returns(recordClassType.typeName())
@@ -186,6 +553,14 @@ class InternalRecordBuilderProcessor
         return getUniqueVarName("");
     }
 
+    /**
+     * Returns the given name of a generated member or local, prefixed with {@code _} until it doesn't clash with a component name
+     */
+    String uniqueName(String name)
+    {
+        return ComponentCodeBlocks.uniqueName(recordComponents, name);
+    }
+
     private String getUniqueVarName(String prefix)
     {
         var name = prefix + "r";
@@ -202,13 +577,23 @@ class InternalRecordBuilderProcessor
 
             default MyRecord withName(String name) {
                 MyRecord r = (MyRecord)(Object)this;
+                // only when witherEquality() isn't NONE
+                if (name == r.name()) {
+                    return r;
+                }
                 return new MyRecord(name, r.age());
             }
          */
+        var checkUnchanged = witherEquality != RecordBuilderMetaData.WitherEquality.NONE;
         var codeBlockBuilder = CodeBlock.builder();
-        if (recordComponents.size() > 1) {
+        if ((recordComponents.size() > 1) || checkUnchanged) {
             codeBlockBuilder.add("$T $L = $L(this);\n", recordClassType.typeName(), uniqueVarName, metaData.downCastMethodName());
         }
+        if (checkUnchanged) {
+            codeBlockBuilder.beginControlFlow("if ($L)", unchangedCheck(component, CodeBlock.of("$L", component.name())))
+                    .add("return $L;\n", uniqueVarName)
+                    .endControlFlow();
+        }
         codeBlockBuilder.add("return new $T(", recordClassType.typeName());
         IntStream.range(0, recordComponents.size()).forEach(parameterIndex -> {
             if (parameterIndex > 0) {
@@ -228,7 +613,7 @@ class InternalRecordBuilderProcessor
         var parameterSpec = ParameterSpec.builder(component.typeName(), component.name()).build();
         var methodSpec = MethodSpec.methodBuilder(methodName)
                 .addAnnotation(generatedRecordBuilderAnnotation)
-                .addJavadoc("Return a new instance of {@code $L} with a new value for {@code $L}\n", recordClassType.name(), component.name())
+                .addJavadoc(checkUnchanged ? "Return a new instance of {@code $L} with a new value for {@code $L} or this instance if the value is unchanged\n" : "Return a new instance of {@code $L} with a new value for {@code $L}\n", recordClassType.name(), component.name())
                 .addModifiers(Modifier.PUBLIC, Modifier.DEFAULT)
                 .addParameter(parameterSpec)
                 .addCode(codeBlockBuilder.build())
@@ -237,6 +622,28 @@ class InternalRecordBuilderProcessor
         classBuilder.addMethod(methodSpec);
     }
 
+    private CodeBlock unchangedCheck(ClassType component, CodeBlock value)
+    {
+        // compares the new value with the current record's value per witherEquality
+        var current = CodeBlock.of("$L.$L()", uniqueVarName, component.name());
+        switch (ComponentKind.of(component.typeName())) {
+            case FLOAT:
+                return CodeBlock.of("($T.floatToRawIntBits($L) == $T.floatToRawIntBits($L))", Float.class, value, Float.class, current);
+
+            case DOUBLE:
+                return CodeBlock.of("($T.doubleToRawLongBits($L) == $T.doubleToRawLongBits($L))", Double.class, value, Double.class, current);
+
+            case OBJECT:
+                if (witherEquality == RecordBuilderMetaData.WitherEquality.EQUALS) {
+                    return CodeBlock.of("$T.equals($L, $L)", Objects.class, value, current);
+                }
+                return CodeBlock.of("($L == $L)", value, current);
+
+            default:
+                return CodeBlock.of("($L == $L)", value, current);
+        }
+    }
+
     private void addDefaultConstructor()
     {
         /*
@@ -401,14 +808,23 @@ class InternalRecordBuilderProcessor
             }
          */
         CodeBlock codeBlock = buildCodeBlock();
-        var methodSpec = MethodSpec.methodBuilder(metaData.buildMethodName())
+        var methodBuilder = MethodSpec.methodBuilder(metaData.buildMethodName())
                 .addJavadoc("Return a new record instance with all fields set to the current values in this builder\n")
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(generatedRecordBuilderAnnotation)
-                .returns(recordClassType.typeName())
-                .addStatement(codeBlock)
-                .build();
-        builder.addMethod(methodSpec);
+                .returns(recordClassType.typeName());
+        if (reusable) {
+            methodBuilder.addStatement("assert $L()", uniqueName("_release"));
+            var referenceComponents = recordComponents.stream().filter(component -> !component.typeName().isPrimitive()).collect(Collectors.toList());
+            if (!referenceComponents.isEmpty()) {
+                // the thread's builder must not keep the record's components reachable until local() is called again
+                methodBuilder.beginControlFlow("try").addStatement(codeBlock).nextControlFlow("finally").beginControlFlow("if ($L)", uniqueName("_local"));
+                referenceComponents.forEach(component -> methodBuilder.addStatement("this.$L = null", component.name()));
+                builder.addMethod(methodBuilder.endControlFlow().endControlFlow().build());
+                return;
+            }
+        }
+        builder.addMethod(methodBuilder.addStatement(codeBlock).build());
     }
 
     private CodeBlock buildCodeBlock() {
@@ -477,6 +893,91 @@ class InternalRecordBuilderProcessor
         builder.addMethod(methodSpec);
     }
 
+    private void addStaticOfMethod()
+    {
+        /*
+            Adds a static factory that returns cached instances for small component values (similar to Integer.valueOf()).
+            The cache is created when first used via a nested holder class similar to:
+
+            private static final class _InternCache {
+                static final MyRecord[] VALUES = new MyRecord[81];
+
+                static {
+                    for (int i = 0; i < VALUES.length; ++i) {
+                        VALUES[i] = new MyRecord((int)(((i / 9) % 9) - 4), (int)((i % 9) - 4));
+                    }
+                }
+            }
+
+            public static MyRecord of(int x, int y) {
+                if ((x >= -4) && (x <= 4) && (y >= -4) && (y <= 4)) {
+                    return _InternCache.VALUES[((int)(x + 4) * 9) + (int)(y + 4)];
+                }
+                return new MyRecord(x, y);
+            }
+
+            If the interner is enabled the cached instances are the interned ones and other values are interned
+         */
+        var width = (2 * internCache) + 1;
+        var recordType = recordClassType.typeName();
+        var strides = new int[recordComponents.size()];
+        var entries = 1;
+        for (int index = recordComponents.size() - 1; index >= 0; --index) {
+            strides[index] = entries;
+            entries *= width;
+        }
+
+        var rangeCheck = CodeBlock.builder();
+        var cacheIndex = CodeBlock.builder();
+        var cachedArguments = CodeBlock.builder();
+        for (int index = 0; index < recordComponents.size(); ++index) {
+            var name = recordComponents.get(index).name();
+            var separator = (index > 0) ? " && " : "";
+            rangeCheck.add("$L($L >= -$L) && ($L <= $L)", separator, name, internCache, name, internCache);
+            if (strides[index] == 1) {
+                cacheIndex.add("$L(int)($L + $L)", (index > 0) ? " + " : "", name, internCache);
+                cachedArguments.add("$L($T)((i % $L) - $L)", (index > 0) ? ", " : "", recordComponents.get(index).typeName(), width, internCache);
+            } else {
+                cacheIndex.add("$L((int)($L + $L) * $L)", (index > 0) ? " + " : "", name, internCache, strides[index]);
+                cachedArguments.add("$L($T)(((i / $L) % $L) - $L)", (index > 0) ? ", " : "", recordComponents.get(index).typeName(), strides[index], width, internCache);
+            }
+        }
+
+        CodeBlock cachedValue;
+        CodeBlock uncachedValue;
+        if (interner) {
+            var internerType = companionClassType(metaData.internerSuffix()).typeName();
+            cachedValue = CodeBlock.of("$T.intern($L)", internerType, cachedArguments.build());
+            uncachedValue = CodeBlock.of("$T.intern($L)", internerType, ComponentCodeBlocks.arguments(recordComponents, null));
+        } else {
+            cachedValue = CodeBlock.of("new $T($L)", recordType, cachedArguments.build());
+            uncachedValue = CodeBlock.of("new $T($L)", recordType, ComponentCodeBlocks.arguments(recordComponents, null));
+        }
+
+        var holderBuilder = TypeSpec.classBuilder("_InternCache")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addField(FieldSpec.builder(ArrayTypeName.of(recordType), "VALUES", Modifier.STATIC, Modifier.FINAL).initializer("new $T[$L]", recordType, entries).build())
+                .addStaticBlock(CodeBlock.builder()
+                        .beginControlFlow("for (int i = 0; i < VALUES.length; ++i)")
+                        .addStatement("VALUES[i] = $L", cachedValue)
+                        .endControlFlow()
+                        .build());
+        var methodBuilder = MethodSpec.methodBuilder(metaData.ofMethodName())
+                .addJavadoc("Return a {@code $L} for the given component values. Instances where every component is\n", recordClassType.name())
+                .addJavadoc("within {@code [-$L, $L]} are cached and always the same.\n", internCache, internCache)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(recordType);
+        recordComponents.forEach(component -> methodBuilder.addParameter(component.typeName(), component.name()));
+        methodBuilder.beginControlFlow("if ($L)", rangeCheck.build())
+                .addStatement("return _InternCache.VALUES[$L]", cacheIndex.build())
+                .endControlFlow()
+                .addStatement("return $L", uncachedValue);
+        builder.addType(holderBuilder.build());
+        builder.addMethod(methodBuilder.build());
+    }
+
     private void addStaticComponentsMethod()
     {
         /*
@@ -512,26 +1013,331 @@ class InternalRecordBuilderProcessor
         builder.addMethod(methodSpec);
     }
 
+    private void addStaticForEachComponentMethod()
+    {
+        /*
+            Adds a static method that passes each record component to a visitor without allocating or boxing similar to:
+
+            public static void forEachComponent(MyRecord record, ComponentVisitor visitor) {
+                visitor.visitInt("p1", record.p1());
+                visitor.visitObject("p2", record.p2());
+            }
+         */
+        var methodBuilder = MethodSpec.methodBuilder(metaData.forEachComponentMethodName())
+                .addJavadoc("Pass each record component to the visitor using the callback that matches the component type. Primitives are not boxed.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(typeVariables)
+                .addParameter(recordClassType.typeName(), "record")
+                .addParameter(ComponentVisitor.class, "visitor");
+        recordComponents.forEach(component -> {
+            var kind = ComponentKind.of(component.typeName());
+            methodBuilder.addStatement("visitor.visit$L($S, record.$L())", kind.capitalizedName(), component.name(), component.name());
+        });
+        builder.addMethod(methodBuilder.build());
+    }
+
+    private void addStaticSchemaMethod()
+    {
+        /*
+            Adds a static method that returns the record's schema. The schema is created when first used via a nested holder class similar to:
+
+            private static final class _SchemaHolder {
+                static final RecordSchema<MyRecord> SCHEMA = RecordSchema.builder(MyRecord.class, MethodHandles.lookup())
+                    .component("p1", int.class, RecordSchema.Kind.INT, MyRecord::p1)
+                    .component("p2", String.class, RecordSchema.Kind.OBJECT, MyRecord::p2)
+                    .build(args -> new MyRecord((int)args[0], (String)args[1]));
+            }
+
+            public static RecordSchema<MyRecord> schema() {
+                return _SchemaHolder.SCHEMA;
+            }
+         */
+        var schemaType = ParameterizedTypeName.get(ClassName.get(RecordSchema.class), recordClassName);
+        var codeBuilder = CodeBlock.builder()
+                .add("$T.builder($T.class, $T.lookup())", RecordSchema.class, recordClassName, MethodHandles.class)
+                .indent();
+        IntStream.range(0, recordComponents.size()).forEach(index -> {
+            var component = recordComponents.get(index);
+            var kind = ComponentKind.of(component.typeName());
+            codeBuilder.add("\n.component($S, $T.class, $T.$L, $T::$L)", component.name(), erasedComponentTypes.get(index), RecordSchema.Kind.class, kind.name(), recordClassName, component.name());
+        });
+        codeBuilder.add("\n.build(args -> new $T(", recordClassName);
+        IntStream.range(0, recordComponents.size()).forEach(index -> {
+            if (index > 0) {
+                codeBuilder.add(", ");
+            }
+            codeBuilder.add("($T)args[$L]", erasedComponentTypes.get(index), index);
+        });
+        codeBuilder.add("))").unindent();
+
+        var holderBuilder = TypeSpec.classBuilder("_SchemaHolder")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addField(FieldSpec.builder(schemaType, "SCHEMA", Modifier.STATIC, Modifier.FINAL).initializer(codeBuilder.build()).build());
+        var methodBuilder = MethodSpec.methodBuilder(metaData.schemaMethodName())
+                .addJavadoc("Return the schema of the record: its component names, types, accessors and a canonical constructor factory\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(schemaType)
+                .addStatement("return _SchemaHolder.SCHEMA");
+        if (!typeVariables.isEmpty()) {
+            // the schema uses the raw record type
+            var suppressWarnings = AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "{$S, $S}", "rawtypes", "unchecked").build();
+            holderBuilder.addAnnotation(suppressWarnings);
+            methodBuilder.addAnnotation(suppressWarnings);
+        }
+        builder.addType(holderBuilder.build());
+        builder.addMethod(methodBuilder.build());
+    }
+
+    private void addStaticToMapMethod()
+    {
+        /*
+            Adds a static method that converts a record into a map sized for the number of components similar to:
+
+            public static Map<String, Object> toMap(MyRecord record) {
+                Map<String, Object> map = new LinkedHashMap<>(3);
+                map.put("p1", record.p1());
+                map.put("p2", record.p2());
+                return map;
+            }
+         */
+        // capacity such that the map never needs to resize with the default load factor
+        int capacity = (int)Math.ceil(recordComponents.size() / 0.75);
+        var mapType = ParameterizedTypeName.get(Map.class, String.class, Object.class);
+        var methodBuilder = MethodSpec.methodBuilder(metaData.toMapMethodName())
+                .addJavadoc("Return a new map of the record components keyed by component name. The map's iteration order is the component order.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(typeVariables)
+                .addParameter(recordClassType.typeName(), "record")
+                .returns(mapType)
+                .addStatement("$T map = new $T<>($L)", mapType, LinkedHashMap.class, capacity);
+        recordComponents.forEach(component -> methodBuilder.addStatement("map.put($S, record.$L())", component.name(), component.name()));
+        methodBuilder.addStatement("return map");
+        builder.addMethod(methodBuilder.build());
+    }
+
+    private void addStaticFromMapMethod()
+    {
+        /*
+            Adds a static method that creates a builder from a map of component names to values similar to:
+
+            public static MyRecordBuilder fromMap(Map<String, ?> map) {
+                MyRecordBuilder builder = new MyRecordBuilder();
+                for (Map.Entry<String, ?> entry : map.entrySet()) {
+                    Object value = entry.getValue();
+                    switch (entry.getKey()) {
+                        case "p1":
+                            if (!(value instanceof Integer)) {
+                                throw new IllegalArgumentException(...);    // null or the wrong type
+                            }
+                            builder.p1 = (int)value;
+                            break;
+                        case "p2":
+                            if ((value != null) && !(value instanceof String)) {
+                                throw new IllegalArgumentException(...);
+                            }
+                            builder.p2 = (String)value;
+                            break;
+                        default: throw new IllegalArgumentException(...);     // only for UnknownMapKeyPolicy.FAIL
+                    }
+                }
+                return builder;
+            }
+         */
+        var mapType = ParameterizedTypeName.get(ClassName.get(Map.class), ClassName.get(String.class), WildcardTypeName.subtypeOf(Object.class));
+        var entryType = ParameterizedTypeName.get(ClassName.get(Map.Entry.class), ClassName.get(String.class), WildcardTypeName.subtypeOf(Object.class));
+        var codeBuilder = CodeBlock.builder()
+                .addStatement("$T builder = new $T()", builderClassType.typeName(), builderClassType.typeName())
+                .beginControlFlow("for ($T entry : map.entrySet())", entryType)
+                .addStatement("Object value = entry.getValue()")
+                .beginControlFlow("switch (entry.getKey())");
+        for (int index = 0; index < recordComponents.size(); ++index) {
+            var component = recordComponents.get(index);
+            var erasedType = erasedComponentTypes.get(index);
+            codeBuilder.add("case $S:\n", component.name()).indent();
+            // report nulls for primitives and values of the wrong type as IllegalArgumentException instead of an NPE/ClassCastException from the cast
+            var message = CodeBlock.of("$S + ((value == null) ? null : value.getClass().getName())", "Invalid value for " + recordClassType.name() + "." + component.name() + " of type " + erasedType + ": ");
+            if (erasedType.isPrimitive()) {
+                codeBuilder.beginControlFlow("if (!(value instanceof $T))", erasedType.box())
+                        .addStatement("throw new $T($L)", IllegalArgumentException.class, message)
+                        .endControlFlow();
+            } else if (!erasedType.equals(TypeName.OBJECT)) {
+                codeBuilder.beginControlFlow("if ((value != null) && !(value instanceof $T))", erasedType)
+                        .addStatement("throw new $T($L)", IllegalArgumentException.class, message)
+                        .endControlFlow();
+            }
+            codeBuilder.addStatement("builder.$L = ($T)value", component.name(), component.typeName().withoutAnnotations())
+                    .addStatement("break")
+                    .unindent();
+        }
+        if (unknownMapKeyPolicy == RecordBuilderMetaData.UnknownMapKeyPolicy.FAIL) {
+            codeBuilder.addStatement("default: throw new $T(\"Unknown component for $L: \" + entry.getKey())", IllegalArgumentException.class, recordClassType.name());
+        }
+        codeBuilder.endControlFlow()
+                .endControlFlow()
+                .addStatement("return builder");
+
+        var methodBuilder = MethodSpec.methodBuilder(metaData.fromMapMethodName())
+                .addJavadoc("Return a new builder with the components set from the given map of component names to values\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(typeVariables)
+                .addParameter(mapType, "map")
+                .returns(builderClassType.typeName())
+                .addCode(codeBuilder.build());
+        if (recordComponents.stream().anyMatch(component -> isUncheckedCast(component.typeName()))) {
+            methodBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        }
+        builder.addMethod(methodBuilder.build());
+    }
+
+    static boolean isUncheckedCast(TypeName typeName)
+    {
+        if (typeName instanceof ArrayTypeName) {
+            return isUncheckedCast(((ArrayTypeName)typeName).componentType);
+        }
+        return (typeName instanceof ParameterizedTypeName) || (typeName instanceof TypeVariableName);
+    }
+
+    private void addReusableMethods()
+    {
+        /*
+            Adds a reset method and a per-thread builder similar to:
+
+            private static final ThreadLocal<MyRecordBuilder> _LOCAL = ThreadLocal.withInitial(MyRecordBuilder::new);
+
+            private boolean _inUse;
+
+            private boolean _local;
+
+            public MyRecordBuilder reset() {
+                assert _release();
+                return _clear();
+            }
+
+            public static MyRecordBuilder local() {
+                MyRecordBuilder builder = _LOCAL.get();
+                assert builder._acquire();
+                builder._local = true;
+                return builder._clear();
+            }
+
+            private MyRecordBuilder _clear() {
+                this.p1 = 0;
+                this.p2 = null;
+                return this;
+            }
+
+            private boolean _acquire() {
+                if (_inUse) {
+                    throw new IllegalStateException(...);
+                }
+                _inUse = true;
+                return true;
+            }
+
+            private boolean _release() {
+                _inUse = false;
+                return true;
+            }
+
+            The _inUse guards are only active when assertions are enabled. build() clears the reference
+            components of _local builders. All of these names are prefixed with "_" if they clash with a component.
+         */
+        String localFieldName = uniqueName("_LOCAL");
+        String inUseName = uniqueName("_inUse");
+        String localName = uniqueName("_local");
+        String clearName = uniqueName("_clear");
+        String acquireName = uniqueName("_acquire");
+        String releaseName = uniqueName("_release");
+
+        var localBuilderType = typeVariables.isEmpty() ? builderClassName : ParameterizedTypeName.get(builderClassName, typeVariables.stream().map(typeVariable -> WildcardTypeName.subtypeOf(Object.class)).toArray(TypeName[]::new));
+        builder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(ThreadLocal.class), localBuilderType), localFieldName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$T.withInitial($T::new)", ThreadLocal.class, builderClassName)
+                .build());
+        builder.addField(FieldSpec.builder(TypeName.BOOLEAN, inUseName, Modifier.PRIVATE).build());
+        builder.addField(FieldSpec.builder(TypeName.BOOLEAN, localName, Modifier.PRIVATE).build());
+
+        builder.addMethod(MethodSpec.methodBuilder(metaData.resetMethodName())
+                .addJavadoc("Reset all record components in this builder to default Java values. This also releases the builder returned\n"
+                        + "by {@code $L()} so call it (e.g. in a {@code finally} block) if {@code $L()} might not be reached.\n", metaData.localMethodName(), metaData.buildMethodName())
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(builderClassType.typeName())
+                .addStatement("assert $L()", releaseName)
+                .addStatement("return $L()", clearName)
+                .build());
+
+        // local() must not release the builder so it can't use reset()
+        var clearBuilder = MethodSpec.methodBuilder(clearName)
+                .addModifiers(Modifier.PRIVATE)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(builderClassType.typeName());
+        recordComponents.forEach(component -> clearBuilder.addStatement("this.$L = $L", component.name(), ComponentKind.of(component.typeName()).defaultValue()));
+        builder.addMethod(clearBuilder.addStatement("return this").build());
+
+        var localBuilder = MethodSpec.methodBuilder(metaData.localMethodName())
+                .addJavadoc("Return this thread's reusable builder reset to default Java values. Do not keep a reference to the builder\n"
+                        + "after calling {@code $L()}. {@code $L()} clears the builder's non-primitive components so that the thread\n"
+                        + "doesn't keep them reachable. When assertions are enabled, calling this again before {@code $L()} or {@code $L()}\n"
+                        + "is called on the previous builder fails.\n", metaData.buildMethodName(), metaData.buildMethodName(), metaData.buildMethodName(), metaData.resetMethodName())
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(typeVariables)
+                .returns(builderClassType.typeName());
+        if (typeVariables.isEmpty()) {
+            localBuilder.addStatement("$T builder = $L.get()", builderClassType.typeName(), localFieldName);
+        } else {
+            // the builder is reset so it's safe to re-type it
+            localBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+                    .addStatement("$T builder = ($T)$L.get()", builderClassType.typeName(), builderClassType.typeName(), localFieldName);
+        }
+        builder.addMethod(localBuilder
+                .addStatement("assert builder.$L()", acquireName)
+                .addStatement("builder.$L = true", localName)
+                .addStatement("return builder.$L()", clearName)
+                .build());
+
+        builder.addMethod(MethodSpec.methodBuilder(acquireName)
+                .addModifiers(Modifier.PRIVATE)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(TypeName.BOOLEAN)
+                .beginControlFlow("if ($L)", inUseName)
+                .addStatement("throw new $T($S)", IllegalStateException.class, builderClassType.name() + "." + metaData.localMethodName() + "() called again before " + metaData.buildMethodName() + "() or " + metaData.resetMethodName() + "() was called on the previous builder")
+                .endControlFlow()
+                .addStatement("$L = true", inUseName)
+                .addStatement("return true")
+                .build());
+        builder.addMethod(MethodSpec.methodBuilder(releaseName)
+                .addModifiers(Modifier.PRIVATE)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .returns(TypeName.BOOLEAN)
+                .addStatement("$L = false", inUseName)
+                .addStatement("return true")
+                .build());
+    }
+
     private void addStaticDowncastMethod()
     {
         /*
-            Adds a method that downcasts to the record type
+            Adds a method that downcasts to the record type. It uses instanceof rather than catching
+            ClassCastException so that the method stays tiny and is always inlined into the withers
 
-            private static MyRecord _downcast(Object this) {
-                return (MyRecord)this;
+            private static MyRecord _downcast(Object obj) {
+                if (obj instanceof MyRecord) {
+                    return (MyRecord)obj;
+                }
+                throw new RuntimeException("MyRecordBuilder.With can only be implemented for MyRecord");
             }
          */
         var codeBlockBuilder = CodeBlock.builder()
-            .add("try {\n")
-            .indent()
-            .add("return ($T)obj;\n", recordClassType.typeName())
-            .unindent()
-            .add("}\n")
-            .add("catch (ClassCastException dummy) {\n")
-            .indent()
-            .add("throw new RuntimeException($S);\n", builderClassType.name() + "." + metaData.withClassName() + " can only be implemented for " + recordClassType.name())
-            .unindent()
-            .add("}");
+            .beginControlFlow("if (obj instanceof $T)", recordClassName)
+            .addStatement("return ($T)obj", recordClassType.typeName())
+            .endControlFlow()
+            .addStatement("throw new RuntimeException($S)", builderClassType.name() + "." + metaData.withClassName() + " can only be implemented for " + recordClassType.name());
         var methodSpec = MethodSpec.methodBuilder(metaData.downCastMethodName())
             .addAnnotation(generatedRecordBuilderAnnotation)
             .addJavadoc("Downcast to {@code $L}\n", recordClassType.name())
@@ -539,9 +1345,11 @@ class InternalRecordBuilderProcessor
             .addParameter(Object.class, "obj")
             .addTypeVariables(typeVariables)
             .returns(recordClassType.typeName())
-            .addCode(codeBlockBuilder.build())
-            .build();
-        builder.addMethod(methodSpec);
+            .addCode(codeBlockBuilder.build());
+        if (!typeVariables.isEmpty()) {
+            methodSpec.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        }
+        builder.addMethod(methodSpec.build());
     }
 
     private void add1Field(ClassType component)
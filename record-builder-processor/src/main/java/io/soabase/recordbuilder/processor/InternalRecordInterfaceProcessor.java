@@ -15,10 +15,8 @@
  */
 package io.soabase.recordbuilder.processor;
 
-import com.squareup.javapoet.ClassName;
-import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.ParameterSpec;
-import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeVariableName;
 import io.soabase.recordbuilder.core.IgnoreDefaultMethod;
 import io.soabase.recordbuilder.core.RecordBuilder;
@@ -37,8 +35,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static io.soabase.recordbuilder.processor.ElementUtils.getBuilderName;
@@ -47,39 +43,33 @@ import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generate
 class InternalRecordInterfaceProcessor {
     private final ProcessingEnvironment processingEnv;
     private final String packageName;
-    private final TypeSpec recordType;
+    private final RecordEmitter recordEmitter;
     private final List<ExecutableElement> recordComponents;
-    private final TypeElement iface;
     private final ClassType recordClassType;
 
-    private static final String FAKE_METHOD_NAME = "__FAKE__";
-
-    InternalRecordInterfaceProcessor(ProcessingEnvironment processingEnv, TypeElement iface, boolean addRecordBuilder, RecordBuilderMetaData metaData, Optional<String> packageNameOpt) {
-        this.processingEnv = processingEnv;
+    InternalRecordInterfaceProcessor(ProcessingSession session, TypeElement iface, boolean addRecordBuilder, RecordBuilderMetaData metaData, Optional<String> packageNameOpt) {
+        this.processingEnv = session.processingEnv();
         packageName = packageNameOpt.orElseGet(() -> ElementUtils.getPackageName(iface));
         recordComponents = getRecordComponents(iface);
-        this.iface = iface;
 
-        ClassType ifaceClassType = ElementUtils.getClassType(iface, iface.getTypeParameters());
-        recordClassType = ElementUtils.getClassType(packageName, getBuilderName(iface, metaData, ifaceClassType, metaData.interfaceSuffix()), iface.getTypeParameters());
+        ClassType ifaceClassType = ElementUtils.getClassType(session.className(iface), iface.getTypeParameters());
+        recordClassType = ElementUtils.getClassType(session.className(packageName, getBuilderName(iface, metaData, ifaceClassType, metaData.interfaceSuffix())), iface.getTypeParameters());
         List<TypeVariableName> typeVariables = iface.getTypeParameters().stream().map(TypeVariableName::get).collect(Collectors.toList());
 
-        MethodSpec methodSpec = generateArgumentList();
-
-        TypeSpec.Builder builder = TypeSpec.classBuilder(recordClassType.name())
-                .addSuperinterface(iface.asType())
-                .addMethod(methodSpec)
-                .addModifiers(Modifier.PUBLIC)
-                .addAnnotation(generatedRecordInterfaceAnnotation)
-                .addTypeVariables(typeVariables);
-
+        List<AnnotationSpec> annotations = new ArrayList<>();
+        annotations.add(generatedRecordInterfaceAnnotation);
+        List<TypeName> superinterfaces = new ArrayList<>();
+        superinterfaces.add(session.typeName(iface.asType()));
         if (addRecordBuilder) {
             ClassType builderClassType = ElementUtils.getClassType(packageName, getBuilderName(iface, metaData, recordClassType, metaData.suffix()) + "." + metaData.withClassName(), iface.getTypeParameters());
-            builder.addAnnotation(RecordBuilder.class);
-            builder.addSuperinterface(builderClassType.typeName());
+            annotations.add(AnnotationSpec.builder(RecordBuilder.class).build());
+            superinterfaces.add(builderClassType.typeName());
         }
 
-        recordType = builder.build();
+        List<ClassType> components = recordComponents.stream()
+                .map(element -> new ClassType(session.typeName(element.getReturnType()), element.getSimpleName().toString()))
+                .collect(Collectors.toList());
+        recordEmitter = new RecordEmitter(packageName, recordClassType.name(), annotations, typeVariables, components, superinterfaces);
     }
 
     boolean isValid()
@@ -87,8 +77,8 @@ class InternalRecordInterfaceProcessor {
         return !recordComponents.isEmpty();
     }
 
-    TypeSpec recordType() {
-        return recordType;
+    RecordEmitter recordEmitter() {
+        return recordEmitter;
     }
 
     String packageName() {
@@ -99,47 +89,6 @@ class InternalRecordInterfaceProcessor {
         return recordClassType;
     }
 
-    String toRecord(String classSource)
-    {
-        // javapoet does yet support records - so a class was created and we can reshape it
-        // The class will look something like this:
-        /*
-            // Auto generated by io.soabase.recordbuilder.core.RecordBuilder: https://github.com/Randgalt/record-builder
-            package io.soabase.recordbuilder.test;
-
-            import io.soabase.recordbuilder.core.RecordBuilder;
-            import javax.annotation.processing.Generated;
-
-            @Generated("io.soabase.recordbuilder.core.RecordInterface")
-            @RecordBuilder
-            public class MyRecord implements MyInterface {
-                void __FAKE__(String name, int age) {
-                }
-            }
-        */
-        Pattern pattern = Pattern.compile("(.*)(implements.*)(\\{)(.*" + FAKE_METHOD_NAME + ")(\\(.*\\))(.*)", Pattern.MULTILINE | Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(classSource);
-        if (!matcher.find() || matcher.groupCount() != 6) {
-            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Internal error generating record. Group count: " + matcher.groupCount(), iface);
-        }
-
-        String declaration = matcher.group(1).trim().replace("class", "record");
-        String implementsSection = matcher.group(2).trim();
-        String argumentList = matcher.group(5).trim();
-        return declaration + argumentList + " " + implementsSection + " {}";
-    }
-
-    private MethodSpec generateArgumentList()
-    {
-        MethodSpec.Builder builder = MethodSpec.methodBuilder(FAKE_METHOD_NAME);
-        recordComponents.forEach(element -> {
-            ParameterSpec parameterSpec = ParameterSpec.builder(ClassName.get(element.getReturnType()), element.getSimpleName().toString()).build();
-            builder.addTypeVariables(element.getTypeParameters().stream().map(TypeVariableName::get).collect(Collectors.toList()));
-            builder.addParameter(parameterSpec);
-        });
-        return builder.build();
-    }
-
     private List<ExecutableElement> getRecordComponents(TypeElement iface) {
         List<ExecutableElement> components = new ArrayList<>();
         try {
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.lang.ref.WeakReference;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordInterner} companion. Records are kept in striped open-addressing tables of
+ * weak references keyed by a primitive hash of the components. A lookup that finds an existing record
+ * doesn't allocate. Cleared references are purged when a stripe is rehashed.
+ */
+class InternerGenerator {
+    private static final int STRIPE_BITS = 4;
+
+    private final InternalRecordBuilderProcessor processor;
+    private final TypeName recordType;
+    private final TypeName referenceType;
+    private final String stripesName;
+    private final String hashName;
+    private final String candidateName;
+    private final String maskName;
+    private final String indexName;
+    private final String existingName;
+    private final String recordName;
+    private final String hashesName;
+    private final String referencesName;
+    private final String usedName;
+
+    InternerGenerator(InternalRecordBuilderProcessor processor) {
+        this.processor = processor;
+        recordType = processor.recordClassType().typeName();
+        referenceType = ParameterizedTypeName.get(ClassName.get(WeakReference.class), recordType);
+        // these are in the same scope as the component parameters
+        stripesName = processor.uniqueName("STRIPES");
+        hashName = processor.uniqueName("_hash");
+        candidateName = processor.uniqueName("_candidate");
+        maskName = processor.uniqueName("_mask");
+        indexName = processor.uniqueName("_index");
+        existingName = processor.uniqueName("_existing");
+        recordName = processor.uniqueName("_record");
+        hashesName = processor.uniqueName("_hashes");
+        referencesName = processor.uniqueName("_references");
+        usedName = processor.uniqueName("_used");
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            public final class MyRecordInterner {
+                private static final Stripe[] STRIPES = ...;
+
+                private MyRecordInterner() {
+                }
+
+                public static MyRecord intern(int x, String s) {
+                    int _hash = hash(x, s);
+                    return STRIPES[_hash >>> 28].intern(_hash, null, x, s);
+                }
+
+                public static MyRecord intern(MyRecord record) {...}
+
+                private static int hash(int x, String s) {...}
+
+                private static final class Stripe {
+                    private int[] _hashes;
+                    private WeakReference<MyRecord>[] _references;
+                    private int _used;
+
+                    synchronized MyRecord intern(int _hash, MyRecord _candidate, int x, String s) {...}
+                    private void rehash() {...}
+                }
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().internerSuffix());
+        var stripeClassName = ClassName.get(processor.packageName(), classType.name(), "Stripe");
+        var components = processor.recordComponents();
+
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("Interns {@code $L} instances: equal component values return the same instance as long as it is\n", processor.recordClassType().name())
+                .addJavadoc("strongly reachable elsewhere. Thread safe - the table is split into $L independently locked stripes.\n", 1 << STRIPE_BITS)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation);
+        classBuilder.addField(FieldSpec.builder(ArrayTypeName.of(stripeClassName), stripesName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T[$L]", stripeClassName, 1 << STRIPE_BITS)
+                .build());
+        classBuilder.addStaticBlock(CodeBlock.builder()
+                .beginControlFlow("for (int i = 0; i < $L.length; ++i)", stripesName)
+                .addStatement("$L[i] = new $T()", stripesName, stripeClassName)
+                .endControlFlow()
+                .build());
+        classBuilder.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        var internBuilder = MethodSpec.methodBuilder("intern")
+                .addJavadoc("Return the canonical instance for the given component values, creating it if needed\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(recordType);
+        components.forEach(component -> internBuilder.addParameter(component.typeName(), component.name()));
+        internBuilder.addStatement("int $L = hash($L)", hashName, ComponentCodeBlocks.arguments(components, null))
+                .addStatement("return $L[$L >>> $L].intern($L, null$L)", stripesName, hashName, 32 - STRIPE_BITS, hashName, ComponentCodeBlocks.prefixedArguments(ComponentCodeBlocks.arguments(components, null)));
+        classBuilder.addMethod(internBuilder.build());
+
+        classBuilder.addMethod(MethodSpec.methodBuilder("intern")
+                .addJavadoc("Return the canonical instance that equals the given record. If there isn't one, the given record becomes the canonical instance.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(recordType, "record")
+                .returns(recordType)
+                .addStatement("int $L = hash($L)", hashName, ComponentCodeBlocks.arguments(components, "record"))
+                .addStatement("return $L[$L >>> $L].intern($L, record$L)", stripesName, hashName, 32 - STRIPE_BITS, hashName, ComponentCodeBlocks.prefixedArguments(ComponentCodeBlocks.arguments(components, "record")))
+                .build());
+
+        classBuilder.addMethod(ComponentCodeBlocks.buildHashMethod(components));
+        classBuilder.addType(buildStripe(stripeClassName));
+        return classBuilder.build();
+    }
+
+    private TypeSpec buildStripe(ClassName stripeClassName) {
+        var components = processor.recordComponents();
+        var stripeBuilder = TypeSpec.classBuilder(stripeClassName.simpleName())
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addField(FieldSpec.builder(ArrayTypeName.of(TypeName.INT), hashesName, Modifier.PRIVATE).initializer("new int[16]").build())
+                .addField(FieldSpec.builder(ArrayTypeName.of(referenceType), referencesName, Modifier.PRIVATE).initializer("newReferences(16)").build())
+                .addField(TypeName.INT, usedName, Modifier.PRIVATE);
+
+        var matches = CodeBlock.builder().add("($L[$L] == $L) && (($L = $L[$L].get()) != null)", hashesName, indexName, hashName, existingName, referencesName, indexName);
+        components.forEach(component -> matches.add(" && $L", ComponentCodeBlocks.componentEquals(component, CodeBlock.of("$L.$L()", existingName, component.name()), CodeBlock.of("$L", component.name()))));
+        var internBuilder = MethodSpec.methodBuilder("intern")
+                .addModifiers(Modifier.SYNCHRONIZED)
+                .addParameter(TypeName.INT, hashName)
+                .addParameter(recordType, candidateName)
+                .returns(recordType);
+        components.forEach(component -> internBuilder.addParameter(component.typeName(), component.name()));
+        internBuilder.addStatement("int $L = $L.length - 1", maskName, hashesName)
+                .addStatement("int $L = $L & $L", indexName, hashName, maskName)
+                .addStatement("$T $L", recordType, existingName)
+                .beginControlFlow("while ($L[$L] != null)", referencesName, indexName)
+                .beginControlFlow("if ($L)", matches.build())
+                .addStatement("return $L", existingName)
+                .endControlFlow()
+                .addStatement("$L = ($L + 1) & $L", indexName, indexName, maskName)
+                .endControlFlow()
+                .addStatement("$T $L = ($L != null) ? $L : new $T($L)", recordType, recordName, candidateName, candidateName, recordType, ComponentCodeBlocks.arguments(components, null))
+                .addStatement("$L[$L] = $L", hashesName, indexName, hashName)
+                .addStatement("$L[$L] = new $T<>($L)", referencesName, indexName, WeakReference.class, recordName)
+                .beginControlFlow("if (++$L > ($L.length >>> 1))", usedName, hashesName)
+                .addStatement("rehash()")
+                .endControlFlow()
+                .addStatement("return $L", recordName);
+        stripeBuilder.addMethod(internBuilder.build());
+
+        // cleared _references are dropped, the table only grows if the live entries need it
+        stripeBuilder.addMethod(MethodSpec.methodBuilder("rehash")
+                .addModifiers(Modifier.PRIVATE)
+                .addStatement("int live = 0")
+                .beginControlFlow("for ($T reference : $L)", referenceType, referencesName)
+                .beginControlFlow("if ((reference != null) && (reference.get() != null))")
+                .addStatement("++live")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("int capacity = 16")
+                .beginControlFlow("while (capacity < (live * 4))")
+                .addStatement("capacity <<= 1")
+                .endControlFlow()
+                .addStatement("int[] oldHashes = $L", hashesName)
+                .addStatement("$T oldReferences = $L", ArrayTypeName.of(referenceType), referencesName)
+                .addStatement("$L = new int[capacity]", hashesName)
+                .addStatement("$L = newReferences(capacity)", referencesName)
+                .addStatement("$L = 0", usedName)
+                .addStatement("int mask = capacity - 1")
+                .beginControlFlow("for (int i = 0; i < oldReferences.length; ++i)")
+                .beginControlFlow("if ((oldReferences[i] != null) && (oldReferences[i].get() != null))")
+                .addStatement("int index = oldHashes[i] & mask")
+                .beginControlFlow("while ($L[index] != null)", referencesName)
+                .addStatement("index = (index + 1) & mask")
+                .endControlFlow()
+                .addStatement("$L[index] = oldHashes[i]", hashesName)
+                .addStatement("$L[index] = oldReferences[i]", referencesName)
+                .addStatement("++$L", usedName)
+                .endControlFlow()
+                .endControlFlow()
+                .build());
+
+        stripeBuilder.addMethod(MethodSpec.methodBuilder("newReferences")
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(TypeName.INT, "capacity")
+                .returns(ArrayTypeName.of(referenceType))
+                .addStatement("return ($T)new $T[capacity]", ArrayTypeName.of(referenceType), WeakReference.class)
+                .build());
+        return stripeBuilder.build();
+    }
+}
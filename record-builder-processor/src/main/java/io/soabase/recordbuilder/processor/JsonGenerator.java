@@ -0,0 +1,366 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import io.soabase.recordbuilder.core.Json;
+import io.soabase.recordbuilder.core.JsonReader;
+import io.soabase.recordbuilder.core.RecordBuilder;
+import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+import io.soabase.recordbuilder.core.RecordJson;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordJson} companion, a {@link RecordJson} for the record. Field names are written
+ * as constants, primitives and Strings are written/read inline via {@link Json}/{@link JsonReader} and reading
+ * dispatches on the field name with a string switch that sets the builder's values directly.
+ */
+class JsonGenerator {
+    private static final Map<String, String> boxedJsons = Map.of(
+            Boolean.class.getName(), "BOOLEAN",
+            Byte.class.getName(), "BYTE",
+            Short.class.getName(), "SHORT",
+            Character.class.getName(), "CHARACTER",
+            Integer.class.getName(), "INTEGER",
+            Long.class.getName(), "LONG",
+            Float.class.getName(), "FLOAT",
+            Double.class.getName(), "DOUBLE"
+    );
+
+    private final InternalRecordBuilderProcessor processor;
+    private final List<CodeBlock> componentJsons;
+    private final TypeName recordType;
+
+    JsonGenerator(InternalRecordBuilderProcessor processor, List<CodeBlock> componentJsons) {
+        this.processor = processor;
+        this.componentJsons = componentJsons;
+        recordType = processor.recordClassType().typeName();
+    }
+
+    /**
+     * Resolve the JSON reader/writer for each record component. Must be called from the processor's thread. An empty
+     * code block is returned for components that are written inline (primitives and Strings).
+     *
+     * @return initializers or empty if a component type isn't supported (an error is reported)
+     */
+    static Optional<List<CodeBlock>> resolveComponentJsons(ProcessingSession session, TypeElement record, RecordBuilderMetaData metaData) {
+        var componentJsons = new ArrayList<CodeBlock>();
+        var isValid = true;
+        for (var component : record.getRecordComponents()) {
+            var type = component.asType();
+            if (type.getKind().isPrimitive() || isString(type)) {
+                componentJsons.add(CodeBlock.builder().build());
+                continue;
+            }
+            var json = resolveJson(session, record, metaData, type);
+            if (json.isPresent()) {
+                componentJsons.add(json.get());
+            } else {
+                session.processingEnv().getMessager().printMessage(Diagnostic.Kind.ERROR, "json() does not support the type " + type + ". Supported types are primitives, boxed primitives, Strings, List, Map with String keys, type variables and records with json = true", component);
+                isValid = false;
+            }
+        }
+        return isValid ? Optional.of(componentJsons) : Optional.empty();
+    }
+
+    private static Optional<CodeBlock> resolveJson(ProcessingSession session, TypeElement record, RecordBuilderMetaData metaData, TypeMirror type) {
+        if (type.getKind() == TypeKind.TYPEVAR) {
+            return Optional.of(CodeBlock.of("$L", jsonParameterName(type.toString())));
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return Optional.empty();
+        }
+
+        var declaredType = (DeclaredType)type;
+        var element = (TypeElement)declaredType.asElement();
+        var qualifiedName = element.getQualifiedName().toString();
+        if (isString(type)) {
+            return Optional.of(CodeBlock.of("$T.STRING", Json.class));
+        }
+        if (boxedJsons.containsKey(qualifiedName)) {
+            return Optional.of(CodeBlock.of("$T.$L", Json.class, boxedJsons.get(qualifiedName)));
+        }
+
+        var typeArguments = declaredType.getTypeArguments();
+        if (qualifiedName.equals(List.class.getName())) {
+            return resolveJson(session, record, metaData, typeArguments.get(0)).map(elementJson -> CodeBlock.of("$T.list($L)", Json.class, elementJson));
+        }
+        if (qualifiedName.equals(Map.class.getName())) {
+            if (!isString(typeArguments.get(0))) {
+                return Optional.empty();
+            }
+            return resolveJson(session, record, metaData, typeArguments.get(1)).map(valueJson -> CodeBlock.of("$T.map($L)", Json.class, valueJson));
+        }
+
+        var recordBuilder = element.getAnnotation(RecordBuilder.class);
+        if ((element.getKind() == ElementKind.RECORD) && (recordBuilder != null) && recordBuilder.json()) {
+            if (session.processingEnv().getTypeUtils().isSameType(type, record.asType())) {
+                return Optional.of(CodeBlock.of("this"));
+            }
+            var arguments = new ArrayList<CodeBlock>();
+            for (var typeArgument : typeArguments) {
+                var argument = resolveJson(session, record, metaData, typeArgument);
+                if (argument.isEmpty()) {
+                    return Optional.empty();
+                }
+                arguments.add(argument.get());
+            }
+            // lazy so that records that refer to each other don't depend on each other's class initialization
+            var classType = ElementUtils.getClassType(ClassName.get(element), element.getTypeParameters());
+            var jsonClassName = ClassName.get(ElementUtils.getPackageName(element), ElementUtils.getBuilderName(element, metaData, classType, metaData.jsonSuffix()));
+            return Optional.of(CodeBlock.of("$T.lazy(() -> $T.json($L))", Json.class, jsonClassName, CodeBlock.join(arguments, ", ")));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isString(TypeMirror type) {
+        return (type.getKind() == TypeKind.DECLARED) && ((TypeElement)((DeclaredType)type).asElement()).getQualifiedName().contentEquals(String.class.getName());
+    }
+
+    private static String jsonParameterName(String typeVariableName) {
+        return "json" + typeVariableName;
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            public final class MyRecordJson implements RecordJson<MyRecord> {
+                private static final MyRecordJson INSTANCE = new MyRecordJson();
+                private final RecordJson<List<String>> tagsJson;
+
+                private MyRecordJson() {
+                    this.tagsJson = Json.list(Json.STRING);
+                }
+
+                public static MyRecordJson json() {
+                    return INSTANCE;
+                }
+
+                @Override
+                public void write(MyRecord value, Appendable out) throws IOException {
+                    if (value == null) {
+                        out.append("null");
+                        return;
+                    }
+                    out.append("{\"p1\":");
+                    Json.writeInt(out, value.p1());
+                    out.append(",\"tags\":");
+                    tagsJson.write(value.tags(), out);
+                    out.append('}');
+                }
+
+                @Override
+                public MyRecord read(JsonReader in) throws IOException {
+                    if (in.nextNull()) {
+                        return null;
+                    }
+                    MyRecordBuilder builder = MyRecordBuilder.builder();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String field = in.nextName();
+                        switch (field) {
+                            case "p1":
+                                builder.p1(in.nextInt());
+                                break;
+                            case "tags":
+                                builder.tags(tagsJson.read(in));
+                                break;
+                            default:
+                                in.skipValue();
+                                break;
+                        }
+                    }
+                    in.endObject();
+                    return builder.build();
+                }
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().jsonSuffix());
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("Streaming JSON writer/reader for {@code $L}\n", processor.recordClassType().name())
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(processor.typeVariables())
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(RecordJson.class), recordType));
+
+        var components = processor.recordComponents();
+        var constructorBuilder = MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE);
+        var jsonMethodBuilder = MethodSpec.methodBuilder("json")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addTypeVariables(processor.typeVariables())
+                .returns(classType.typeName());
+        processor.typeVariables().forEach(typeVariable -> {
+            var parameterType = ParameterizedTypeName.get(ClassName.get(RecordJson.class), typeVariable);
+            var parameterName = jsonParameterName(typeVariable.name);
+            constructorBuilder.addParameter(parameterType, parameterName)
+                    .addStatement("$T.requireNonNull($L, $S)", Objects.class, parameterName, parameterName + " is null");
+            jsonMethodBuilder.addParameter(parameterType, parameterName);
+        });
+        for (int index = 0; index < components.size(); ++index) {
+            var json = componentJsons.get(index);
+            if (!json.isEmpty()) {
+                var component = components.get(index);
+                var fieldType = ParameterizedTypeName.get(ClassName.get(RecordJson.class), component.typeName().box());
+                classBuilder.addField(fieldType, jsonFieldName(component), Modifier.PRIVATE, Modifier.FINAL);
+                constructorBuilder.addStatement("this.$L = $L", jsonFieldName(component), json);
+            }
+        }
+        classBuilder.addMethod(constructorBuilder.build());
+
+        if (processor.typeVariables().isEmpty()) {
+            classBuilder.addField(FieldSpec.builder(classType.typeName(), "INSTANCE", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T()", classType.typeName())
+                    .build());
+            jsonMethodBuilder.addJavadoc("Return the JSON writer/reader. It is immutable and thread safe.\n")
+                    .addStatement("return INSTANCE");
+        } else {
+            var arguments = processor.typeVariables().stream().map(typeVariable -> CodeBlock.of("$L", jsonParameterName(typeVariable.name))).collect(CodeBlock.joining(", "));
+            jsonMethodBuilder.addJavadoc("Return a JSON writer/reader that uses the given writers/readers for the record's type variables. It is immutable and thread safe.\n")
+                    .addStatement("return new $T<>($L)", ClassName.get(processor.packageName(), classType.name()), arguments);
+        }
+        classBuilder.addMethod(jsonMethodBuilder.build());
+
+        classBuilder.addMethod(buildWriteMethod());
+        classBuilder.addMethod(buildReadMethod());
+        return classBuilder.build();
+    }
+
+    private MethodSpec buildWriteMethod() {
+        var methodBuilder = MethodSpec.methodBuilder("write")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "value")
+                .addParameter(Appendable.class, "out")
+                .addException(IOException.class)
+                .beginControlFlow("if (value == null)")
+                .addStatement("out.append($S)", "null")
+                .addStatement("return")
+                .endControlFlow();
+        var components = processor.recordComponents();
+        if (components.isEmpty()) {
+            return methodBuilder.addStatement("out.append($S)", "{}").build();
+        }
+        for (int index = 0; index < components.size(); ++index) {
+            var component = components.get(index);
+            // component names are Java identifiers so they never need escaping
+            methodBuilder.addStatement("out.append($S)", ((index == 0) ? "{" : ",") + "\"" + component.name() + "\":");
+            if (componentJsons.get(index).isEmpty()) {
+                methodBuilder.addStatement("$T.$L(out, value.$L())", Json.class, writeMethod(component), component.name());
+            } else {
+                methodBuilder.addStatement("$L.write(value.$L(), out)", jsonFieldName(component), component.name());
+            }
+        }
+        return methodBuilder.addStatement("out.append('}')").build();
+    }
+
+    private MethodSpec buildReadMethod() {
+        var metaData = processor.metaData();
+        var builderType = processor.builderClassType().typeName();
+        var methodBuilder = MethodSpec.methodBuilder("read")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(JsonReader.class, "in")
+                .returns(recordType)
+                .addException(IOException.class)
+                .beginControlFlow("if (in.nextNull())")
+                .addStatement("return null")
+                .endControlFlow()
+                .addStatement("$T builder = $T.$L()", builderType, processor.builderClassName(), metaData.builderMethodName())
+                .addStatement("in.beginObject()")
+                .beginControlFlow("while (in.hasNext())")
+                .addStatement("$T field = in.nextName()", String.class)
+                .beginControlFlow("switch (field)");
+        var components = processor.recordComponents();
+        for (int index = 0; index < components.size(); ++index) {
+            var component = components.get(index);
+            methodBuilder.addCode("case $S:\n$>", component.name());
+            if (componentJsons.get(index).isEmpty()) {
+                var kind = ComponentKind.of(component.typeName());
+                var readMethod = kind.isPrimitive() ? ("next" + kind.capitalizedName()) : "nextString";
+                methodBuilder.addStatement("builder.$L(in.$L())", component.name(), readMethod);
+            } else {
+                methodBuilder.addStatement("builder.$L($L.read(in))", component.name(), jsonFieldName(component));
+            }
+            methodBuilder.addStatement("break$<");
+        }
+        methodBuilder.addCode("default:\n$>");
+        if (processor.unknownMapKeyPolicy() == RecordBuilderMetaData.UnknownMapKeyPolicy.FAIL) {
+            methodBuilder.addStatement("throw new $T($S + field)", IOException.class, "Unknown field for " + processor.recordClassType().name() + ": ");
+        } else {
+            methodBuilder.addStatement("in.skipValue()")
+                    .addStatement("break");
+        }
+        return methodBuilder.addCode("$<")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("in.endObject()")
+                .addStatement("return builder.$L()", metaData.buildMethodName())
+                .build();
+    }
+
+    private static String writeMethod(ClassType component) {
+        switch (ComponentKind.of(component.typeName())) {
+            case BOOLEAN:
+                return "writeBoolean";
+
+            case BYTE:
+            case SHORT:
+            case INT:
+                return "writeInt";
+
+            case LONG:
+                return "writeLong";
+
+            case CHAR:
+                return "writeChar";
+
+            case FLOAT:
+                return "writeFloat";
+
+            case DOUBLE:
+                return "writeDouble";
+
+            default:
+                return "writeString";
+        }
+    }
+
+    private static String jsonFieldName(ClassType component) {
+        return component.name() + "Json";
+    }
+}
@@ -0,0 +1,475 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordKeyMap<V>} companion: an open-addressing (linear probing) hash map keyed
+ * by the record's components. The key components are stored inline in one array per component, in the
+ * same way as {@link ColumnsGenerator}, so {@code get(x, y)}/{@code put(x, y, value)} neither box nor create
+ * a record. Records are only created when iterating the keys.
+ */
+class KeyMapGenerator {
+    private final InternalRecordBuilderProcessor processor;
+    private final TypeName recordType;
+    private final TypeVariableName valueType;
+    private final String valueName;
+    private final String supplierName;
+    private final String defaultCapacityName;
+    private final String maximumCapacityName;
+    private final String hashesName;
+    private final String filledName;
+    private final String valuesName;
+    private final String sizeName;
+    private final String hashName;
+    private final String indexName;
+    private final String maskName;
+    private final String previousName;
+    private final String localValueName;
+
+    KeyMapGenerator(InternalRecordBuilderProcessor processor) {
+        this.processor = processor;
+        recordType = processor.recordClassType().typeName();
+        valueType = TypeVariableName.get("V");
+        // public parameters keep their natural names unless a component has the same name
+        valueName = processor.uniqueName("value");
+        supplierName = processor.uniqueName("supplier");
+        // the fields sit next to the component fields and, like the locals, are in the same scope as the component parameters
+        defaultCapacityName = processor.uniqueName("DEFAULT_CAPACITY");
+        maximumCapacityName = processor.uniqueName("MAXIMUM_CAPACITY");
+        hashesName = processor.uniqueName("_hashes");
+        filledName = processor.uniqueName("_filled");
+        valuesName = processor.uniqueName("_values");
+        sizeName = processor.uniqueName("_size");
+        hashName = processor.uniqueName("_hash");
+        indexName = processor.uniqueName("_index");
+        maskName = processor.uniqueName("_mask");
+        previousName = processor.uniqueName("_previous");
+        localValueName = processor.uniqueName("_value");
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            @SuppressWarnings("unchecked")
+            public class MyRecordKeyMap<V> {
+                private static final int DEFAULT_CAPACITY = 16;
+                private static final int MAXIMUM_CAPACITY = 1 << 30;
+                private int[] x;
+                private Object[] s;
+                private int[] _hashes;
+                private boolean[] _filled;
+                private Object[] _values;
+                private int _size;
+
+                public MyRecordKeyMap() {...}
+                public MyRecordKeyMap(int expectedSize) {...}
+                public int size() {...}
+                public boolean isEmpty() {...}
+                public V get(int x, String s) {...}
+                public V get(MyRecord key) {...}
+                public boolean containsKey(int x, String s) {...}
+                public V put(int x, String s, V value) {...}
+                public V put(MyRecord key, V value) {...}
+                public V computeIfAbsent(int x, String s, Supplier<? extends V> supplier) {...}
+                public V remove(int x, String s) {...}
+                public void clear() {...}
+                public void forEach(BiConsumer<? super MyRecord, ? super V> action) {...}
+                public List<MyRecord> keys() {...}
+                private static int hash(int x, String s) {...}
+                private int find(int _hash, int x, String s) {...}
+                ...
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().keyMapSuffix());
+        var components = processor.recordComponents();
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("A map keyed by the components of {@code $L}. Lookups don't create a record or box the\n", processor.recordClassType().name())
+                .addJavadoc("components. Not thread safe.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+                .addTypeVariable(valueType);
+
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, defaultCapacityName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("16").build());
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, maximumCapacityName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("1 << 30").build());
+        components.forEach(component -> classBuilder.addField(keyType(component), component.name(), Modifier.PRIVATE));
+        classBuilder.addField(ArrayTypeName.of(TypeName.INT), hashesName, Modifier.PRIVATE);
+        classBuilder.addField(ArrayTypeName.of(TypeName.BOOLEAN), filledName, Modifier.PRIVATE);
+        classBuilder.addField(ArrayTypeName.of(TypeName.OBJECT), valuesName, Modifier.PRIVATE);
+        classBuilder.addField(TypeName.INT, sizeName, Modifier.PRIVATE);
+
+        addConstructors(classBuilder);
+        classBuilder.addMethod(MethodSpec.methodBuilder("size")
+                .addJavadoc("Return the number of entries\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("return $L", sizeName)
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("isEmpty")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return $L == 0", sizeName)
+                .build());
+        addAccessMethods(classBuilder);
+        addComputeIfAbsentMethod(classBuilder);
+        addRemoveMethods(classBuilder);
+        addClearMethod(classBuilder);
+        addIterationMethods(classBuilder);
+        classBuilder.addMethod(ComponentCodeBlocks.buildHashMethod(components));
+        addFindMethod(classBuilder);
+        addInsertMethods(classBuilder);
+        addResizeMethods(classBuilder);
+        return classBuilder.build();
+    }
+
+    private void addConstructors(TypeSpec.Builder classBuilder) {
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("allocate($L)", defaultCapacityName)
+                .build());
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addJavadoc("@param expectedSize number of entries that can be added without resizing\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "expectedSize")
+                .beginControlFlow("if (expectedSize < 0)")
+                .addStatement("throw new $T($S + expectedSize)", IllegalArgumentException.class, "Illegal size: ")
+                .endControlFlow()
+                .addStatement("int capacity = $L", defaultCapacityName)
+                .beginControlFlow("while ((capacity < $L) && (maxSize(capacity) < expectedSize))", maximumCapacityName)
+                .addStatement("capacity <<= 1")
+                .endControlFlow()
+                .addStatement("allocate(capacity)")
+                .build());
+    }
+
+    private void addAccessMethods(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        var arguments = ComponentCodeBlocks.arguments(components, null);
+        var keyArguments = ComponentCodeBlocks.arguments(components, "key");
+
+        var getBuilder = componentMethod("get", "Return the value for the given key components or {@code null}\n")
+                .returns(valueType)
+                .addStatement("int $L = find(hash($L)$L)", indexName, arguments, ComponentCodeBlocks.prefixedArguments(arguments))
+                .addStatement("return ($L >= 0) ? ($T)$L[$L] : null", indexName, valueType, valuesName, indexName);
+        classBuilder.addMethod(getBuilder.build());
+        classBuilder.addMethod(recordMethod("get", "Return the value for the given key or {@code null}\n")
+                .returns(valueType)
+                .addStatement("return get($L)", keyArguments)
+                .build());
+
+        classBuilder.addMethod(componentMethod("containsKey", "Return true if there is an entry for the given key components\n")
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return find(hash($L)$L) >= 0", arguments, ComponentCodeBlocks.prefixedArguments(arguments))
+                .build());
+        classBuilder.addMethod(recordMethod("containsKey", "Return true if there is an entry for the given key\n")
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return containsKey($L)", keyArguments)
+                .build());
+
+        classBuilder.addMethod(componentMethod("put", "Set the value for the given key components\n\n@return the previous value or {@code null}\n")
+                .addParameter(valueType, valueName)
+                .returns(valueType)
+                .addStatement("int $L = hash($L)", hashName, arguments)
+                .addStatement("int $L = find($L$L)", indexName, hashName, ComponentCodeBlocks.prefixedArguments(arguments))
+                .beginControlFlow("if ($L >= 0)", indexName)
+                .addStatement("$T $L = ($T)$L[$L]", valueType, previousName, valueType, valuesName, indexName)
+                .addStatement("$L[$L] = $L", valuesName, indexName, valueName)
+                .addStatement("return $L", previousName)
+                .endControlFlow()
+                .addStatement("insert($L$L, $L)", hashName, ComponentCodeBlocks.prefixedArguments(arguments), valueName)
+                .addStatement("return null")
+                .build());
+        classBuilder.addMethod(recordMethod("put", "Set the value for the given key\n\n@return the previous value or {@code null}\n")
+                .addParameter(valueType, valueName)
+                .returns(valueType)
+                .addStatement("return put($L)", Stream.of(keyArguments, CodeBlock.of("$L", valueName)).filter(argument -> !argument.isEmpty()).collect(CodeBlock.joining(", ")))
+                .build());
+    }
+
+    private void addComputeIfAbsentMethod(TypeSpec.Builder classBuilder) {
+        var arguments = ComponentCodeBlocks.arguments(processor.recordComponents(), null);
+        var supplierType = ParameterizedTypeName.get(ClassName.get(Supplier.class), WildcardTypeName.subtypeOf(valueType));
+        classBuilder.addMethod(componentMethod("computeIfAbsent", "If there is no value (or a {@code null} value) for the given key components, set it to the supplier's value\n"
+                        + "unless that is {@code null}. Unlike {@link java.util.Map#computeIfAbsent} no key is passed to the supplier\n"
+                        + "so that no record is created.\n\n@return the current (existing or computed) value\n")
+                .addParameter(supplierType, supplierName)
+                .returns(valueType)
+                .addStatement("int $L = hash($L)", hashName, arguments)
+                .addStatement("int $L = find($L$L)", indexName, hashName, ComponentCodeBlocks.prefixedArguments(arguments))
+                .beginControlFlow("if (($L >= 0) && ($L[$L] != null))", indexName, valuesName, indexName)
+                .addStatement("return ($T)$L[$L]", valueType, valuesName, indexName)
+                .endControlFlow()
+                .addStatement("$T $L = $L.get()", valueType, localValueName, supplierName)
+                .beginControlFlow("if ($L != null)", localValueName)
+                .beginControlFlow("if ($L >= 0)", indexName)
+                .addStatement("$L[$L] = $L", valuesName, indexName, localValueName)
+                .nextControlFlow("else")
+                .addStatement("insert($L$L, $L)", hashName, ComponentCodeBlocks.prefixedArguments(arguments), localValueName)
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return $L", localValueName)
+                .build());
+    }
+
+    private void addRemoveMethods(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        var arguments = ComponentCodeBlocks.arguments(components, null);
+        classBuilder.addMethod(componentMethod("remove", "Remove the entry for the given key components\n\n@return the removed value or {@code null}\n")
+                .returns(valueType)
+                .addStatement("int $L = find(hash($L)$L)", indexName, arguments, ComponentCodeBlocks.prefixedArguments(arguments))
+                .beginControlFlow("if ($L < 0)", indexName)
+                .addStatement("return null")
+                .endControlFlow()
+                .addStatement("$T $L = ($T)$L[$L]", valueType, previousName, valueType, valuesName, indexName)
+                .addStatement("delete($L)", indexName)
+                .addStatement("return $L", previousName)
+                .build());
+        classBuilder.addMethod(recordMethod("remove", "Remove the entry for the given key\n\n@return the removed value or {@code null}\n")
+                .returns(valueType)
+                .addStatement("return remove($L)", ComponentCodeBlocks.arguments(components, "key"))
+                .build());
+
+        // backward shift deletion - entries after the removed one that probed past it are moved back so that no tombstones are needed
+        var deleteBuilder = MethodSpec.methodBuilder("delete")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "index")
+                .addStatement("int mask = $L.length - 1", hashesName)
+                .addStatement("int hole = index")
+                .addStatement("int next = (hole + 1) & mask")
+                .beginControlFlow("while ($L[next])", filledName)
+                .addStatement("int home = $L[next] & mask", hashesName)
+                .beginControlFlow("if (((next - home) & mask) >= ((next - hole) & mask))")
+                .addStatement("move(next, hole)")
+                .addStatement("hole = next")
+                .endControlFlow()
+                .addStatement("next = (next + 1) & mask")
+                .endControlFlow()
+                .addStatement("clearSlot(hole)")
+                .addStatement("--$L", sizeName);
+        classBuilder.addMethod(deleteBuilder.build());
+
+        var moveBuilder = MethodSpec.methodBuilder("move")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "from")
+                .addParameter(TypeName.INT, "to");
+        components.forEach(component -> moveBuilder.addStatement("this.$L[to] = this.$L[from]", component.name(), component.name()));
+        moveBuilder.addStatement("$L[to] = $L[from]", hashesName, hashesName)
+                .addStatement("$L[to] = $L[from]", valuesName, valuesName);
+        classBuilder.addMethod(moveBuilder.build());
+
+        var clearSlotBuilder = MethodSpec.methodBuilder("clearSlot")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "index")
+                .addStatement("$L[index] = false", filledName)
+                .addStatement("$L[index] = null", valuesName);
+        components.stream()
+                .filter(component -> !ComponentKind.of(component.typeName()).isPrimitive())
+                .forEach(component -> clearSlotBuilder.addStatement("this.$L[index] = null", component.name()));
+        classBuilder.addMethod(clearSlotBuilder.build());
+    }
+
+    private void addClearMethod(TypeSpec.Builder classBuilder) {
+        var clearBuilder = MethodSpec.methodBuilder("clear")
+                .addJavadoc("Remove all entries. The capacity is retained.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("$T.fill($L, false)", Arrays.class, filledName)
+                .addStatement("$T.fill($L, null)", Arrays.class, valuesName);
+        processor.recordComponents().stream()
+                .filter(component -> !ComponentKind.of(component.typeName()).isPrimitive())
+                .forEach(component -> clearBuilder.addStatement("$T.fill(this.$L, null)", Arrays.class, component.name()));
+        clearBuilder.addStatement("$L = 0", sizeName);
+        classBuilder.addMethod(clearBuilder.build());
+    }
+
+    private void addIterationMethods(TypeSpec.Builder classBuilder) {
+        var actionType = ParameterizedTypeName.get(ClassName.get(BiConsumer.class), WildcardTypeName.supertypeOf(recordType), WildcardTypeName.supertypeOf(valueType));
+        classBuilder.addMethod(MethodSpec.methodBuilder("forEach")
+                .addJavadoc("Pass each entry to the action. A record is created for each key.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(actionType, "action")
+                .beginControlFlow("for (int index = 0; index < $L.length; ++index)", filledName)
+                .beginControlFlow("if ($L[index])", filledName)
+                .addStatement("action.accept(key(index), ($T)$L[index])", valueType, valuesName)
+                .endControlFlow()
+                .endControlFlow()
+                .build());
+
+        var listType = ParameterizedTypeName.get(ClassName.get(List.class), recordType);
+        classBuilder.addMethod(MethodSpec.methodBuilder("keys")
+                .addJavadoc("Return a new list of the keys. A record is created for each key.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(listType)
+                .addStatement("$T keys = new $T<>($L)", listType, ArrayList.class, sizeName)
+                .beginControlFlow("for (int index = 0; index < $L.length; ++index)", filledName)
+                .beginControlFlow("if ($L[index])", filledName)
+                .addStatement("keys.add(key(index))")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return keys")
+                .build());
+
+        var keyArguments = processor.recordComponents().stream()
+                .map(component -> ComponentKind.of(component.typeName()).isPrimitive()
+                        ? CodeBlock.of("this.$L[index]", component.name())
+                        : CodeBlock.of("($T)this.$L[index]", component.typeName(), component.name()))
+                .collect(CodeBlock.joining(", "));
+        classBuilder.addMethod(MethodSpec.methodBuilder("key")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "index")
+                .returns(recordType)
+                .addStatement("return new $T($L)", recordType, keyArguments)
+                .build());
+    }
+
+    private void addFindMethod(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        var matches = CodeBlock.builder().add("($L[$L] == $L)", hashesName, indexName, hashName);
+        components.forEach(component -> matches.add(" && $L", ComponentCodeBlocks.componentEquals(component, CodeBlock.of("this.$L[$L]", component.name(), indexName), CodeBlock.of("$L", component.name()))));
+        var findBuilder = MethodSpec.methodBuilder("find")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, hashName)
+                .returns(TypeName.INT);
+        components.forEach(component -> findBuilder.addParameter(component.typeName(), component.name()));
+        findBuilder.addStatement("int $L = $L.length - 1", maskName, hashesName)
+                .addStatement("int $L = $L & $L", indexName, hashName, maskName)
+                .beginControlFlow("while ($L[$L])", filledName, indexName)
+                .beginControlFlow("if ($L)", matches.build())
+                .addStatement("return $L", indexName)
+                .endControlFlow()
+                .addStatement("$L = ($L + 1) & $L", indexName, indexName, maskName)
+                .endControlFlow()
+                .addStatement("return -1");
+        classBuilder.addMethod(findBuilder.build());
+    }
+
+    private void addInsertMethods(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        var arguments = ComponentCodeBlocks.arguments(components, null);
+        var insertBuilder = MethodSpec.methodBuilder("insert")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, hashName);
+        components.forEach(component -> insertBuilder.addParameter(component.typeName(), component.name()));
+        insertBuilder.addParameter(TypeName.OBJECT, localValueName)
+                .beginControlFlow("if (($L >= maxSize($L.length)) && ($L.length < $L))", sizeName, hashesName, hashesName, maximumCapacityName)
+                .addStatement("resize($L.length << 1)", hashesName)
+                .endControlFlow()
+                .addStatement("store($L$L, $L)", hashName, ComponentCodeBlocks.prefixedArguments(arguments), localValueName)
+                .addStatement("++$L", sizeName);
+        classBuilder.addMethod(insertBuilder.build());
+
+        var storeBuilder = MethodSpec.methodBuilder("store")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, hashName);
+        components.forEach(component -> storeBuilder.addParameter(storageType(component), component.name()));
+        storeBuilder.addParameter(TypeName.OBJECT, localValueName)
+                .addStatement("int $L = $L.length - 1", maskName, hashesName)
+                .addStatement("int $L = $L & $L", indexName, hashName, maskName)
+                .beginControlFlow("while ($L[$L])", filledName, indexName)
+                .addStatement("$L = ($L + 1) & $L", indexName, indexName, maskName)
+                .endControlFlow();
+        components.forEach(component -> storeBuilder.addStatement("this.$L[$L] = $L", component.name(), indexName, component.name()));
+        storeBuilder.addStatement("$L[$L] = $L", hashesName, indexName, hashName)
+                .addStatement("$L[$L] = true", filledName, indexName)
+                .addStatement("$L[$L] = $L", valuesName, indexName, localValueName);
+        classBuilder.addMethod(storeBuilder.build());
+    }
+
+    private void addResizeMethods(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        classBuilder.addMethod(MethodSpec.methodBuilder("maxSize")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(TypeName.INT, "capacity")
+                .returns(TypeName.INT)
+                .addStatement("return (capacity >>> 2) * 3")
+                .build());
+
+        var allocateBuilder = MethodSpec.methodBuilder("allocate")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "capacity");
+        components.forEach(component -> allocateBuilder.addStatement("this.$L = new $T[capacity]", component.name(), storageType(component)));
+        allocateBuilder.addStatement("$L = new int[capacity]", hashesName)
+                .addStatement("$L = new boolean[capacity]", filledName)
+                .addStatement("$L = new Object[capacity]", valuesName);
+        classBuilder.addMethod(allocateBuilder.build());
+
+        var resizeBuilder = MethodSpec.methodBuilder("resize")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "capacity");
+        components.forEach(component -> resizeBuilder.addStatement("$T oldKey$L = this.$L", keyType(component), capitalize(component.name()), component.name()));
+        resizeBuilder.addStatement("int[] oldHashes = $L", hashesName)
+                .addStatement("boolean[] oldFilled = $L", filledName)
+                .addStatement("Object[] oldValues = $L", valuesName)
+                .addStatement("allocate(capacity)")
+                .beginControlFlow("for (int index = 0; index < oldFilled.length; ++index)")
+                .beginControlFlow("if (oldFilled[index])");
+        var oldArguments = components.stream().map(component -> CodeBlock.of("oldKey$L[index]", capitalize(component.name()))).collect(CodeBlock.joining(", "));
+        resizeBuilder.addStatement("store(oldHashes[index]$L, oldValues[index])", ComponentCodeBlocks.prefixedArguments(oldArguments))
+                .endControlFlow()
+                .endControlFlow();
+        classBuilder.addMethod(resizeBuilder.build());
+    }
+
+    private MethodSpec.Builder componentMethod(String name, String javadoc) {
+        var methodBuilder = MethodSpec.methodBuilder(name)
+                .addJavadoc(javadoc)
+                .addModifiers(Modifier.PUBLIC);
+        processor.recordComponents().forEach(component -> methodBuilder.addParameter(component.typeName(), component.name()));
+        return methodBuilder;
+    }
+
+    private MethodSpec.Builder recordMethod(String name, String javadoc) {
+        return MethodSpec.methodBuilder(name)
+                .addJavadoc(javadoc)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "key");
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static TypeName storageType(ClassType component) {
+        var kind = ComponentKind.of(component.typeName());
+        return kind.isPrimitive() ? kind.typeName() : TypeName.OBJECT;
+    }
+
+    private static TypeName keyType(ClassType component) {
+        return ArrayTypeName.of(storageType(component));
+    }
+}
@@ -17,6 +17,7 @@ package io.soabase.recordbuilder.processor;
 
 import io.soabase.recordbuilder.core.RecordBuilderMetaData;
 
+import java.util.Locale;
 import java.util.Map;
 
 public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
@@ -30,6 +31,66 @@ public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
      */
     public static final String OPTION_INTERFACE_SUFFIX = "interfaceSuffix";
 
+    /**
+     * @see #columnsSuffix()
+     */
+    public static final String OPTION_COLUMNS_SUFFIX = "columnsSuffix";
+
+    /**
+     * @see #flyweightSuffix()
+     */
+    public static final String OPTION_FLYWEIGHT_SUFFIX = "flyweightSuffix";
+
+    /**
+     * @see #codecSuffix()
+     */
+    public static final String OPTION_CODEC_SUFFIX = "codecSuffix";
+
+    /**
+     * @see #jsonSuffix()
+     */
+    public static final String OPTION_JSON_SUFFIX = "jsonSuffix";
+
+    /**
+     * @see #internerSuffix()
+     */
+    public static final String OPTION_INTERNER_SUFFIX = "internerSuffix";
+
+    /**
+     * @see #ofMethodName()
+     */
+    public static final String OPTION_OF_METHOD_NAME = "ofMethodName";
+
+    /**
+     * @see #keyMapSuffix()
+     */
+    public static final String OPTION_KEY_MAP_SUFFIX = "keyMapSuffix";
+
+    /**
+     * @see #setSuffix()
+     */
+    public static final String OPTION_SET_SUFFIX = "setSuffix";
+
+    /**
+     * @see #longHashMethodName()
+     */
+    public static final String OPTION_LONG_HASH_METHOD_NAME = "longHashMethodName";
+
+    /**
+     * @see #hashIntoMethodName()
+     */
+    public static final String OPTION_HASH_INTO_METHOD_NAME = "hashIntoMethodName";
+
+    /**
+     * @see #partitionMethodName()
+     */
+    public static final String OPTION_PARTITION_METHOD_NAME = "partitionMethodName";
+
+    /**
+     * @see #comparatorMethodName()
+     */
+    public static final String OPTION_COMPARATOR_METHOD_NAME = "comparatorMethodName";
+
     /**
      * @see #copyMethodName()
      */
@@ -55,6 +116,46 @@ public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
      */
     public static final String OPTION_COMPONENTS_METHOD_NAME = "componentsMethodName";
 
+    /**
+     * @see #forEachComponentMethodName()
+     */
+    public static final String OPTION_FOR_EACH_COMPONENT_METHOD_NAME = "forEachComponentMethodName";
+
+    /**
+     * @see #schemaMethodName()
+     */
+    public static final String OPTION_SCHEMA_METHOD_NAME = "schemaMethodName";
+
+    /**
+     * @see #toMapMethodName()
+     */
+    public static final String OPTION_TO_MAP_METHOD_NAME = "toMapMethodName";
+
+    /**
+     * @see #fromMapMethodName()
+     */
+    public static final String OPTION_FROM_MAP_METHOD_NAME = "fromMapMethodName";
+
+    /**
+     * @see #unknownMapKeyPolicy()
+     */
+    public static final String OPTION_UNKNOWN_MAP_KEY_POLICY = "unknownMapKeyPolicy";
+
+    /**
+     * @see #witherEquality()
+     */
+    public static final String OPTION_WITHER_EQUALITY = "witherEquality";
+
+    /**
+     * @see #resetMethodName()
+     */
+    public static final String OPTION_RESET_METHOD_NAME = "resetMethodName";
+
+    /**
+     * @see #localMethodName()
+     */
+    public static final String OPTION_LOCAL_METHOD_NAME = "localMethodName";
+
     /**
      * @see #fileComment()
      */
@@ -82,11 +183,31 @@ public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
 
     private final String suffix;
     private final String interfaceSuffix;
+    private final String columnsSuffix;
+    private final String flyweightSuffix;
+    private final String codecSuffix;
+    private final String jsonSuffix;
+    private final String internerSuffix;
+    private final String ofMethodName;
+    private final String keyMapSuffix;
+    private final String setSuffix;
+    private final String longHashMethodName;
+    private final String hashIntoMethodName;
+    private final String partitionMethodName;
+    private final String comparatorMethodName;
     private final String copyMethodName;
     private final String builderMethodName;
     private final String buildMethodName;
     private final String downCastMethodName;
     private final String componentsMethodName;
+    private final String forEachComponentMethodName;
+    private final String schemaMethodName;
+    private final String toMapMethodName;
+    private final String fromMapMethodName;
+    private final UnknownMapKeyPolicy unknownMapKeyPolicy;
+    private final WitherEquality witherEquality;
+    private final String resetMethodName;
+    private final String localMethodName;
     private final String withClassName;
     private final String withClassMethodPrefix;
     private final String fileComment;
@@ -96,11 +217,31 @@ public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
     public OptionBasedRecordBuilderMetaData(Map<String, String> options) {
         suffix = options.getOrDefault(OPTION_SUFFIX, DEFAULT.suffix());
         interfaceSuffix = options.getOrDefault(OPTION_INTERFACE_SUFFIX, DEFAULT.interfaceSuffix());
+        columnsSuffix = options.getOrDefault(OPTION_COLUMNS_SUFFIX, DEFAULT.columnsSuffix());
+        flyweightSuffix = options.getOrDefault(OPTION_FLYWEIGHT_SUFFIX, DEFAULT.flyweightSuffix());
+        codecSuffix = options.getOrDefault(OPTION_CODEC_SUFFIX, DEFAULT.codecSuffix());
+        jsonSuffix = options.getOrDefault(OPTION_JSON_SUFFIX, DEFAULT.jsonSuffix());
+        internerSuffix = options.getOrDefault(OPTION_INTERNER_SUFFIX, DEFAULT.internerSuffix());
+        ofMethodName = options.getOrDefault(OPTION_OF_METHOD_NAME, DEFAULT.ofMethodName());
+        keyMapSuffix = options.getOrDefault(OPTION_KEY_MAP_SUFFIX, DEFAULT.keyMapSuffix());
+        setSuffix = options.getOrDefault(OPTION_SET_SUFFIX, DEFAULT.setSuffix());
+        longHashMethodName = options.getOrDefault(OPTION_LONG_HASH_METHOD_NAME, DEFAULT.longHashMethodName());
+        hashIntoMethodName = options.getOrDefault(OPTION_HASH_INTO_METHOD_NAME, DEFAULT.hashIntoMethodName());
+        partitionMethodName = options.getOrDefault(OPTION_PARTITION_METHOD_NAME, DEFAULT.partitionMethodName());
+        comparatorMethodName = options.getOrDefault(OPTION_COMPARATOR_METHOD_NAME, DEFAULT.comparatorMethodName());
         builderMethodName = options.getOrDefault(OPTION_BUILDER_METHOD_NAME, DEFAULT.builderMethodName());
         copyMethodName = options.getOrDefault(OPTION_COPY_METHOD_NAME, DEFAULT.copyMethodName());
         buildMethodName = options.getOrDefault(OPTION_BUILD_METHOD_NAME, DEFAULT.buildMethodName());
         downCastMethodName = options.getOrDefault(OPTION_DOWN_CAST_METHOD_NAME, DEFAULT.downCastMethodName());
         componentsMethodName = options.getOrDefault(OPTION_COMPONENTS_METHOD_NAME, DEFAULT.componentsMethodName());
+        forEachComponentMethodName = options.getOrDefault(OPTION_FOR_EACH_COMPONENT_METHOD_NAME, DEFAULT.forEachComponentMethodName());
+        schemaMethodName = options.getOrDefault(OPTION_SCHEMA_METHOD_NAME, DEFAULT.schemaMethodName());
+        toMapMethodName = options.getOrDefault(OPTION_TO_MAP_METHOD_NAME, DEFAULT.toMapMethodName());
+        fromMapMethodName = options.getOrDefault(OPTION_FROM_MAP_METHOD_NAME, DEFAULT.fromMapMethodName());
+        resetMethodName = options.getOrDefault(OPTION_RESET_METHOD_NAME, DEFAULT.resetMethodName());
+        localMethodName = options.getOrDefault(OPTION_LOCAL_METHOD_NAME, DEFAULT.localMethodName());
+        unknownMapKeyPolicy = UnknownMapKeyPolicy.valueOf(options.getOrDefault(OPTION_UNKNOWN_MAP_KEY_POLICY, DEFAULT.unknownMapKeyPolicy().name()).toUpperCase(Locale.ROOT));
+        witherEquality = WitherEquality.valueOf(options.getOrDefault(OPTION_WITHER_EQUALITY, DEFAULT.witherEquality().name()).toUpperCase(Locale.ROOT));
         withClassName = options.getOrDefault(OPTION_WITH_CLASS_NAME, DEFAULT.withClassName());
         withClassMethodPrefix = options.getOrDefault(OPTION_WITH_CLASS_METHOD_PREFIX, DEFAULT.withClassMethodPrefix());
         fileComment = options.getOrDefault(OPTION_FILE_COMMENT, DEFAULT.fileComment());
@@ -143,6 +284,46 @@ public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
         return componentsMethodName;
     }
 
+    @Override
+    public String forEachComponentMethodName() {
+        return forEachComponentMethodName;
+    }
+
+    @Override
+    public String schemaMethodName() {
+        return schemaMethodName;
+    }
+
+    @Override
+    public String toMapMethodName() {
+        return toMapMethodName;
+    }
+
+    @Override
+    public String fromMapMethodName() {
+        return fromMapMethodName;
+    }
+
+    @Override
+    public UnknownMapKeyPolicy unknownMapKeyPolicy() {
+        return unknownMapKeyPolicy;
+    }
+
+    @Override
+    public WitherEquality witherEquality() {
+        return witherEquality;
+    }
+
+    @Override
+    public String resetMethodName() {
+        return resetMethodName;
+    }
+
+    @Override
+    public String localMethodName() {
+        return localMethodName;
+    }
+
     @Override
     public String withClassName() {
         return withClassName;
@@ -172,4 +353,64 @@ public class OptionBasedRecordBuilderMetaData implements RecordBuilderMetaData {
     public String interfaceSuffix() {
         return interfaceSuffix;
     }
+
+    @Override
+    public String columnsSuffix() {
+        return columnsSuffix;
+    }
+
+    @Override
+    public String flyweightSuffix() {
+        return flyweightSuffix;
+    }
+
+    @Override
+    public String codecSuffix() {
+        return codecSuffix;
+    }
+
+    @Override
+    public String jsonSuffix() {
+        return jsonSuffix;
+    }
+
+    @Override
+    public String internerSuffix() {
+        return internerSuffix;
+    }
+
+    @Override
+    public String ofMethodName() {
+        return ofMethodName;
+    }
+
+    @Override
+    public String keyMapSuffix() {
+        return keyMapSuffix;
+    }
+
+    @Override
+    public String setSuffix() {
+        return setSuffix;
+    }
+
+    @Override
+    public String longHashMethodName() {
+        return longHashMethodName;
+    }
+
+    @Override
+    public String hashIntoMethodName() {
+        return hashIntoMethodName;
+    }
+
+    @Override
+    public String partitionMethodName() {
+        return partitionMethodName;
+    }
+
+    @Override
+    public String comparatorMethodName() {
+        return comparatorMethodName;
+    }
 }
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.TypeSpec;
+import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Opt-in (see {@link RecordBuilderProcessor#OPTION_PARALLELISM}) parallel generation of record builders. Elements
+ * are read on the processor's thread when the {@link InternalRecordBuilderProcessor} is created. The builder types are
+ * then built and rendered to source text on a fork/join pool. The text is handed back to the processor's thread
+ * which does the {@code Filer} writes.
+ */
+class ParallelRenderer {
+    static class Rendered {
+        private final TypeSpec builderType;
+        private final String source;
+        private final long buildNanos;
+        private final long renderNanos;
+
+        private Rendered(TypeSpec builderType, String source, long buildNanos, long renderNanos) {
+            this.builderType = builderType;
+            this.source = source;
+            this.buildNanos = buildNanos;
+            this.renderNanos = renderNanos;
+        }
+
+        TypeSpec builderType() {
+            return builderType;
+        }
+
+        String source() {
+            return source;
+        }
+
+        long buildNanos() {
+            return buildNanos;
+        }
+
+        long renderNanos() {
+            return renderNanos;
+        }
+    }
+
+    static class Pending {
+        private final TypeElement record;
+        private final InternalRecordBuilderProcessor internalProcessor;
+        private final String fullyQualifiedName;
+        private final String annotationClass;
+        private final long snapshotNanos;
+        private final Element[] originatingElements;
+        private final Future<Rendered> rendered;
+
+        private Pending(TypeElement record, InternalRecordBuilderProcessor internalProcessor, String fullyQualifiedName, String annotationClass, long snapshotNanos, Element[] originatingElements, Future<Rendered> rendered) {
+            this.record = record;
+            this.internalProcessor = internalProcessor;
+            this.fullyQualifiedName = fullyQualifiedName;
+            this.annotationClass = annotationClass;
+            this.snapshotNanos = snapshotNanos;
+            this.originatingElements = originatingElements;
+            this.rendered = rendered;
+        }
+
+        TypeElement record() {
+            return record;
+        }
+
+        InternalRecordBuilderProcessor internalProcessor() {
+            return internalProcessor;
+        }
+
+        String fullyQualifiedName() {
+            return fullyQualifiedName;
+        }
+
+        String annotationClass() {
+            return annotationClass;
+        }
+
+        long snapshotNanos() {
+            return snapshotNanos;
+        }
+
+        Element[] originatingElements() {
+            return originatingElements;
+        }
+
+        Future<Rendered> rendered() {
+            return rendered;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final List<Pending> pending = new ArrayList<>();
+
+    private ParallelRenderer(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Returns a renderer if enabled via {@code -ArecordBuilderParallelism} (one thread per available processor)
+     * or {@code -ArecordBuilderParallelism=n}
+     *
+     * @param options javac options
+     * @param warningLogger receives a message if the option's value is invalid
+     * @return renderer or empty if not enabled or invalid
+     */
+    static Optional<ParallelRenderer> fromOptions(Map<String, String> options, Consumer<String> warningLogger) {
+        if ( !options.containsKey(RecordBuilderProcessor.OPTION_PARALLELISM) )
+        {
+            return Optional.empty();
+        }
+        String value = options.get(RecordBuilderProcessor.OPTION_PARALLELISM);
+        try
+        {
+            int parallelism = ((value == null) || value.isEmpty()) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(value.trim());
+            return (parallelism > 1) ? Optional.of(new ParallelRenderer(parallelism)) : Optional.empty();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // not a number or more threads than ForkJoinPool supports
+            warningLogger.accept("Invalid value for -A" + RecordBuilderProcessor.OPTION_PARALLELISM + ": \"" + value + "\" (" + e.getMessage() + "). Records are generated sequentially.");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Must be called from the processor's thread
+     */
+    void submit(TypeElement record, InternalRecordBuilderProcessor internalProcessor, RecordBuilderMetaData metaData, String fullyQualifiedName, String annotationClass, long snapshotNanos, Element[] originatingElements) {
+        Future<Rendered> rendered = pool.submit(() -> {
+            long startNanos = System.nanoTime();
+            TypeSpec builderType = internalProcessor.build();
+            long renderStartNanos = System.nanoTime();
+            String source = RecordBuilderProcessor.javaFileBuilder(internalProcessor.packageName(), builderType, metaData).toString();
+            return new Rendered(builderType, source, renderStartNanos - startNanos, System.nanoTime() - renderStartNanos);
+        });
+        pending.add(new Pending(record, internalProcessor, fullyQualifiedName, annotationClass, snapshotNanos, originatingElements, rendered));
+    }
+
+    /**
+     * Returns everything submitted since the last call, in submission order
+     */
+    List<Pending> drain() {
+        List<Pending> drained = new ArrayList<>(pending);
+        pending.clear();
+        return drained;
+    }
+
+    void close() {
+        pending.forEach(p -> p.rendered().cancel(true));
+        pending.clear();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.TypeName;
+import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * State shared by all elements processed by a single processor instance. Created once
+ * in {@code init()} and reused for every round. Anything that depends on javac's
+ * {@code Element}/{@code TypeMirror} instances is only kept for the current round
+ * as javac is free to replace those between rounds.
+ */
+class ProcessingSession {
+    private final ProcessingEnvironment processingEnv;
+    private final RecordBuilderMetaData metaData;
+    private final Optional<ProcessingStatistics> statistics;
+    private final Optional<ParallelRenderer> parallelRenderer;
+    private final Optional<FingerprintCache> fingerprintCache;
+    private final GenerationRegistry generationRegistry = new GenerationRegistry();
+    private final Map<String, ClassName> classNames = new HashMap<>();
+    private final Map<String, ClassName> generatedClassNames = new HashMap<>();
+    private final Map<String, Optional<TypeElement>> roundAnnotationTypes = new HashMap<>();
+    private final Map<TypeMirror, TypeName> roundTypeNames = new IdentityHashMap<>();
+    private final Map<Element, Map<String, Optional<IncludeAttributes>>> roundIncludeAttributes = new IdentityHashMap<>();
+    private int round;
+
+    /**
+     * @param processingEnv the processor's environment
+     * @param processorName used to name the processor's resources
+     * @param options the processor options to use - usually {@code processingEnv.getOptions()}
+     */
+    ProcessingSession(ProcessingEnvironment processingEnv, String processorName, Map<String, String> options) {
+        this.processingEnv = processingEnv;
+        Consumer<String> logger = s -> processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, s);
+        metaData = new RecordBuilderMetaDataLoader(processingEnv, logger).getMetaData();
+        statistics = ProcessingStatistics.fromOptions(options);
+        parallelRenderer = ParallelRenderer.fromOptions(options, message -> processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message));
+        fingerprintCache = FingerprintCache.fromOptions(options, processingEnv.getFiler(), processorName, metaData, logger);
+    }
+
+    ProcessingEnvironment processingEnv() {
+        return processingEnv;
+    }
+
+    RecordBuilderMetaData metaData() {
+        return metaData;
+    }
+
+    Optional<ProcessingStatistics> statistics() {
+        return statistics;
+    }
+
+    Optional<ParallelRenderer> parallelRenderer() {
+        return parallelRenderer;
+    }
+
+    Optional<FingerprintCache> fingerprintCache() {
+        return fingerprintCache;
+    }
+
+    GenerationRegistry generationRegistry() {
+        return generationRegistry;
+    }
+
+    int round() {
+        return round;
+    }
+
+    /**
+     * Must be called at the start of each round. Clears the per-round memo tables.
+     */
+    void startRound() {
+        ++round;
+        roundAnnotationTypes.clear();
+        roundTypeNames.clear();
+        roundIncludeAttributes.clear();
+    }
+
+    /**
+     * Must be called when processing is over. Releases everything held by the session.
+     */
+    void close() {
+        parallelRenderer.ifPresent(ParallelRenderer::close);
+        classNames.clear();
+        generatedClassNames.clear();
+        generationRegistry.clear();
+        roundAnnotationTypes.clear();
+        roundTypeNames.clear();
+        roundIncludeAttributes.clear();
+    }
+
+    /**
+     * Return the type element for the given annotation (canonical name) resolved once per round
+     *
+     * @param annotationClass canonical name of the annotation
+     * @return type element or empty if the annotation isn't on the class path
+     */
+    Optional<TypeElement> annotationType(String annotationClass) {
+        return roundAnnotationTypes.computeIfAbsent(annotationClass, name -> Optional.ofNullable(processingEnv.getElementUtils().getTypeElement(name)));
+    }
+
+    /**
+     * Return the parsed Include annotation values for the given element. The annotation is found by comparing
+     * the resolved annotation type (or its name) and the parsed values are cached for the round.
+     *
+     * @param element element annotated with an Include annotation
+     * @param annotationClass canonical name of the Include annotation
+     * @return values or empty if the element isn't annotated or the values can't be read
+     */
+    Optional<IncludeAttributes> includeAttributes(Element element, String annotationClass) {
+        return roundIncludeAttributes.computeIfAbsent(element, e -> new HashMap<>())
+            .computeIfAbsent(annotationClass, name -> annotationMirror(element, name)
+                .flatMap(annotationMirror -> IncludeAttributes.parse(processingEnv, annotationMirror)));
+    }
+
+    /**
+     * Return the given annotation of the element. Compares the resolved annotation type by identity
+     * and falls back to comparing names.
+     *
+     * @param element the element
+     * @param annotationClass canonical name of the annotation
+     * @return annotation or empty
+     */
+    Optional<? extends AnnotationMirror> annotationMirror(Element element, String annotationClass) {
+        return ElementUtils.findAnnotationMirror(element, annotationType(annotationClass).orElse(null), annotationClass);
+    }
+
+    ClassName className(TypeElement typeElement) {
+        return classNames.computeIfAbsent(typeElement.getQualifiedName().toString(), name -> ClassName.get(typeElement));
+    }
+
+    ClassName className(String packageName, String simpleName) {
+        String key = packageName.isEmpty() ? simpleName : (packageName + "." + simpleName);
+        return generatedClassNames.computeIfAbsent(key, name -> ClassName.get(packageName, simpleName));
+    }
+
+    TypeName typeName(TypeMirror typeMirror) {
+        return roundTypeNames.computeIfAbsent(typeMirror, TypeName::get);
+    }
+
+    ClassType classType(RecordComponentElement recordComponent) {
+        return new ClassType(typeName(recordComponent.asType()), recordComponent.getSimpleName().toString());
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Collects per-element timings and output sizes when the {@link RecordBuilderProcessor#OPTION_STATS}
+ * javac option is set. The report is written as a {@code CLASS_OUTPUT} resource when processing is over.
+ */
+class ProcessingStatistics {
+    enum Format {
+        JSON,
+        CSV
+    }
+
+    static class Entry {
+        private final int round;
+        private final boolean companion;
+        private final String element;
+        private final String annotation;
+        private final long processNanos;
+        private final long renderNanos;
+        private final long generatedBytes;
+        private final int generatedMethods;
+
+        /**
+         * @param companion true for the companion files of an element. Their build time is part of the element's
+         *                  {@code processNanos} so they only contribute render time, bytes and methods to the totals.
+         */
+        Entry(int round, boolean companion, String element, String annotation, long processNanos, long renderNanos, long generatedBytes, int generatedMethods) {
+            this.round = round;
+            this.companion = companion;
+            this.element = element;
+            this.annotation = annotation;
+            this.processNanos = processNanos;
+            this.renderNanos = renderNanos;
+            this.generatedBytes = generatedBytes;
+            this.generatedMethods = generatedMethods;
+        }
+    }
+
+    private static class RoundTotal {
+        private int elements;
+        private long processNanos;
+        private long renderNanos;
+        private long generatedBytes;
+        private int generatedMethods;
+
+        private void add(Entry entry) {
+            if ( !entry.companion )
+            {
+                ++elements;
+                processNanos += entry.processNanos;
+            }
+            renderNanos += entry.renderNanos;
+            generatedBytes += entry.generatedBytes;
+            generatedMethods += entry.generatedMethods;
+        }
+    }
+
+    private final Format format;
+    private final List<Entry> entries = new ArrayList<>();
+
+    private ProcessingStatistics(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns statistics if enabled via {@code -ArecordBuilderStats} (JSON report) or
+     * {@code -ArecordBuilderStats=csv} (CSV report)
+     *
+     * @param options javac options
+     * @return statistics or empty if not enabled
+     */
+    static Optional<ProcessingStatistics> fromOptions(Map<String, String> options) {
+        if ( !options.containsKey(RecordBuilderProcessor.OPTION_STATS) )
+        {
+            return Optional.empty();
+        }
+        String value = options.get(RecordBuilderProcessor.OPTION_STATS);
+        if ( "false".equalsIgnoreCase(value) )
+        {
+            return Optional.empty();
+        }
+        return Optional.of(new ProcessingStatistics("csv".equalsIgnoreCase(value) ? Format.CSV : Format.JSON));
+    }
+
+    static int methodCount(TypeSpec typeSpec) {
+        return typeSpec.methodSpecs.size() + typeSpec.typeSpecs.stream().mapToInt(ProcessingStatistics::methodCount).sum();
+    }
+
+    String resourceName(String processorName) {
+        return "META-INF/record-builder/" + processorName + "-stats." + format.name().toLowerCase();
+    }
+
+    synchronized void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    synchronized void writeTo(Writer writer, String processorName) throws IOException {
+        Map<Integer, RoundTotal> roundTotals = new TreeMap<>();
+        entries.forEach(entry -> roundTotals.computeIfAbsent(entry.round, round -> new RoundTotal()).add(entry));
+        if ( format == Format.CSV )
+        {
+            writeCsv(writer, roundTotals);
+        }
+        else
+        {
+            writeJson(writer, processorName, roundTotals);
+        }
+    }
+
+    private void writeCsv(Writer writer, Map<Integer, RoundTotal> roundTotals) throws IOException {
+        writer.write("type,round,element,annotation,elements,processNanos,renderNanos,generatedBytes,generatedMethods\n");
+        for ( Entry entry : entries )
+        {
+            writer.write(String.format("%s,%d,%s,%s,%d,%d,%d,%d,%d\n", entry.companion ? "companion" : "element", entry.round, entry.element, entry.annotation, entry.companion ? 0 : 1, entry.processNanos, entry.renderNanos, entry.generatedBytes, entry.generatedMethods));
+        }
+        for ( Map.Entry<Integer, RoundTotal> entry : roundTotals.entrySet() )
+        {
+            RoundTotal total = entry.getValue();
+            writer.write(String.format("round,%d,,,%d,%d,%d,%d,%d\n", entry.getKey(), total.elements, total.processNanos, total.renderNanos, total.generatedBytes, total.generatedMethods));
+        }
+    }
+
+    private void writeJson(Writer writer, String processorName, Map<Integer, RoundTotal> roundTotals) throws IOException {
+        writer.write("{\n  \"processor\": " + jsonString(processorName) + ",\n  \"elements\": [");
+        for ( int index = 0; index < entries.size(); ++index )
+        {
+            Entry entry = entries.get(index);
+            writer.write((index > 0) ? ",\n    " : "\n    ");
+            writer.write(String.format("{\"round\": %d, \"companion\": %b, \"element\": %s, \"annotation\": %s, \"processNanos\": %d, \"renderNanos\": %d, \"generatedBytes\": %d, \"generatedMethods\": %d}",
+                entry.round, entry.companion, jsonString(entry.element), jsonString(entry.annotation), entry.processNanos, entry.renderNanos, entry.generatedBytes, entry.generatedMethods));
+        }
+        writer.write("\n  ],\n  \"rounds\": [");
+        String separator = "\n    ";
+        for ( Map.Entry<Integer, RoundTotal> entry : roundTotals.entrySet() )
+        {
+            RoundTotal total = entry.getValue();
+            writer.write(separator);
+            writer.write(String.format("{\"round\": %d, \"elements\": %d, \"processNanos\": %d, \"renderNanos\": %d, \"generatedBytes\": %d, \"generatedMethods\": %d}",
+                entry.getKey(), total.elements, total.processNanos, total.renderNanos, total.generatedBytes, total.generatedMethods));
+            separator = ",\n    ";
+        }
+        writer.write("\n  ]\n}\n");
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder str = new StringBuilder("\"");
+        for ( char c : value.toCharArray() )
+        {
+            switch ( c )
+            {
+                case '"': str.append("\\\""); break;
+                case '\\': str.append("\\\\"); break;
+                case '\n': str.append("\\n"); break;
+                default:
+                {
+                    if ( c < 0x20 )
+                    {
+                        str.append(String.format("\\u%04x", (int)c));
+                    }
+                    else
+                    {
+                        str.append(c);
+                    }
+                    break;
+                }
+            }
+        }
+        return str.append('"').toString();
+    }
+}
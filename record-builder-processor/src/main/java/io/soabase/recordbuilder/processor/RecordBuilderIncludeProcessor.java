@@ -0,0 +1,37 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import java.util.Set;
+
+/**
+ * Processes {@code @RecordBuilder.Include} and {@code @RecordInterface.Include}. The included classes
+ * can come from anywhere (other source files, libraries, etc.) so the generated files depend on more than
+ * the annotated element (an "aggregating" processor in Gradle terms). Keeping this separate from
+ * {@link RecordBuilderProcessor} lets Gradle treat the much more common {@code @RecordBuilder}/{@code @RecordInterface}
+ * generation incrementally.
+ */
+public class RecordBuilderIncludeProcessor extends RecordBuilderProcessor {
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(RECORD_BUILDER_INCLUDE, RECORD_INTERFACE_INCLUDE);
+    }
+
+    @Override
+    boolean isIsolating() {
+        return false;
+    }
+}
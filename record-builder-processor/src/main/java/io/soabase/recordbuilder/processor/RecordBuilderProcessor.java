@@ -16,6 +16,7 @@
 package io.soabase.recordbuilder.processor;
 
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.TypeSpec;
 import io.soabase.recordbuilder.core.RecordBuilder;
@@ -24,6 +25,7 @@ import io.soabase.recordbuilder.core.RecordInterface;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Generated;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
@@ -31,31 +33,160 @@ import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Processes {@code @RecordBuilder} and {@code @RecordInterface}. Each generated file depends
+ * only on the single annotated type (an "isolating" processor in Gradle terms). The Include
+ * variants are handled by {@link RecordBuilderIncludeProcessor}. The processor is registered as
+ * "dynamic" for Gradle and reports itself as "aggregating" if {@link #OPTION_STATS} or
+ * {@link #OPTION_FINGERPRINT_CACHE} is set as these write files that aren't tied to a single annotated type.
+ */
 public class RecordBuilderProcessor extends AbstractProcessor {
-    private static final String RECORD_BUILDER = RecordBuilder.class.getName();
-    private static final String RECORD_BUILDER_INCLUDE = RecordBuilder.Include.class.getName().replace('$', '.');
-    private static final String RECORD_INTERFACE = RecordInterface.class.getName();
-    private static final String RECORD_INTERFACE_INCLUDE = RecordInterface.Include.class.getName().replace('$', '.');
+    static final String RECORD_BUILDER = RecordBuilder.class.getName();
+    static final String RECORD_BUILDER_INCLUDE = RecordBuilder.Include.class.getName().replace('$', '.');
+    static final String RECORD_INTERFACE = RecordInterface.class.getName();
+    static final String RECORD_INTERFACE_INCLUDE = RecordInterface.Include.class.getName().replace('$', '.');
+
+    /**
+     * If set, a report with per-element processing times and generated sizes is written to
+     * {@code META-INF/record-builder/<processor>-stats.json} in the class output. Use
+     * {@code -ArecordBuilderStats=csv} for a CSV report. Makes this processor aggregating in Gradle
+     * incremental builds.
+     */
+    public static final String OPTION_STATS = "recordBuilderStats";
+
+    /**
+     * If set, record builders are built and rendered in parallel. Use {@code -ArecordBuilderParallelism}
+     * for one thread per available processor or {@code -ArecordBuilderParallelism=n} for {@code n} threads.
+     */
+    public static final String OPTION_PARALLELISM = "recordBuilderParallelism";
+
+    /**
+     * If set, a fingerprint of each record is kept in the source output directory. Unchanged records
+     * reuse their previously generated builder and companions instead of generating them again. Makes
+     * this processor aggregating in Gradle incremental builds.
+     */
+    public static final String OPTION_FINGERPRINT_CACHE = "recordBuilderFingerprintCache";
+
+    // see https://docs.gradle.org/current/userguide/java_plugin.html#sec:incremental_annotation_processing
+    private static final String GRADLE_ISOLATING = "org.gradle.annotation.processing.isolating";
+    private static final String GRADLE_AGGREGATING = "org.gradle.annotation.processing.aggregating";
 
     static final AnnotationSpec generatedRecordBuilderAnnotation = AnnotationSpec.builder(Generated.class).addMember("value", "$S", RecordBuilder.class.getName()).build();
     static final AnnotationSpec generatedRecordInterfaceAnnotation = AnnotationSpec.builder(Generated.class).addMember("value", "$S", RecordInterface.class.getName()).build();
 
+    private ProcessingSession session;
+    private final Map<String, String> expectedIncludes = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        session = new ProcessingSession(processingEnv, getClass().getSimpleName(), processingEnv.getOptions());
+    }
+
+    /**
+     * Return true if this processor is registered as "isolating" for Gradle's incremental annotation processing
+     * (see {@code META-INF/gradle/incremental.annotation.processors})
+     */
+    boolean isIsolating() {
+        return true;
+    }
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        annotations.forEach(annotation -> roundEnv.getElementsAnnotatedWith(annotation).forEach(element -> process(annotation, element)));
+        session.startRound();
+        if ( roundEnv.errorRaised() )
+        {
+            session.fingerprintCache().ifPresent(FingerprintCache::discard);
+        }
+        annotations.forEach(annotation -> process(annotation, roundEnv.getElementsAnnotatedWith(annotation)));
+        session.parallelRenderer().ifPresent(this::writeRendered);
+        if ( isIsolating() )
+        {
+            collectExpectedIncludes(roundEnv);
+        }
+        if ( roundEnv.processingOver() )
+        {
+            warnUnprocessedIncludes();
+            session.statistics().ifPresent(this::writeStatistics);
+            session.fingerprintCache().ifPresent(this::saveFingerprintCache);
+            session.close();
+        }
         return true;
     }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> options = new HashSet<>(SUPPORTED_OPTIONS);
+        // Gradle asks a "dynamic" processor for its type via the supported options after init()
+        options.add(isAggregating() ? GRADLE_AGGREGATING : GRADLE_ISOLATING);
+        return options;
+    }
+
+    private boolean isAggregating() {
+        if ( !isIsolating() )
+        {
+            return true;
+        }
+        // the statistics report and the fingerprint index aren't tied to a single originating element
+        return (session != null) && (session.statistics().isPresent() || session.fingerprintCache().isPresent());
+    }
+
+    private static final Set<String> SUPPORTED_OPTIONS = Set.of(
+            RecordBuilderMetaData.JAVAC_OPTION_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_INTERFACE_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_COLUMNS_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_FLYWEIGHT_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_CODEC_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_JSON_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_INTERNER_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_OF_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_KEY_MAP_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_SET_SUFFIX,
+            OptionBasedRecordBuilderMetaData.OPTION_LONG_HASH_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_HASH_INTO_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_PARTITION_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_COMPARATOR_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_COPY_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_BUILDER_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_BUILD_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_DOWN_CAST_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_COMPONENTS_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_FOR_EACH_COMPONENT_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_SCHEMA_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_TO_MAP_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_FROM_MAP_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_UNKNOWN_MAP_KEY_POLICY,
+            OptionBasedRecordBuilderMetaData.OPTION_WITHER_EQUALITY,
+            OptionBasedRecordBuilderMetaData.OPTION_RESET_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_LOCAL_METHOD_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_FILE_COMMENT,
+            OptionBasedRecordBuilderMetaData.OPTION_FILE_INDENT,
+            OptionBasedRecordBuilderMetaData.OPTION_PREFIX_ENCLOSING_CLASS_NAMES,
+            OptionBasedRecordBuilderMetaData.OPTION_WITH_CLASS_NAME,
+            OptionBasedRecordBuilderMetaData.OPTION_WITH_CLASS_METHOD_PREFIX,
+            OPTION_STATS,
+            OPTION_PARALLELISM,
+            OPTION_FINGERPRINT_CACHE
+    );
+
     @Override
     public Set<String> getSupportedAnnotationTypes() {
-        return Set.of(RECORD_BUILDER, RECORD_BUILDER_INCLUDE, RECORD_INTERFACE, RECORD_INTERFACE_INCLUDE);
+        return Set.of(RECORD_BUILDER, RECORD_INTERFACE);
     }
 
     @Override
@@ -67,21 +198,25 @@ public class RecordBuilderProcessor extends AbstractProcessor {
         return SourceVersion.latest();
     }
 
-    private void process(TypeElement annotation, Element element) {
-        var metaData = new RecordBuilderMetaDataLoader(processingEnv, s -> processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, s)).getMetaData();
+    private void process(TypeElement annotation, Set<? extends Element> elements) {
+        var metaData = session.metaData();
 
-        String annotationClass = annotation.getQualifiedName().toString();
-        if ( annotationClass.equals(RECORD_BUILDER) )
+        // the annotation types are resolved once per round - compare by identity first and by name only if that fails
+        if ( isAnnotation(annotation, RECORD_BUILDER) )
+        {
+            elements.forEach(element -> processRecordBuilder((TypeElement)element, metaData, Optional.empty(), RECORD_BUILDER, element));
+        }
+        else if ( isAnnotation(annotation, RECORD_INTERFACE) )
         {
-            processRecordBuilder((TypeElement)element, metaData, Optional.empty());
+            elements.forEach(element -> processRecordInterface((TypeElement)element, element.getAnnotation(RecordInterface.class).addRecordBuilder(), metaData, Optional.empty(), RECORD_INTERFACE, element));
         }
-        else if ( annotationClass.equals(RECORD_INTERFACE) )
+        else if ( isAnnotation(annotation, RECORD_BUILDER_INCLUDE) )
         {
-            processRecordInterface((TypeElement)element, element.getAnnotation(RecordInterface.class).addRecordBuilder(), metaData, Optional.empty());
+            elements.forEach(element -> processIncludes(element, metaData, RECORD_BUILDER_INCLUDE));
         }
-        else if ( annotationClass.equals(RECORD_BUILDER_INCLUDE) || annotationClass.equals(RECORD_INTERFACE_INCLUDE) )
+        else if ( isAnnotation(annotation, RECORD_INTERFACE_INCLUDE) )
         {
-            processIncludes(element, metaData, annotationClass);
+            elements.forEach(element -> processIncludes(element, metaData, RECORD_INTERFACE_INCLUDE));
         }
         else
         {
@@ -89,51 +224,106 @@ public class RecordBuilderProcessor extends AbstractProcessor {
         }
     }
 
+    private boolean isAnnotation(TypeElement annotation, String annotationClass) {
+        // fall back to comparing names if the type can't be resolved or javac returned a different instance
+        return session.annotationType(annotationClass).map(annotationType -> annotationType == annotation).orElse(false)
+            || annotation.getQualifiedName().contentEquals(annotationClass);
+    }
+
     private void processIncludes(Element element, RecordBuilderMetaData metaData, String annotationClass) {
-        var annotationMirrorOpt = ElementUtils.findAnnotationMirror(processingEnv, element, annotationClass);
-        if ( annotationMirrorOpt.isEmpty() )
+        var includeAttributes = session.includeAttributes(element, annotationClass);
+        if ( includeAttributes.isEmpty() )
         {
-            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not get annotation mirror for: " + annotationClass, element);
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not get annotation values for: " + annotationClass, element);
+            return;
         }
-        else
+        var attributes = includeAttributes.get();
+        for ( TypeMirror mirror : attributes.classes() )
         {
-            var values = processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirrorOpt.get());
-            var classes = ElementUtils.getAnnotationValue(values, "value");
-            if ( classes.isEmpty() )
+            TypeElement typeElement = (TypeElement)processingEnv.getTypeUtils().asElement(mirror);
+            if ( typeElement == null )
             {
-                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not get annotation value for: " + annotationClass, element);
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not get element for: " + mirror, element);
             }
             else
             {
-                var packagePattern = ElementUtils.getStringAttribute(ElementUtils.getAnnotationValue(values, "packagePattern").orElse(null), "*");
-                var classesMirrors = ElementUtils.getClassesAttribute(classes.get());
-                for ( TypeMirror mirror : classesMirrors )
+                var packageName = buildPackageName(attributes.packagePattern(), element, typeElement);
+                if ( (packageName != null) && shouldGenerateInclude(element, annotationClass, typeElement, packageName, metaData) )
                 {
-                    TypeElement typeElement = (TypeElement)processingEnv.getTypeUtils().asElement(mirror);
-                    if ( typeElement == null )
+                    if ( annotationClass.equals(RECORD_INTERFACE_INCLUDE) )
                     {
-                        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not get element for: " + mirror, element);
+                        processRecordInterface(typeElement, attributes.addRecordBuilder(), metaData, Optional.of(packageName), annotationClass, element, typeElement);
                     }
                     else
                     {
-                        var packageName = buildPackageName(packagePattern, element, typeElement);
-                        if (packageName != null)
-                        {
-                            if ( annotationClass.equals(RECORD_INTERFACE_INCLUDE) )
-                            {
-                                var addRecordBuilderOpt = ElementUtils.getAnnotationValue(values, "addRecordBuilder");
-                                var addRecordBuilder = addRecordBuilderOpt.map(ElementUtils::getBooleanAttribute).orElse(true);
-                                processRecordInterface(typeElement, addRecordBuilder, metaData, Optional.of(packageName));
-                            }
-                            else
-                            {
-                                processRecordBuilder(typeElement, metaData, Optional.of(packageName));
-                            }
-                        }
+                        processRecordBuilder(typeElement, metaData, Optional.of(packageName), annotationClass, element, typeElement);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Include annotations are processed by {@link RecordBuilderIncludeProcessor}. Builds that only enable this processor
+     * would silently lose the generated files so remember what the Include processor is expected to generate
+     */
+    private void collectExpectedIncludes(RoundEnvironment roundEnv) {
+        var metaData = session.metaData();
+        for ( String annotationClass : List.of(RECORD_BUILDER_INCLUDE, RECORD_INTERFACE_INCLUDE) )
+        {
+            session.annotationType(annotationClass).ifPresent(annotationType -> roundEnv.getElementsAnnotatedWith(annotationType).forEach(element -> {
+                var includeAttributes = session.includeAttributes(element, annotationClass);
+                if ( includeAttributes.isEmpty() )
+                {
+                    return;
+                }
+                for ( TypeMirror mirror : includeAttributes.get().classes() )
+                {
+                    TypeElement typeElement = (TypeElement)processingEnv.getTypeUtils().asElement(mirror);
+                    String packageName = (typeElement != null) ? buildPackageName(includeAttributes.get().packagePattern(), element, typeElement) : null;
+                    if ( packageName != null )
+                    {
+                        expectedIncludes.putIfAbsent(includeTarget(annotationClass, typeElement, packageName, metaData), "@" + annotationClass + " on " + element);
                     }
                 }
+            }));
+        }
+    }
+
+    private void warnUnprocessedIncludes() {
+        expectedIncludes.forEach((target, include) -> {
+            if ( processingEnv.getElementUtils().getTypeElement(target) == null )
+            {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, target + " was not generated for " + include + ". Include annotations are processed by " + RecordBuilderIncludeProcessor.class.getName() + " which must be enabled in addition to " + RecordBuilderProcessor.class.getName());
             }
+        });
+        expectedIncludes.clear();
+    }
+
+    private String includeTarget(String annotationClass, TypeElement includedClass, String packageName, RecordBuilderMetaData metaData) {
+        String suffix = annotationClass.equals(RECORD_INTERFACE_INCLUDE) ? metaData.interfaceSuffix() : metaData.suffix();
+        ClassName includedClassName = session.className(includedClass);
+        return fullyQualifiedName(packageName, ElementUtils.getBuilderName(includedClass, metaData, new ClassType(includedClassName, includedClassName.simpleName()), suffix));
+    }
+
+    private boolean shouldGenerateInclude(Element element, String annotationClass, TypeElement includedClass, String packageName, RecordBuilderMetaData metaData) {
+        boolean isInterfaceInclude = annotationClass.equals(RECORD_INTERFACE_INCLUDE);
+        String target = includeTarget(annotationClass, includedClass, packageName, metaData);
+
+        // the included class might also be directly annotated in which case the other processor generates the same class
+        String directAnnotationClass = isInterfaceInclude ? RECORD_INTERFACE : RECORD_BUILDER;
+        boolean isDirectlyAnnotated = session.annotationMirror(includedClass, directAnnotationClass).isPresent();
+        if ( isDirectlyAnnotated && packageName.equals(ElementUtils.getPackageName(includedClass)) )
+        {
+            return false;
         }
+
+        var result = session.generationRegistry().register(target, includedClass.getQualifiedName().toString(), element.toString());
+        if ( result.status() == GenerationRegistry.Status.CONFLICT )
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, result.message(), element);
+        }
+        return result.status() == GenerationRegistry.Status.NEW;
     }
 
     private String buildPackageName(String packagePattern, Element builderElement, TypeElement includedClass) {
@@ -159,21 +349,25 @@ public class RecordBuilderProcessor extends AbstractProcessor {
         return findPackageElement(actualElement, includedClass.getEnclosingElement());
     }
 
-    private void processRecordInterface(TypeElement element, boolean addRecordBuilder, RecordBuilderMetaData metaData, Optional<String> packageName) {
+    private void processRecordInterface(TypeElement element, boolean addRecordBuilder, RecordBuilderMetaData metaData, Optional<String> packageName, String annotationClass, Element... originatingElements) {
         if ( !element.getKind().isInterface() )
         {
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "RecordInterface only valid for interfaces.", element);
             return;
         }
-        var internalProcessor = new InternalRecordInterfaceProcessor(processingEnv, element, addRecordBuilder, metaData, packageName);
+        long startNanos = System.nanoTime();
+        var internalProcessor = new InternalRecordInterfaceProcessor(session, element, addRecordBuilder, metaData, packageName);
         if ( !internalProcessor.isValid() )
         {
             return;
         }
-        writeRecordInterfaceJavaFile(element, internalProcessor.packageName(), internalProcessor.recordClassType(), internalProcessor.recordType(), metaData, internalProcessor::toRecord);
+        long renderStartNanos = System.nanoTime();
+        String fullyQualifiedName = fullyQualifiedName(internalProcessor.packageName(), internalProcessor.recordClassType());
+        writeJavaFile(element, fullyQualifiedName, originatingElements, writer -> internalProcessor.recordEmitter().writeTo(writer, metaData.fileComment(), metaData.fileIndent()))
+            .ifPresent(generatedBytes -> addStatistics(element, false, annotationClass, renderStartNanos - startNanos, System.nanoTime() - renderStartNanos, generatedBytes, 0));
     }
 
-    private void processRecordBuilder(TypeElement record, RecordBuilderMetaData metaData, Optional<String> packageName) {
+    private void processRecordBuilder(TypeElement record, RecordBuilderMetaData metaData, Optional<String> packageName, String annotationClass, Element... originatingElements) {
         // we use string based name comparison for the element kind,
         // as the ElementKind.RECORD enum doesn't exist on JRE releases
         // older than Java 14, and we don't want to throw unexpected
@@ -183,53 +377,183 @@ public class RecordBuilderProcessor extends AbstractProcessor {
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "RecordBuilder only valid for records.", record);
             return;
         }
-        var internalProcessor = new InternalRecordBuilderProcessor(record, metaData, packageName);
-        writeRecordBuilderJavaFile(record, internalProcessor.packageName(), internalProcessor.builderClassType(), internalProcessor.builderType(), metaData);
+        long startNanos = System.nanoTime();
+        // check the cache before creating the processor so that an unchanged record isn't processed at all
+        Optional<Map<String, String>> cachedSources = session.fingerprintCache().flatMap(cache -> {
+            String fingerprint = cache.fingerprint(InternalRecordBuilderProcessor.structuralSignature(record, packageName));
+            return cache.cachedSources(cacheKey(record.getQualifiedName().toString(), packageName.orElseGet(() -> ElementUtils.getPackageName(record))), fingerprint);
+        });
+        if ( cachedSources.isPresent() )
+        {
+            // the replayed builder and companions are recorded as a single entry for the record
+            long renderStartNanos = System.nanoTime();
+            long generatedBytes = 0;
+            for ( Map.Entry<String, String> cached : cachedSources.get().entrySet() )
+            {
+                String cachedSource = cached.getValue();
+                generatedBytes += writeJavaFile(record, cached.getKey(), originatingElements, writer -> writer.write(cachedSource)).orElse(0);
+            }
+            addStatistics(record, false, annotationClass, renderStartNanos - startNanos, System.nanoTime() - renderStartNanos, generatedBytes, 0);
+            return;
+        }
+        var internalProcessor = new InternalRecordBuilderProcessor(session, record, metaData, packageName);
+        String fullyQualifiedName = fullyQualifiedName(internalProcessor.packageName(), internalProcessor.builderClassType());
+        // companion render time is recorded in the companion entries so it's removed from the record's build time
+        long companionRenderNanos = writeCompanions(record, internalProcessor, metaData, annotationClass, originatingElements);
+        var parallelRenderer = session.parallelRenderer();
+        if ( parallelRenderer.isPresent() )
+        {
+            parallelRenderer.get().submit(record, internalProcessor, metaData, fullyQualifiedName, annotationClass, System.nanoTime() - startNanos - companionRenderNanos, originatingElements);
+            return;
+        }
+        TypeSpec builderType = internalProcessor.build();
+        long renderStartNanos = System.nanoTime();
+        JavaFile javaFile = javaFileBuilder(internalProcessor.packageName(), builderType, metaData);
+        SourceWriter sourceWriter;
+        if ( session.fingerprintCache().isPresent() )
+        {
+            String source = javaFile.toString();
+            cacheSource(internalProcessor, fullyQualifiedName, source);
+            sourceWriter = writer -> writer.write(source);
+        }
+        else
+        {
+            sourceWriter = javaFile::writeTo;
+        }
+        writeJavaFile(record, fullyQualifiedName, originatingElements, sourceWriter)
+            .ifPresent(generatedBytes -> addStatistics(record, false, annotationClass, renderStartNanos - startNanos - companionRenderNanos, System.nanoTime() - renderStartNanos, generatedBytes, ProcessingStatistics.methodCount(builderType)));
+    }
+
+    /**
+     * Returns the nanos spent rendering and writing the companions. Their build time is part of the record's entry.
+     */
+    private long writeCompanions(TypeElement record, InternalRecordBuilderProcessor internalProcessor, RecordBuilderMetaData metaData, String annotationClass, Element[] originatingElements) {
+        List<TypeSpec> companions = internalProcessor.buildCompanions();
+        long renderNanos = 0;
+        for ( TypeSpec companion : companions )
+        {
+            long renderStartNanos = System.nanoTime();
+            JavaFile javaFile = javaFileBuilder(internalProcessor.packageName(), companion, metaData);
+            String companionName = fullyQualifiedName(internalProcessor.packageName(), companion.name);
+            SourceWriter sourceWriter;
+            if ( session.fingerprintCache().isPresent() )
+            {
+                String source = javaFile.toString();
+                cacheSource(internalProcessor, companionName, source);
+                sourceWriter = writer -> writer.write(source);
+            }
+            else
+            {
+                sourceWriter = javaFile::writeTo;
+            }
+            OptionalLong generatedBytes = writeJavaFile(record, companionName, originatingElements, sourceWriter);
+            long companionRenderNanos = System.nanoTime() - renderStartNanos;
+            renderNanos += companionRenderNanos;
+            generatedBytes.ifPresent(bytes -> addStatistics(record, true, annotationClass, 0, companionRenderNanos, bytes, ProcessingStatistics.methodCount(companion)));
+        }
+        return renderNanos;
+    }
+
+    private void cacheSource(InternalRecordBuilderProcessor internalProcessor, String fullyQualifiedName, String source) {
+        session.fingerprintCache().ifPresent(cache -> cache.put(cacheKey(internalProcessor.recordClassName().canonicalName(), internalProcessor.packageName()), cache.fingerprint(internalProcessor.structuralSignature()), fullyQualifiedName, source));
+    }
+
+    private static String cacheKey(String recordName, String packageName) {
+        // the same record can be generated into several packages via Include
+        return recordName + "@" + packageName;
+    }
+
+    private void writeRendered(ParallelRenderer parallelRenderer) {
+        for ( ParallelRenderer.Pending pending : parallelRenderer.drain() )
+        {
+            ParallelRenderer.Rendered rendered;
+            try
+            {
+                rendered = pending.rendered().get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Interrupted while generating builder", pending.record());
+                return;
+            }
+            catch ( ExecutionException e )
+            {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not generate builder: " + e.getCause(), pending.record());
+                continue;
+            }
+            cacheSource(pending.internalProcessor(), pending.fullyQualifiedName(), rendered.source());
+            writeJavaFile(pending.record(), pending.fullyQualifiedName(), pending.originatingElements(), writer -> writer.write(rendered.source()))
+                .ifPresent(generatedBytes -> addStatistics(pending.record(), false, pending.annotationClass(), pending.snapshotNanos() + rendered.buildNanos(), rendered.renderNanos(), generatedBytes, ProcessingStatistics.methodCount(rendered.builderType())));
+        }
     }
 
-    private void writeRecordBuilderJavaFile(TypeElement record, String packageName, ClassType builderClassType, TypeSpec builderType, RecordBuilderMetaData metaData) {
-        // produces the Java file
-        JavaFile javaFile = javaFileBuilder(packageName, builderType, metaData);
+    @FunctionalInterface
+    private interface SourceWriter {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * Returns the number of bytes written if successful
+     */
+    private OptionalLong writeJavaFile(TypeElement element, String fullyQualifiedName, Element[] originatingElements, SourceWriter sourceWriter) {
         Filer filer = processingEnv.getFiler();
         try
         {
-            String fullyQualifiedName = packageName.isEmpty() ? builderClassType.name() : (packageName + "." + builderClassType.name());
-            JavaFileObject sourceFile = filer.createSourceFile(fullyQualifiedName);
-            try (Writer writer = sourceFile.openWriter())
+            JavaFileObject sourceFile = filer.createSourceFile(fullyQualifiedName, originatingElements);
+            try (CountingWriter writer = new CountingWriter(sourceFile.openWriter()))
             {
-                javaFile.writeTo(writer);
+                sourceWriter.writeTo(writer);
+                return OptionalLong.of(writer.byteCount());
             }
         }
         catch ( IOException e )
         {
-            handleWriteError(record, e);
+            handleWriteError(element, e);
         }
+        return OptionalLong.empty();
     }
 
-    private void writeRecordInterfaceJavaFile(TypeElement element, String packageName, ClassType classType, TypeSpec type, RecordBuilderMetaData metaData, Function<String, String> toRecordProc) {
-        JavaFile javaFile = javaFileBuilder(packageName, type, metaData);
+    private static String fullyQualifiedName(String packageName, ClassType classType) {
+        return fullyQualifiedName(packageName, classType.name());
+    }
 
-        String classSourceCode = javaFile.toString();
-        int generatedIndex = classSourceCode.indexOf("@Generated");
-        String recordSourceCode = toRecordProc.apply(classSourceCode);
+    private static String fullyQualifiedName(String packageName, String simpleName) {
+        return packageName.isEmpty() ? simpleName : (packageName + "." + simpleName);
+    }
 
-        Filer filer = processingEnv.getFiler();
+    private void addStatistics(TypeElement element, boolean companion, String annotationClass, long processNanos, long renderNanos, long generatedBytes, int generatedMethods) {
+        session.statistics().ifPresent(statistics -> statistics.add(new ProcessingStatistics.Entry(session.round(), companion, element.getQualifiedName().toString(), annotationClass, processNanos, renderNanos, generatedBytes, generatedMethods)));
+    }
+
+    private void writeStatistics(ProcessingStatistics statistics) {
+        String processorName = getClass().getSimpleName();
         try
         {
-            String fullyQualifiedName = packageName.isEmpty() ? classType.name() : (packageName + "." + classType.name());
-            JavaFileObject sourceFile = filer.createSourceFile(fullyQualifiedName);
-            try (Writer writer = sourceFile.openWriter())
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", statistics.resourceName(processorName));
+            try (Writer writer = resource.openWriter())
             {
-                writer.write(recordSourceCode);
+                statistics.writeTo(writer, processorName);
             }
         }
         catch ( IOException e )
         {
-            handleWriteError(element, e);
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write processing statistics: " + e.getMessage());
+        }
+    }
+
+    private void saveFingerprintCache(FingerprintCache fingerprintCache) {
+        try
+        {
+            fingerprintCache.save();
+        }
+        catch ( IOException e )
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not save fingerprint cache: " + e.getMessage());
         }
     }
 
-    private JavaFile javaFileBuilder(String packageName, TypeSpec type, RecordBuilderMetaData metaData) {
+    static JavaFile javaFileBuilder(String packageName, TypeSpec type, RecordBuilderMetaData metaData) {
         var javaFileBuilder = JavaFile.builder(packageName, type).skipJavaLangImports(true).indent(metaData.fileIndent());
         var comment = metaData.fileComment();
         if ( (comment != null) && !comment.isEmpty() )
@@ -0,0 +1,391 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Generates the {@code MyRecordSet} companion: an open-addressing (linear probing) hash set that stores the
+ * components of each member inline in one array per component. When the set grows, a table of twice the size
+ * is allocated and the entries of the old table are moved a few slots per {@code add()} so that no single
+ * {@code add()} has to rehash the whole set. Until the move is complete lookups check both tables.
+ */
+class SetGenerator {
+    private static final int MIGRATION_STEP = 8;
+
+    private final InternalRecordBuilderProcessor processor;
+    private final TypeName recordType;
+    private ClassName tableClassName;
+    private final String defaultCapacityName;
+    private final String maximumCapacityName;
+    private final String migrationStepName;
+    private final String tableName;
+    private final String oldName;
+    private final String migratedName;
+    private final String sizeName;
+    private final String hashesName;
+    private final String filledName;
+    private final String hashName;
+    private final String indexName;
+    private final String maskName;
+
+    SetGenerator(InternalRecordBuilderProcessor processor) {
+        this.processor = processor;
+        recordType = processor.recordClassType().typeName();
+        // the fields and locals are in the same scope as the component parameters (or next to the component fields in Table)
+        defaultCapacityName = processor.uniqueName("DEFAULT_CAPACITY");
+        maximumCapacityName = processor.uniqueName("MAXIMUM_CAPACITY");
+        migrationStepName = processor.uniqueName("MIGRATION_STEP");
+        tableName = processor.uniqueName("_table");
+        oldName = processor.uniqueName("_old");
+        migratedName = processor.uniqueName("_migrated");
+        sizeName = processor.uniqueName("_size");
+        hashesName = processor.uniqueName("_hashes");
+        filledName = processor.uniqueName("_filled");
+        hashName = processor.uniqueName("_hash");
+        indexName = processor.uniqueName("_index");
+        maskName = processor.uniqueName("_mask");
+    }
+
+    TypeSpec generate() {
+        /*
+            Generates a class similar to:
+
+            public class MyRecordSet {
+                private static final int DEFAULT_CAPACITY = 16;
+                private static final int MAXIMUM_CAPACITY = 1 << 30;
+                private static final int MIGRATION_STEP = 8;
+                private Table _table;
+                private Table _old;
+                private int _migrated;
+                private int _size;
+
+                public MyRecordSet() {...}
+                public MyRecordSet(int expectedSize) {...}
+                public int size() {...}
+                public boolean isEmpty() {...}
+                public boolean add(int x, String s) {...}
+                public boolean add(MyRecord record) {...}
+                public boolean contains(int x, String s) {...}
+                public boolean contains(MyRecord record) {...}
+                public void clear() {...}
+                public void forEach(Consumer<? super MyRecord> action) {...}
+                public List<MyRecord> toList() {...}
+                private static int hash(int x, String s) {...}
+                private void migrate(int slots) {...}
+
+                private static final class Table {
+                    private final int[] x;
+                    private final Object[] s;
+                    private final int[] _hashes;
+                    private final boolean[] _filled;
+
+                    boolean contains(int _hash, int x, String s) {...}
+                    void insert(int _hash, int x, Object s) {...}
+                    void transfer(int index, Table target) {...}
+                    MyRecord record(int index) {...}
+                }
+            }
+         */
+        var classType = processor.companionClassType(processor.metaData().setSuffix());
+        tableClassName = ClassName.get(processor.packageName(), classType.name(), "Table");
+        var classBuilder = TypeSpec.classBuilder(classType.name())
+                .addJavadoc("A set of {@code $L} instances that stores the record components inline. Adding and looking up\n", processor.recordClassType().name())
+                .addJavadoc("component values doesn't create a record or box. Not thread safe.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(generatedRecordBuilderAnnotation);
+
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, defaultCapacityName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("16").build());
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, maximumCapacityName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("1 << 30").build());
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, migrationStepName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("$L", MIGRATION_STEP).build());
+        classBuilder.addField(tableClassName, tableName, Modifier.PRIVATE);
+        classBuilder.addField(tableClassName, oldName, Modifier.PRIVATE);
+        classBuilder.addField(TypeName.INT, migratedName, Modifier.PRIVATE);
+        classBuilder.addField(TypeName.INT, sizeName, Modifier.PRIVATE);
+
+        addConstructors(classBuilder);
+        classBuilder.addMethod(MethodSpec.methodBuilder("size")
+                .addJavadoc("Return the number of members\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("return $L", sizeName)
+                .build());
+        classBuilder.addMethod(MethodSpec.methodBuilder("isEmpty")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return $L == 0", sizeName)
+                .build());
+        addAddMethods(classBuilder);
+        addContainsMethods(classBuilder);
+        classBuilder.addMethod(MethodSpec.methodBuilder("clear")
+                .addJavadoc("Remove all members\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("$L = new $T($L)", tableName, tableClassName, defaultCapacityName)
+                .addStatement("$L = null", oldName)
+                .addStatement("$L = 0", migratedName)
+                .addStatement("$L = 0", sizeName)
+                .build());
+        addIterationMethods(classBuilder);
+        classBuilder.addMethod(ComponentCodeBlocks.buildHashMethod(processor.recordComponents()));
+        addMigrateMethods(classBuilder);
+        classBuilder.addType(buildTable());
+        return classBuilder.build();
+    }
+
+    private void addConstructors(TypeSpec.Builder classBuilder) {
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("$L = new $T($L)", tableName, tableClassName, defaultCapacityName)
+                .build());
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addJavadoc("@param expectedSize number of members that can be added without resizing\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.INT, "expectedSize")
+                .beginControlFlow("if (expectedSize < 0)")
+                .addStatement("throw new $T($S + expectedSize)", IllegalArgumentException.class, "Illegal size: ")
+                .endControlFlow()
+                .addStatement("int capacity = $L", defaultCapacityName)
+                .beginControlFlow("while ((capacity < $L) && (maxSize(capacity) < expectedSize))", maximumCapacityName)
+                .addStatement("capacity <<= 1")
+                .endControlFlow()
+                .addStatement("$L = new $T(capacity)", tableName, tableClassName)
+                .build());
+    }
+
+    private void addAddMethods(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        var arguments = ComponentCodeBlocks.arguments(components, null);
+        var addBuilder = MethodSpec.methodBuilder("add")
+                .addJavadoc("Add a member with the given component values without creating a record\n\n@return true if the set did not already contain the member\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.BOOLEAN);
+        components.forEach(component -> addBuilder.addParameter(component.typeName(), component.name()));
+        addBuilder.addStatement("int $L = hash($L)", hashName, arguments)
+                .beginControlFlow("if (contains($L$L))", hashName, ComponentCodeBlocks.prefixedArguments(arguments))
+                .addStatement("return false")
+                .endControlFlow()
+                .beginControlFlow("if ($L != null)", oldName)
+                .addStatement("migrate($L)", migrationStepName)
+                .endControlFlow()
+                .beginControlFlow("if (($L >= maxSize($L.capacity())) && ($L.capacity() < $L))", sizeName, tableName, tableName, maximumCapacityName)
+                .addStatement("grow()")
+                .endControlFlow()
+                .addStatement("$L.insert($L$L)", tableName, hashName, ComponentCodeBlocks.prefixedArguments(arguments))
+                .addStatement("++$L", sizeName)
+                .addStatement("return true");
+        classBuilder.addMethod(addBuilder.build());
+
+        classBuilder.addMethod(MethodSpec.methodBuilder("add")
+                .addJavadoc("Add the record's component values. The record itself is not retained.\n\n@return true if the set did not already contain the record\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "record")
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return add($L)", ComponentCodeBlocks.arguments(components, "record"))
+                .build());
+    }
+
+    private void addContainsMethods(TypeSpec.Builder classBuilder) {
+        var components = processor.recordComponents();
+        var arguments = ComponentCodeBlocks.arguments(components, null);
+        var containsBuilder = MethodSpec.methodBuilder("contains")
+                .addJavadoc("Return true if the set contains a member with the given component values\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.BOOLEAN);
+        components.forEach(component -> containsBuilder.addParameter(component.typeName(), component.name()));
+        containsBuilder.addStatement("return contains(hash($L)$L)", arguments, ComponentCodeBlocks.prefixedArguments(arguments));
+        classBuilder.addMethod(containsBuilder.build());
+
+        classBuilder.addMethod(MethodSpec.methodBuilder("contains")
+                .addJavadoc("Return true if the set contains a member equal to the given record\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(recordType, "record")
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return contains($L)", ComponentCodeBlocks.arguments(components, "record"))
+                .build());
+
+        var hashedContainsBuilder = MethodSpec.methodBuilder("contains")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, hashName)
+                .returns(TypeName.BOOLEAN);
+        components.forEach(component -> hashedContainsBuilder.addParameter(component.typeName(), component.name()));
+        hashedContainsBuilder.addStatement("return $L.contains($L$L) || (($L != null) && $L.contains($L$L))", tableName, hashName, ComponentCodeBlocks.prefixedArguments(arguments), oldName, oldName, hashName, ComponentCodeBlocks.prefixedArguments(arguments));
+        classBuilder.addMethod(hashedContainsBuilder.build());
+    }
+
+    private void addIterationMethods(TypeSpec.Builder classBuilder) {
+        var actionType = ParameterizedTypeName.get(ClassName.get(Consumer.class), WildcardTypeName.supertypeOf(recordType));
+        classBuilder.addMethod(MethodSpec.methodBuilder("forEach")
+                .addJavadoc("Pass each member to the action. A record is created for each member.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(actionType, "action")
+                .beginControlFlow("for (int index = 0; index < $L.capacity(); ++index)", tableName)
+                .beginControlFlow("if ($L.$L[index])", tableName, filledName)
+                .addStatement("action.accept($L.record(index))", tableName)
+                .endControlFlow()
+                .endControlFlow()
+                .beginControlFlow("if ($L != null)", oldName)
+                .addComment("slots before $L have already been moved to $L", migratedName, tableName)
+                .beginControlFlow("for (int index = $L; index < $L.capacity(); ++index)", migratedName, oldName)
+                .beginControlFlow("if ($L.$L[index])", oldName, filledName)
+                .addStatement("action.accept($L.record(index))", oldName)
+                .endControlFlow()
+                .endControlFlow()
+                .endControlFlow()
+                .build());
+
+        var listType = ParameterizedTypeName.get(ClassName.get(List.class), recordType);
+        classBuilder.addMethod(MethodSpec.methodBuilder("toList")
+                .addJavadoc("Return a new list of the members. A record is created for each member.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(listType)
+                .addStatement("$T list = new $T<>($L)", listType, ArrayList.class, sizeName)
+                .addStatement("forEach(list::add)")
+                .addStatement("return list")
+                .build());
+    }
+
+    private void addMigrateMethods(TypeSpec.Builder classBuilder) {
+        classBuilder.addMethod(MethodSpec.methodBuilder("maxSize")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(TypeName.INT, "capacity")
+                .returns(TypeName.INT)
+                .addStatement("return (capacity >>> 2) * 3")
+                .build());
+
+        // the old table is drained after (capacity / MIGRATION_STEP) adds, long before the new table (twice the capacity) has
+        // to grow again. A pending migration is finished here just in case.
+        classBuilder.addMethod(MethodSpec.methodBuilder("grow")
+                .addModifiers(Modifier.PRIVATE)
+                .beginControlFlow("if ($L != null)", oldName)
+                .addStatement("migrate($L.capacity())", oldName)
+                .endControlFlow()
+                .addStatement("$L = $L", oldName, tableName)
+                .addStatement("$L = new $T($L.capacity() << 1)", tableName, tableClassName, oldName)
+                .addStatement("$L = 0", migratedName)
+                .build());
+
+        // old slots are not cleared as that would break the probe sequences of the remaining old entries
+        classBuilder.addMethod(MethodSpec.methodBuilder("migrate")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.INT, "slots")
+                .addStatement("int end = (int)Math.min((long)$L + slots, $L.capacity())", migratedName, oldName)
+                .beginControlFlow("for (int index = $L; index < end; ++index)", migratedName)
+                .beginControlFlow("if ($L.$L[index])", oldName, filledName)
+                .addStatement("$L.transfer(index, $L)", oldName, tableName)
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("$L = end", migratedName)
+                .beginControlFlow("if (end == $L.capacity())", oldName)
+                .addStatement("$L = null", oldName)
+                .addStatement("$L = 0", migratedName)
+                .endControlFlow()
+                .build());
+    }
+
+    private TypeSpec buildTable() {
+        var components = processor.recordComponents();
+        var tableBuilder = TypeSpec.classBuilder(tableClassName.simpleName())
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+        if (components.stream().anyMatch(component -> InternalRecordBuilderProcessor.isUncheckedCast(component.typeName()))) {
+            tableBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        }
+        components.forEach(component -> tableBuilder.addField(ArrayTypeName.of(storageType(component)), component.name(), Modifier.PRIVATE, Modifier.FINAL));
+        tableBuilder.addField(ArrayTypeName.of(TypeName.INT), hashesName, Modifier.PRIVATE, Modifier.FINAL);
+        tableBuilder.addField(ArrayTypeName.of(TypeName.BOOLEAN), filledName, Modifier.PRIVATE, Modifier.FINAL);
+
+        var constructorBuilder = MethodSpec.constructorBuilder()
+                .addParameter(TypeName.INT, "capacity");
+        components.forEach(component -> constructorBuilder.addStatement("this.$L = new $T[capacity]", component.name(), storageType(component)));
+        constructorBuilder.addStatement("$L = new int[capacity]", hashesName)
+                .addStatement("$L = new boolean[capacity]", filledName);
+        tableBuilder.addMethod(constructorBuilder.build());
+
+        tableBuilder.addMethod(MethodSpec.methodBuilder("capacity")
+                .returns(TypeName.INT)
+                .addStatement("return $L.length", hashesName)
+                .build());
+
+        var matches = CodeBlock.builder().add("($L[$L] == $L)", hashesName, indexName, hashName);
+        components.forEach(component -> matches.add(" && $L", ComponentCodeBlocks.componentEquals(component, CodeBlock.of("this.$L[$L]", component.name(), indexName), CodeBlock.of("$L", component.name()))));
+        var containsBuilder = MethodSpec.methodBuilder("contains")
+                .addParameter(TypeName.INT, hashName)
+                .returns(TypeName.BOOLEAN);
+        components.forEach(component -> containsBuilder.addParameter(component.typeName(), component.name()));
+        containsBuilder.addStatement("int $L = $L.length - 1", maskName, hashesName)
+                .addStatement("int $L = $L & $L", indexName, hashName, maskName)
+                .beginControlFlow("while ($L[$L])", filledName, indexName)
+                .beginControlFlow("if ($L)", matches.build())
+                .addStatement("return true")
+                .endControlFlow()
+                .addStatement("$L = ($L + 1) & $L", indexName, indexName, maskName)
+                .endControlFlow()
+                .addStatement("return false");
+        tableBuilder.addMethod(containsBuilder.build());
+
+        var insertBuilder = MethodSpec.methodBuilder("insert")
+                .addParameter(TypeName.INT, hashName);
+        components.forEach(component -> insertBuilder.addParameter(storageType(component), component.name()));
+        insertBuilder.addStatement("int $L = $L.length - 1", maskName, hashesName)
+                .addStatement("int $L = $L & $L", indexName, hashName, maskName)
+                .beginControlFlow("while ($L[$L])", filledName, indexName)
+                .addStatement("$L = ($L + 1) & $L", indexName, indexName, maskName)
+                .endControlFlow();
+        components.forEach(component -> insertBuilder.addStatement("this.$L[$L] = $L", component.name(), indexName, component.name()));
+        insertBuilder.addStatement("$L[$L] = $L", hashesName, indexName, hashName)
+                .addStatement("$L[$L] = true", filledName, indexName);
+        tableBuilder.addMethod(insertBuilder.build());
+
+        var transferArguments = components.stream().map(component -> CodeBlock.of("this.$L[index]", component.name())).collect(CodeBlock.joining(", "));
+        tableBuilder.addMethod(MethodSpec.methodBuilder("transfer")
+                .addParameter(TypeName.INT, "index")
+                .addParameter(tableClassName, "target")
+                .addStatement("target.insert($L[index]$L)", hashesName, ComponentCodeBlocks.prefixedArguments(transferArguments))
+                .build());
+
+        var recordArguments = components.stream()
+                .map(component -> ComponentKind.of(component.typeName()).isPrimitive()
+                        ? CodeBlock.of("this.$L[index]", component.name())
+                        : CodeBlock.of("($T)this.$L[index]", component.typeName(), component.name()))
+                .collect(CodeBlock.joining(", "));
+        tableBuilder.addMethod(MethodSpec.methodBuilder("record")
+                .addParameter(TypeName.INT, "index")
+                .returns(recordType)
+                .addStatement("return new $T($L)", recordType, recordArguments)
+                .build());
+        return tableBuilder.build();
+    }
+
+    private static TypeName storageType(ClassType component) {
+        var kind = ComponentKind.of(component.typeName());
+        return kind.isPrimitive() ? kind.typeName() : TypeName.OBJECT;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import io.soabase.recordbuilder.core.HashSink;
+import io.soabase.recordbuilder.core.RecordBuilder;
+import io.soabase.recordbuilder.core.RecordBuilderMetaData;
+import io.soabase.recordbuilder.core.StableHash;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static io.soabase.recordbuilder.processor.RecordBuilderProcessor.generatedRecordBuilderAnnotation;
+
+/**
+ * Adds the stable hashing methods to the builder: {@code hashInto(record, sink)}, {@code longHash(record)}
+ * and {@code partition(record, n)}. The statements that write each component to the sink are resolved
+ * from the record's elements on the processor's thread by {@link #resolveComponentHashes}.
+ */
+class StableHashGenerator {
+    private final InternalRecordBuilderProcessor processor;
+    private final List<CodeBlock> componentHashes;
+
+    StableHashGenerator(InternalRecordBuilderProcessor processor, List<CodeBlock> componentHashes) {
+        this.processor = processor;
+        this.componentHashes = componentHashes;
+    }
+
+    /**
+     * Return the statements that write each component of a {@code record} variable to a {@code sink} variable
+     * or empty if a component type isn't supported (an error is reported for it).
+     */
+    static Optional<List<CodeBlock>> resolveComponentHashes(ProcessingSession session, TypeElement record, RecordBuilderMetaData metaData) {
+        var componentHashes = new ArrayList<CodeBlock>();
+        var isValid = true;
+        for (var component : record.getRecordComponents()) {
+            var hash = resolveHash(session, metaData, component.getSimpleName().toString(), component.asType());
+            if (hash.isPresent()) {
+                componentHashes.add(hash.get());
+            } else {
+                session.processingEnv().getMessager().printMessage(Diagnostic.Kind.ERROR, "stableHash() does not support the type " + component.asType() + ". Supported types are primitives, boxed primitives, Strings, enums and records with stableHash = true", component);
+                isValid = false;
+            }
+        }
+        return isValid ? Optional.of(componentHashes) : Optional.empty();
+    }
+
+    private static Optional<CodeBlock> resolveHash(ProcessingSession session, RecordBuilderMetaData metaData, String name, TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            var kind = ComponentKind.of(TypeName.get(type));
+            return Optional.of(CodeBlock.of("sink.put$L(record.$L());\n", kind.capitalizedName(), name));
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return Optional.empty();
+        }
+
+        var element = (TypeElement)((DeclaredType)type).asElement();
+        var typeName = TypeName.get(session.processingEnv().getTypeUtils().erasure(type));
+        if (element.getQualifiedName().contentEquals(String.class.getName()) || element.getQualifiedName().contentEquals(CharSequence.class.getName())) {
+            return Optional.of(CodeBlock.of("sink.putString(record.$L());\n", name));
+        }
+        if (typeName.isBoxedPrimitive()) {
+            var kind = ComponentKind.of(typeName.unbox());
+            return Optional.of(nullable(typeName, name, CodeBlock.of("sink.put$L(_$L)", kind.capitalizedName(), name)));
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            // by name rather than ordinal so that reordering the constants doesn't change hashes
+            return Optional.of(CodeBlock.of("sink.putString((record.$L() != null) ? record.$L().name() : null);\n", name, name));
+        }
+        var recordBuilder = element.getAnnotation(RecordBuilder.class);
+        if ((element.getKind() == ElementKind.RECORD) && (recordBuilder != null) && recordBuilder.stableHash()) {
+            var classType = ElementUtils.getClassType(ClassName.get(element), element.getTypeParameters());
+            var builderClassName = ClassName.get(ElementUtils.getPackageName(element), ElementUtils.getBuilderName(element, metaData, classType, metaData.suffix()));
+            return Optional.of(nullable(TypeName.get(type), name, CodeBlock.of("$T.$L(_$L, sink)", builderClassName, metaData.hashIntoMethodName(), name)));
+        }
+        return Optional.empty();
+    }
+
+    // a presence flag is written first so that null can't collide with a value
+    private static CodeBlock nullable(TypeName typeName, String name, CodeBlock put) {
+        return CodeBlock.builder()
+                .addStatement("$T _$L = record.$L()", typeName, name, name)
+                .addStatement("sink.putBoolean(_$L != null)", name)
+                .beginControlFlow("if (_$L != null)", name)
+                .addStatement("$L", put)
+                .endControlFlow()
+                .build();
+    }
+
+    void addMethods(TypeSpec.Builder builder) {
+        /*
+            Adds methods similar to:
+
+            public static void hashInto(MyRecord record, HashSink sink) {
+                sink.putInt(record.x());
+                sink.putString(record.s());
+                Integer _count = record.count();
+                sink.putBoolean(_count != null);
+                if (_count != null) {
+                    sink.putInt(_count);
+                }
+            }
+
+            public static long longHash(MyRecord record) {
+                StableHash hash = new StableHash();
+                hashInto(record, hash);
+                return hash.hash();
+            }
+
+            public static int partition(MyRecord record, int partitions) {
+                return StableHash.jumpConsistentHash(longHash(record), partitions);
+            }
+         */
+        var metaData = processor.metaData();
+        var recordType = processor.recordClassType().typeName();
+        var hashIntoBuilder = MethodSpec.methodBuilder(metaData.hashIntoMethodName())
+                .addJavadoc("Write each component of the record, in declaration order, to the sink\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(processor.typeVariables())
+                .addParameter(recordType, "record")
+                .addParameter(HashSink.class, "sink");
+        componentHashes.forEach(hashIntoBuilder::addCode);
+        builder.addMethod(hashIntoBuilder.build());
+
+        builder.addMethod(MethodSpec.methodBuilder(metaData.longHashMethodName())
+                .addJavadoc("Return a 64-bit hash of the record that is stable across JVMs and releases. See {@link $T}.\n", StableHash.class)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(processor.typeVariables())
+                .addParameter(recordType, "record")
+                .returns(TypeName.LONG)
+                .addStatement("$T hash = new $T()", StableHash.class, StableHash.class)
+                .addStatement("$L(record, hash)", metaData.hashIntoMethodName())
+                .addStatement("return hash.hash()")
+                .build());
+
+        builder.addMethod(MethodSpec.methodBuilder(metaData.partitionMethodName())
+                .addJavadoc("Return the partition, in {@code [0, partitions)}, of the record using jump consistent hashing of its\n")
+                .addJavadoc("{@code $L()}. Stable across JVMs and releases. When the number of partitions grows by one only\n", metaData.longHashMethodName())
+                .addJavadoc("about {@code 1/partitions} of the records move.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(generatedRecordBuilderAnnotation)
+                .addTypeVariables(processor.typeVariables())
+                .addParameter(recordType, "record")
+                .addParameter(TypeName.INT, "partitions")
+                .returns(TypeName.INT)
+                .addStatement("return $T.jumpConsistentHash($L(record), partitions)", StableHash.class, metaData.longHashMethodName())
+                .build());
+    }
+}
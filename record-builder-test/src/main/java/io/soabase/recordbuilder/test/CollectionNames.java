@@ -0,0 +1,29 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.RecordBuilder;
+
+// component names that clash with the names used in the generated key map and set
+@RecordBuilder(keyMap = true, set = true)
+public record CollectionNames(int _hash, int _index, int _mask, String _previous, String _value, String value, String supplier,
+                              int _hashes, boolean _filled, String _values, int _size, String _table, String _old, int _migrated,
+                              int DEFAULT_CAPACITY, int MAXIMUM_CAPACITY, int MIGRATION_STEP, int _h) {
+    static CollectionNames of(int i) {
+        var s = String.valueOf(i);
+        return new CollectionNames(i, i + 1, i + 2, s, s, s, s, i, (i % 2) == 0, s, i, s, s, i, i, i, i, i);
+    }
+}
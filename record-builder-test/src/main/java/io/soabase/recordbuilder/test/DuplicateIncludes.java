@@ -0,0 +1,34 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.RecordBuilder;
+
+/**
+ * Point is already included into the same target package by package-info and SimpleRecord
+ * is directly annotated - each builder must only be generated once
+ */
+@RecordBuilder.Include(value = Point.class, packagePattern = "*.foo")
+public class DuplicateIncludes {
+    @RecordBuilder.Include(SimpleRecord.class)
+    public static class Direct {
+    }
+
+    // including the same class into another package generates a second builder
+    @RecordBuilder.Include(value = Point.class, packagePattern = "*.baz")
+    public static class OtherPackage {
+    }
+}
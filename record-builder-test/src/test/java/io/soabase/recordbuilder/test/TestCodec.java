@@ -0,0 +1,90 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.Codecs;
+import io.soabase.recordbuilder.core.RecordCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+class TestCodec {
+    @Test
+    void testRoundTrip() throws IOException {
+        var child = new Sample(-1, Long.MIN_VALUE, Double.NaN, false, '\u20ac', Short.MAX_VALUE, null, null, null, null, null, List.of());
+        var sample = new Sample(150, 1L << 40, 0.25, true, 'x', (short)-3, "h\u00e9llo \uD83D\uDE00", 7, List.of("a", "b"),
+                Map.of("one", 1L), new KeyValue<>("k", null), List.of(child));
+        assertRoundTrip(SampleCodec.codec(), sample);
+    }
+
+    @Test
+    void testGenericRoundTrip() throws IOException {
+        var codec = KeyValueCodec.codec(Codecs.STRING, Codecs.LONG);
+        assertRoundTrip(codec, new KeyValue<>("key", 123456789L));
+        assertRoundTrip(codec, new KeyValue<>(null, null));
+
+        var nestedCodec = KeyValueCodec.codec(Codecs.INTEGER, Codecs.list(KeyValueCodec.codec(Codecs.STRING, Codecs.DOUBLE)));
+        assertRoundTrip(nestedCodec, new KeyValue<>(1, List.of(new KeyValue<>("a", 1.5), new KeyValue<>("b", -2.0))));
+    }
+
+    @Test
+    void testVarInts() {
+        var buffer = ByteBuffer.allocate(16);
+        Codecs.writeVarInt(buffer, -1);
+        Codecs.writeVarLong(buffer, Long.MAX_VALUE);
+        Assertions.assertEquals(11, buffer.position());
+        buffer.flip();
+        Assertions.assertEquals(-1, Codecs.readVarInt(buffer));
+        Assertions.assertEquals(Long.MAX_VALUE, Codecs.readVarLong(buffer));
+    }
+
+    @Test
+    void testStringLengthIsUntrusted() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        Codecs.writeUnsignedVarInt(out, Integer.MAX_VALUE);
+        out.writeBytes("abc");
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Assertions.assertThrows(EOFException.class, () -> Codecs.readString(in));
+
+        var longValue = "x".repeat(20000) + "\u00e9";
+        bytes.reset();
+        Codecs.writeString(out, longValue);
+        Assertions.assertEquals(longValue, Codecs.readString(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    private static <T> void assertRoundTrip(RecordCodec<T> codec, T value) throws IOException {
+        var buffer = ByteBuffer.allocate(1024);
+        codec.encode(value, buffer);
+        buffer.flip();
+        Assertions.assertEquals(value, codec.decode(buffer));
+        Assertions.assertFalse(buffer.hasRemaining());
+
+        var bytes = new ByteArrayOutputStream();
+        codec.encode(value, new DataOutputStream(bytes));
+        Assertions.assertEquals(buffer.limit(), bytes.size());
+        Assertions.assertEquals(value, codec.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+class TestColumns {
+    @Test
+    void testAddAndGet() {
+        var columns = new MeasurementColumns(1);
+        Assertions.assertEquals(0, columns.add(1L, 1.5, "one"));
+        Assertions.assertEquals(1, columns.add(new Measurement(2L, 2.5, "two")));
+        Assertions.assertEquals(2, columns.size());
+        Assertions.assertEquals(2L, columns.getTimestamp(1));
+        Assertions.assertEquals("one", columns.getLabel(0));
+        Assertions.assertEquals(new Measurement(1L, 1.5, "one"), columns.get(0));
+
+        columns.setValue(0, 3.5);
+        Assertions.assertEquals(new Measurement(1L, 3.5, "one"), columns.get(0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> columns.get(2));
+
+        Assertions.assertEquals(List.of(new Measurement(1L, 3.5, "one"), new Measurement(2L, 2.5, "two")), columns.asList());
+        columns.clear();
+        Assertions.assertEquals(0, columns.size());
+    }
+
+    @Test
+    void testParallelStream() {
+        var columns = new MeasurementColumns();
+        for ( int i = 0; i < 10_000; ++i )
+        {
+            columns.add(i, i, Integer.toString(i));
+        }
+        Assertions.assertNotNull(columns.spliterator().trySplit());
+        var timestamps = columns.parallelStream().map(Measurement::timestamp).collect(Collectors.toList());
+        Assertions.assertEquals(10_000, timestamps.size());
+        for ( int i = 0; i < timestamps.size(); ++i )
+        {
+            Assertions.assertEquals(i, (long)timestamps.get(i));
+        }
+    }
+
+    @Test
+    void testComponentNamesMatchingInternalNames() {
+        var columns = new TableRowColumns(1);
+        Assertions.assertEquals(0, columns.add(10, 20L, "a"));
+        Assertions.assertEquals(1, columns.add(new TableRow(11, 21L, "b")));
+        Assertions.assertEquals(2, columns.size());
+
+        columns.setRow(1, 12);
+        columns.set_size(0, 30L);
+        Assertions.assertEquals(12, columns.getRow(1));
+        Assertions.assertEquals(30L, columns.get_size(0));
+        Assertions.assertEquals(List.of(new TableRow(10, 30L, "a"), new TableRow(12, 21L, "b")), columns.asList());
+    }
+}
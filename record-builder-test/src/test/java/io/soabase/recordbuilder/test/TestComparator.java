@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+class TestComparator {
+    private static final List<Player> players = List.of(
+            new Player("a", "Smith", 30, 1.0),
+            new Player("b", "Jones", 30, 2.0),
+            new Player("c", null, 20, 0.0),
+            new Player("d", "Smith", 25, Double.NaN),
+            new Player("e", "Smith", 25, -0.0),
+            new Player("f", "Smith", 25, 0.0)
+    );
+
+    @Test
+    void testMatchesComparing() {
+        Comparator<Player> expected = Comparator.comparing(Player::lastName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                .thenComparingInt(Player::age)
+                .thenComparingDouble(Player::score);
+        Assertions.assertEquals(sorted(expected), sorted(PlayerBuilder.comparator()));
+
+        Comparator<Player> expectedNullsFirst = Comparator.comparing(Player::lastName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparingInt(Player::age)
+                .thenComparingDouble(Player::score);
+        Assertions.assertEquals(sorted(expectedNullsFirst), sorted(PlayerBuilder.comparatorNullsFirst()));
+
+        Comparator<Player> expectedDescending = Comparator.comparing(Player::lastName, Comparator.nullsLast(Comparator.<String>reverseOrder()))
+                .thenComparing(Comparator.comparingInt(Player::age).reversed())
+                .thenComparing(Comparator.comparingDouble(Player::score).reversed());
+        Assertions.assertEquals(sorted(expectedDescending), sorted(PlayerBuilder.comparatorDescending()));
+    }
+
+    @Test
+    void testSingleClass() {
+        Assertions.assertSame(PlayerBuilder.comparator().getClass(), PlayerBuilder.comparatorDescending().getClass());
+        Assertions.assertSame(PlayerBuilder.comparator().getClass(), PlayerBuilder.comparatorNullsFirst().getClass());
+        Assertions.assertEquals(0, PlayerBuilder.comparator().compare(new Player("x", "A", 1, 1.0), new Player("y", "A", 1, 1.0)));
+    }
+
+    private static List<Player> sorted(Comparator<Player> comparator) {
+        var sorted = new ArrayList<>(players);
+        Collections.shuffle(sorted);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
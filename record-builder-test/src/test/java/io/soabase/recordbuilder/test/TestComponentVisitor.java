@@ -0,0 +1,50 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.ComponentVisitor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TestComponentVisitor {
+    @Test
+    void testPrimitiveCallbacks() {
+        List<String> visited = new ArrayList<>();
+        ComponentVisitor visitor = new ComponentVisitor() {
+            @Override
+            public void visitInt(String name, int value) {
+                visited.add("int " + name + "=" + value);
+            }
+
+            @Override
+            public void visitObject(String name, Object value) {
+                visited.add("object " + name + "=" + value);
+            }
+        };
+        VisitedRecordBuilder.forEachComponent(new VisitedRecord(10, "ten"), visitor);
+        Assertions.assertEquals(List.of("int i=10", "object s=ten"), visited);
+    }
+
+    @Test
+    void testDefaultsToVisitObject() {
+        List<Object> values = new ArrayList<>();
+        VisitedGenericRecordBuilder.forEachComponent(new VisitedGenericRecord<>(10, List.of("a")), (name, value) -> values.add(value));
+        Assertions.assertEquals(List.of(10, List.of("a")), values);
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+class TestFlyweight {
+    @Test
+    void testLayout() {
+        Assertions.assertEquals(0, ParticleFlyweight.TYPE_OFFSET);
+        Assertions.assertEquals(1, ParticleFlyweight.ACTIVE_OFFSET);
+        Assertions.assertEquals(8, ParticleFlyweight.ID_OFFSET);
+        Assertions.assertEquals(16, ParticleFlyweight.X_OFFSET);
+        Assertions.assertEquals(24, ParticleFlyweight.NAME_OFFSET);
+        Assertions.assertEquals(48, ParticleFlyweight.BYTES);
+    }
+
+    @Test
+    void testReadWrite() {
+        var flyweight = new ParticleFlyweight(ParticleFlyweight.allocate(3));
+        Assertions.assertEquals(3, flyweight.capacity());
+
+        var particle = new Particle((byte)2, true, 100L, 1.5, "electron");
+        flyweight.set(1, particle);
+        flyweight.at(2).id(200L).name(null);
+        Assertions.assertEquals(particle, flyweight.get(1));
+        Assertions.assertEquals(1, flyweight.index());
+        Assertions.assertEquals(200L, flyweight.at(2).id());
+        Assertions.assertNull(flyweight.name());
+        Assertions.assertEquals(new Particle((byte)0, false, 0L, 0.0, ""), flyweight.get(0));
+
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> flyweight.at(3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> flyweight.at(0).name("too long a name"));
+    }
+
+    @Test
+    void testHeapBuffer() {
+        var flyweight = new ParticleFlyweight(ByteBuffer.allocate(ParticleFlyweight.BYTES));
+        flyweight.fromRecord(new Particle((byte)1, false, 5L, -2.0, "a"));
+        Assertions.assertEquals(new Particle((byte)1, false, 5L, -2.0, "a"), flyweight.toRecord());
+    }
+}
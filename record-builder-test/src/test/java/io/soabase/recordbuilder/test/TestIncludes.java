@@ -0,0 +1,43 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.test.foo.PointBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestIncludes {
+    @Test
+    void testDuplicateInclude() {
+        // Point is included by both package-info and DuplicateIncludes
+        Point point = PointBuilder.builder().x(10).y(20).build();
+        Assertions.assertEquals(new Point(10, 20), point);
+    }
+
+    @Test
+    void testIncludeOfDirectlyAnnotated() {
+        // SimpleRecord is both directly annotated and included by DuplicateIncludes.Direct
+        SimpleRecord record = SimpleRecordBuilder.builder().i(1).s("one").build();
+        Assertions.assertEquals(new SimpleRecord(1, "one"), record);
+    }
+
+    @Test
+    void testIncludeIntoSeveralPackages() {
+        Point point = io.soabase.recordbuilder.test.baz.PointBuilder.builder().x(1).y(2).build();
+        Assertions.assertEquals(new Point(1, 2), point);
+        Assertions.assertNotEquals(PointBuilder.class, io.soabase.recordbuilder.test.baz.PointBuilder.class);
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+class TestInterner {
+    @Test
+    void testIntern() {
+        var point = GridPointInterner.intern(new GridPoint(100, 200L));
+        Assertions.assertSame(point, GridPointInterner.intern(100, 200L));
+        Assertions.assertSame(point, GridPointInterner.intern(new GridPoint(100, 200L)));
+        Assertions.assertNotSame(point, GridPointInterner.intern(200, 100L));
+        Assertions.assertEquals(new GridPoint(200, 100L), GridPointInterner.intern(200, 100L));
+    }
+
+    @Test
+    void testInternCache() {
+        Assertions.assertEquals(new GridPoint(-4, 4L), GridPointBuilder.of(-4, 4L));
+        Assertions.assertEquals(new GridPoint(3, -2L), GridPointBuilder.of(3, -2L));
+        Assertions.assertSame(GridPointBuilder.of(3, -2L), GridPointBuilder.of(3, -2L));
+        Assertions.assertSame(GridPointBuilder.of(0, 0L), GridPointInterner.intern(0, 0L));
+
+        // out of range values are interned
+        Assertions.assertEquals(new GridPoint(5, 0L), GridPointBuilder.of(5, 0L));
+        Assertions.assertSame(GridPointBuilder.of(5, 0L), GridPointBuilder.of(5, 0L));
+    }
+
+    @Test
+    void testClashingComponentNames() {
+        var interned = new ArrayList<InternerNames>();
+        for (int i = 0; i < 1000; ++i) {
+            var s = String.valueOf(i);
+            interned.add(InternerNamesInterner.intern(i, s, i, i, s, s, i, i, i, i, i));
+        }
+        for (int i = 0; i < 1000; ++i) {
+            var s = String.valueOf(i);
+            Assertions.assertSame(interned.get(i), InternerNamesInterner.intern(new InternerNames(i, s, i, i, s, s, i, i, i, i, i)));
+        }
+    }
+}
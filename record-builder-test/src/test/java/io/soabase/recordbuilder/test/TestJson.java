@@ -0,0 +1,56 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.Json;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+class TestJson {
+    @Test
+    void testWrite() {
+        var json = KeyValueJson.json(Json.STRING, Json.list(Json.LONG));
+        Assertions.assertEquals("{\"key\":\"a\\\"b\\n\",\"value\":[1,-2,9223372036854775807]}", json.toJson(new KeyValue<>("a\"b\n", List.of(1L, -2L, Long.MAX_VALUE))));
+        Assertions.assertEquals("{\"key\":null,\"value\":null}", json.toJson(new KeyValue<>(null, null)));
+        Assertions.assertEquals("null", json.toJson(null));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        var child = new Sample(-1, Long.MIN_VALUE, Double.NaN, false, '\u20ac', Short.MAX_VALUE, null, null, null, null, null, List.of());
+        var sample = new Sample(150, 1L << 40, 0.25, true, 'x', (short)-3, "h\u00e9llo \uD83D\uDE00\t", 7, List.of("a", "b"),
+                Map.of("one", 1L), new KeyValue<>("k", null), List.of(child));
+        var json = SampleJson.json();
+        Assertions.assertEquals(sample, json.fromJson(json.toJson(sample)));
+    }
+
+    @Test
+    void testRead() throws IOException {
+        var json = KeyValueJson.json(Json.INTEGER, Json.map(Json.DOUBLE));
+        var value = json.fromJson(" { \"unknown\" : [ {\"a\": [1, \"x\"]}, null ], \"value\" : { \"x\" : 1.5e2 , \"y\":null } , \"key\" : -42 } ");
+        Assertions.assertEquals(-42, (int)value.key());
+        Assertions.assertEquals(150.0, (double)value.value().get("x"));
+        Assertions.assertTrue(value.value().containsKey("y"));
+        Assertions.assertNull(value.value().get("y"));
+
+        Assertions.assertThrows(IOException.class, () -> json.fromJson("{\"key\": 1.5}"));
+        Assertions.assertThrows(IOException.class, () -> json.fromJson("{\"key\": 1 \"value\": null}"));
+    }
+}
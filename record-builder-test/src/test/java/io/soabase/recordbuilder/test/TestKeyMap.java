@@ -0,0 +1,100 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class TestKeyMap {
+    @Test
+    void testBasics() {
+        var map = new CellKeyMap<String>();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.put("a", 1, 2.0, "one"));
+        Assertions.assertEquals("one", map.put("a", 1, 2.0, "uno"));
+        Assertions.assertEquals("uno", map.get("a", 1, 2.0));
+        Assertions.assertEquals("uno", map.get(new Cell("a", 1, 2.0)));
+        Assertions.assertNull(map.get("a", 1, 2.5));
+        Assertions.assertNull(map.get(null, 1, 2.0));
+
+        Assertions.assertNull(map.put(new Cell(null, -1, Double.NaN), "nan"));
+        Assertions.assertEquals("nan", map.get(null, -1, Double.NaN));
+        Assertions.assertTrue(map.containsKey(null, -1, Double.NaN));
+
+        Assertions.assertEquals("two", map.computeIfAbsent("b", 2, 0.0, () -> "two"));
+        Assertions.assertEquals("two", map.computeIfAbsent("b", 2, 0.0, () -> "other"));
+        Assertions.assertNull(map.computeIfAbsent("c", 3, 0.0, () -> null));
+        Assertions.assertFalse(map.containsKey("c", 3, 0.0));
+
+        Assertions.assertEquals(3, map.size());
+        Assertions.assertEquals(new HashSet<>(map.keys()), new HashSet<>(List.of(new Cell("a", 1, 2.0), new Cell(null, -1, Double.NaN), new Cell("b", 2, 0.0))));
+        Assertions.assertEquals("uno", map.remove("a", 1, 2.0));
+        Assertions.assertNull(map.remove("a", 1, 2.0));
+        Assertions.assertEquals(2, map.size());
+
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.get("b", 2, 0.0));
+    }
+
+    @Test
+    void testMatchesHashMap() {
+        var random = new Random(1234);
+        var map = new CellKeyMap<Integer>(4);
+        var expected = new HashMap<Cell, Integer>();
+        for (int i = 0; i < 20000; ++i) {
+            var cell = new Cell((random.nextInt(3) == 0) ? null : "s" + random.nextInt(5), random.nextInt(100), random.nextInt(10));
+            var value = random.nextInt();
+            var operation = random.nextInt(3);
+            if (operation == 0) {
+                Assertions.assertEquals(expected.put(cell, value), map.put(cell, value));
+            } else if (operation == 1) {
+                Assertions.assertEquals(expected.remove(cell), map.remove(cell));
+            } else {
+                Assertions.assertEquals(expected.get(cell), map.get(cell));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+        var actual = new HashMap<Cell, Integer>();
+        map.forEach(actual::put);
+        Assertions.assertEquals(expected, actual);
+        for (Map.Entry<Cell, Integer> entry : expected.entrySet()) {
+            Assertions.assertEquals(entry.getValue(), map.get(entry.getKey().sheet(), entry.getKey().row(), entry.getKey().column()));
+        }
+    }
+
+    @Test
+    void testClashingComponentNames() {
+        var map = new CollectionNamesKeyMap<Integer>();
+        for (int i = 0; i < 1000; ++i) {
+            Assertions.assertNull(map.put(CollectionNames.of(i), i));
+        }
+        Assertions.assertEquals(1000, map.size());
+        Assertions.assertEquals(Integer.valueOf(5), map.put(CollectionNames.of(5), -5));
+        Assertions.assertEquals(Integer.valueOf(-5), map.get(CollectionNames.of(5)));
+        Assertions.assertEquals(Integer.valueOf(1000), map.computeIfAbsent(1000, 1001, 1002, "1000", "1000", "1000", "1000", 1000, true, "1000", 1000, "1000", "1000", 1000, 1000, 1000, 1000, 1000, () -> 1000));
+        Assertions.assertEquals(Integer.valueOf(1000), map.get(CollectionNames.of(1000)));
+        Assertions.assertEquals(Integer.valueOf(7), map.remove(CollectionNames.of(7)));
+        Assertions.assertFalse(map.containsKey(CollectionNames.of(7)));
+        Assertions.assertEquals(1000, map.size());
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class TestMapConversion {
+    @Test
+    void testRoundTrip() {
+        var stock = new Stock("ACME", 10, List.of("a", "b"));
+        var map = StockBuilder.toMap(stock);
+        Assertions.assertEquals(List.of("symbol", "quantity", "tags"), List.copyOf(map.keySet()));
+        Assertions.assertEquals(stock, StockBuilder.fromMap(map).build());
+    }
+
+    @Test
+    void testNullReference() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("symbol", null);
+        map.put("quantity", 1);
+        Assertions.assertEquals(new Stock(null, 1, null), StockBuilder.fromMap(map).build());
+    }
+
+    @Test
+    void testInvalidValues() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("quantity", null);
+        var e = Assertions.assertThrows(IllegalArgumentException.class, () -> StockBuilder.fromMap(map));
+        Assertions.assertTrue(e.getMessage().contains("quantity"));
+
+        var wrongType = Assertions.assertThrows(IllegalArgumentException.class, () -> StockBuilder.fromMap(Map.of("quantity", 10L)));
+        Assertions.assertTrue(wrongType.getMessage().contains("quantity"));
+        Assertions.assertTrue(wrongType.getMessage().contains("java.lang.Long"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StockBuilder.fromMap(Map.of("symbol", 1)));
+    }
+
+    @Test
+    void testUnknownKeyIgnored() {
+        Assertions.assertEquals(new Stock("ACME", 1, null), StockBuilder.fromMap(Map.of("symbol", "ACME", "quantity", 1, "price", 2.5)).build());
+    }
+
+    @Test
+    void testUnknownKeyFails() {
+        Assertions.assertEquals(new StrictStock("ACME", 1), StrictStockBuilder.fromMap(Map.of("symbol", "ACME", "quantity", 1)).build());
+        var e = Assertions.assertThrows(IllegalArgumentException.class, () -> StrictStockBuilder.fromMap(Map.of("symbol", "ACME", "price", 2.5)));
+        Assertions.assertTrue(e.getMessage().contains("price"));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.RecordSchema;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+class TestRecordSchema {
+    @Test
+    void testComponents() throws Throwable {
+        var schema = SchemaRecordBuilder.schema();
+        Assertions.assertEquals(SchemaRecord.class, schema.recordClass());
+        Assertions.assertEquals(List.of("i", "s"), schema.components().stream().map(RecordSchema.Component::name).collect(Collectors.toList()));
+
+        var i = schema.component("i").orElseThrow();
+        Assertions.assertEquals(0, i.index());
+        Assertions.assertEquals(int.class, i.type());
+        Assertions.assertEquals(RecordSchema.Kind.INT, i.kind());
+
+        var record = new SchemaRecord(10, "ten");
+        Assertions.assertEquals(10, i.get(record));
+        Assertions.assertEquals(10, (int)i.accessorHandle().invokeExact(record));
+        Assertions.assertEquals("ten", schema.component("s").orElseThrow().get(record));
+        Assertions.assertTrue(schema.component("x").isEmpty());
+    }
+
+    @Test
+    void testNewInstance() {
+        Assertions.assertEquals(new SchemaRecord(10, "ten"), SchemaRecordBuilder.schema().newInstance(10, "ten"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SchemaRecordBuilder.schema().newInstance(10));
+    }
+
+    @Test
+    void testGenericRecord() {
+        var schema = SchemaGenericRecordBuilder.schema();
+        Assertions.assertEquals(Object.class, schema.component("s").orElseThrow().type());
+        Assertions.assertEquals(new SchemaGenericRecord<>(10, "ten"), schema.newInstance(10, "ten"));
+    }
+}
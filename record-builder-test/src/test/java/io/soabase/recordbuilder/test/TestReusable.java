@@ -0,0 +1,81 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestReusable {
+    @Test
+    void testLocalBuilderIsReused() {
+        var builder = ReusableBuilder.local().id(1).name("one");
+        Assertions.assertEquals(new Reusable(1, "one"), builder.build());
+        var builder2 = ReusableBuilder.local();
+        Assertions.assertSame(builder, builder2);
+        Assertions.assertEquals(new Reusable(0, null), builder2.build());
+    }
+
+    @Test
+    void testReset() {
+        var builder = ReusableBuilder.builder().id(1).name("one").reset();
+        Assertions.assertEquals(new Reusable(0, null), builder.build());
+    }
+
+    @Test
+    void testReentrantUse() {
+        // surefire runs with assertions enabled
+        var builder = ReusableBuilder.local();
+        Assertions.assertThrows(IllegalStateException.class, ReusableBuilder::local);
+        builder.build();
+        Assertions.assertSame(builder, ReusableBuilder.local());
+        builder.build();
+    }
+
+    @Test
+    void testResetReleasesAfterFailure() {
+        var builder = ReusableBuilder.local();
+        try {
+            builder.id(1);
+            throw new IllegalArgumentException("failed before build()");
+        } catch (IllegalArgumentException e) {
+            builder.reset();
+        }
+        var builder2 = ReusableBuilder.local();
+        Assertions.assertSame(builder, builder2);
+        Assertions.assertEquals(new Reusable(0, null), builder2.build());
+    }
+
+    @Test
+    void testBuildReleasesLocalReferences() {
+        var builder = ReusableBuilder.local().id(1).name("one");
+        Assertions.assertEquals(new Reusable(1, "one"), builder.build());
+        Assertions.assertNull(builder.name());
+        Assertions.assertEquals(1, builder.id());
+
+        // builders that aren't thread local keep their values
+        var notLocal = ReusableBuilder.builder().id(2).name("two");
+        Assertions.assertEquals(new Reusable(2, "two"), notLocal.build());
+        Assertions.assertEquals("two", notLocal.name());
+    }
+
+    @Test
+    void testClashingComponentNames() {
+        var builder = ReusableNamesBuilder.local()._inUse(1)._local("a")._LOCAL("b")._clear(true)._acquire(2L)._release(3.0);
+        Assertions.assertEquals(new ReusableNames(1, "a", "b", true, 2L, 3.0), builder.build());
+        Assertions.assertSame(builder, ReusableNamesBuilder.local());
+        Assertions.assertEquals(new ReusableNames(0, null, null, false, 0L, 0.0), builder.reset().build());
+    }
+}
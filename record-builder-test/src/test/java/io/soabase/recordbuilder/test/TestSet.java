@@ -0,0 +1,75 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+class TestSet {
+    @Test
+    void testBasics() {
+        var set = new VisitSet();
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertTrue(set.add(1L, (short)2, "home"));
+        Assertions.assertFalse(set.add(1L, (short)2, "home"));
+        Assertions.assertFalse(set.add(new Visit(1L, (short)2, "home")));
+        Assertions.assertTrue(set.add(new Visit(1L, (short)2, null)));
+        Assertions.assertTrue(set.contains(1L, (short)2, null));
+        Assertions.assertTrue(set.contains(new Visit(1L, (short)2, "home")));
+        Assertions.assertFalse(set.contains(1L, (short)3, "home"));
+        Assertions.assertEquals(2, set.size());
+
+        set.clear();
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertFalse(set.contains(1L, (short)2, "home"));
+    }
+
+    @Test
+    void testIncrementalRehash() {
+        var random = new Random(4321);
+        var set = new VisitSet();
+        var expected = new HashSet<Visit>();
+        for (int i = 0; i < 50000; ++i) {
+            var visit = new Visit(random.nextInt(20000), (short)random.nextInt(3), (random.nextInt(10) == 0) ? null : "p" + random.nextInt(2));
+            Assertions.assertEquals(expected.add(visit), set.add(visit.userId(), visit.day(), visit.page()));
+            Assertions.assertEquals(expected.size(), set.size());
+            if ((i % 997) == 0) {
+                // members are visible while the old table is being drained
+                Assertions.assertEquals(expected, new HashSet<>(set.toList()));
+            }
+        }
+        for (Visit visit : expected) {
+            Assertions.assertTrue(set.contains(visit));
+        }
+        Assertions.assertFalse(set.contains(-1L, (short)0, "p0"));
+    }
+
+    @Test
+    void testClashingComponentNames() {
+        var set = new CollectionNamesSet();
+        for (int i = 0; i < 1000; ++i) {
+            Assertions.assertTrue(set.add(CollectionNames.of(i)));
+            Assertions.assertFalse(set.add(CollectionNames.of(i / 2)));
+        }
+        Assertions.assertEquals(1000, set.size());
+        Assertions.assertTrue(set.contains(CollectionNames.of(999)));
+        Assertions.assertFalse(set.contains(CollectionNames.of(1000)));
+        Assertions.assertEquals(1000, new HashSet<>(set.toList()).size());
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2019 Jordan Zimmerman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.soabase.recordbuilder.test;
+
+import io.soabase.recordbuilder.core.StableHash;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+
+class TestStableHash {
+    @Test
+    void testStable() {
+        // must never change - hashes are used for persistent sharding
+        var key = new ShardKey("tenant", 42L, null, null, null);
+        Assertions.assertEquals(0x16be3f394e634b9dL, ShardKeyBuilder.longHash(key));
+        Assertions.assertEquals(2, ShardKeyBuilder.partition(key, 7));
+    }
+
+    @Test
+    void testComponents() {
+        var parent = new ShardKey("tenant", 1L, 5, RoundingMode.UP, null);
+        var key = new ShardKey("tenant", 2L, 5, RoundingMode.UP, parent);
+        var hash = new StableHash();
+        hash.putString("tenant");
+        hash.putLong(2L);
+        hash.putBoolean(true);
+        hash.putInt(5);
+        hash.putString("UP");
+        hash.putBoolean(true);
+        ShardKeyBuilder.hashInto(parent, hash);
+        Assertions.assertEquals(hash.hash(), ShardKeyBuilder.longHash(key));
+
+        Assertions.assertEquals(ShardKeyBuilder.longHash(key), ShardKeyBuilder.longHash(new ShardKey("tenant", 2L, 5, RoundingMode.UP, parent)));
+        Assertions.assertNotEquals(ShardKeyBuilder.longHash(key), ShardKeyBuilder.longHash(new ShardKey("tenant", 2L, 5, RoundingMode.UP, null)));
+        Assertions.assertNotEquals(ShardKeyBuilder.longHash(new ShardKey("", 0L, null, null, null)), ShardKeyBuilder.longHash(new ShardKey(null, 0L, null, null, null)));
+    }
+
+    @Test
+    void testPartition() {
+        var counts = new int[8];
+        var moved = 0;
+        for (int i = 0; i < 8000; ++i) {
+            var key = new ShardKey("t" + (i % 10), i, null, null, null);
+            var partition = ShardKeyBuilder.partition(key, 8);
+            ++counts[partition];
+            var grown = ShardKeyBuilder.partition(key, 9);
+            if (grown != partition) {
+                Assertions.assertEquals(8, grown);
+                ++moved;
+            }
+        }
+        for (int count : counts) {
+            Assertions.assertTrue((count > 800) && (count < 1200), "unbalanced: " + count);
+        }
+        Assertions.assertTrue((moved > 600) && (moved < 1200), "moved: " + moved);
+    }
+}
@@ -60,6 +60,44 @@ class TestWithers {
         Assertions.assertEquals("twenty", r3.s());
     }
 
+    @Test
+    void testDefaultWithersReturnNewInstance() {
+        var r1 = new SimpleGenericRecord<>(10, "ten");
+        Assertions.assertNotSame(r1, r1.withI(10));
+        Assertions.assertNotSame(r1, r1.with(r -> r.i(10)));
+    }
+
+    @Test
+    void testEqualsWithersReturnSameInstance() {
+        var r1 = new EqualsWither(10, "ten", 1.5);
+        Assertions.assertSame(r1, r1.withI(10));
+        Assertions.assertSame(r1, r1.withS(new String("ten")));
+        Assertions.assertSame(r1, r1.withD(1.5));
+        Assertions.assertSame(r1, r1.with(r -> r.i(10)));
+        Assertions.assertNotSame(r1, r1.withI(11));
+        Assertions.assertNotSame(r1, r1.with(r -> r.s("eleven")));
+    }
+
+    @Test
+    void testIdentityWithersReturnSameInstance() {
+        var r1 = new IdentityWither(10, "ten", 1.5);
+        Assertions.assertSame(r1, r1.withI(10));
+        Assertions.assertSame(r1, r1.withS(r1.s()));
+        Assertions.assertNotSame(r1, r1.withS(new String("ten")));
+        Assertions.assertSame(r1, r1.with(r -> r.i(10)));
+        Assertions.assertNotSame(r1, r1.with(r -> r.s(new String("ten"))));
+    }
+
+    @Test
+    void testWithersCompareDoubleBits() {
+        var r1 = new EqualsWither(10, "ten", 0.0);
+        var r2 = r1.withD(-0.0);
+        Assertions.assertNotSame(r1, r2);
+        Assertions.assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(r2.d()));
+        var nan = r1.withD(Double.NaN);
+        Assertions.assertSame(nan, nan.withD(Double.NaN));
+    }
+
     private static class BadSubclass implements PersonRecordBuilder.With {}
 
     @Test